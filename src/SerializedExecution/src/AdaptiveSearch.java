@@ -0,0 +1,53 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+
+/**
+ * An AdaptiveSearch chooses the next combinations of parameters from
+ * the results of the previous ones. The Serializer passes every result
+ * to observe() before handing it to its result listener, and asks for
+ * a new combination only when an execution slot is free, so the
+ * proposals use all the results available at that moment. Every 
+ * execution is observed exactly once, also when it fails, so the 
+ * CombinationSource of an adaptive search can wait in nextCombination()
+ * for the results of the combinations it has already returned.
+ * 
+ * The combinations depend on the order in which the results arrive,
+ * so an adaptive search is not reproducible when the executions run
+ * concurrently, and cannot be resumed.
+ */
+
+public interface AdaptiveSearch extends SearchStrategy {
+	/**
+	 * Tells the search how many executions (one for each train/test
+	 * pair) are performed for each combination. It is invoked before
+	 * combinations().
+	 * 
+	 * @param runs
+	 */
+	
+	public void setRunsPerCombination(int runs);
+	
+	/**
+	 * Takes into account the result of an execution. It can be invoked
+	 * concurrently, and must not discard the result.
+	 * 
+	 * @param result
+	 * @throws IOException
+	 */
+	
+	public void observe(RunResult result) throws IOException;
+}
@@ -0,0 +1,63 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.ArrayList;
+
+/**
+ * The class CandidateSearch evaluates an explicit list of combinations
+ * of parameters, e.g. the ones chosen by an adaptive search after the
+ * results of a previous sweep.
+ */
+
+public class CandidateSearch implements SearchStrategy {
+	private ArrayList<float[]> candidates;
+	
+	public CandidateSearch(ArrayList<float[]> candidates) {
+		this.candidates = candidates;
+	}
+	
+	public ArrayList<float[]> getCandidates() {
+		return candidates;
+	}
+	
+	@Override
+	public long getCombinationCount(ParameterGrid grid) {
+		return candidates.size();
+	}
+	
+	@Override
+	public CombinationSource combinations(ParameterGrid grid, final long first) {
+		return new CombinationSource() {
+			private long index = first;
+			
+			@Override
+			public long getIndex() {
+				return index;
+			}
+			
+			@Override
+			public float[] nextCombination() {
+				if (index >= candidates.size())
+					return null;
+				return candidates.get((int) index++);
+			}
+		};
+	}
+	
+	@Override
+	public String toString() {
+		return "CandidateSearch [candidates=" + candidates.size() + "]";
+	}
+}
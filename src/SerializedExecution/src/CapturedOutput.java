@@ -0,0 +1,269 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * The class CapturedOutput holds the answers of a single execution of
+ * an EC, one line for each answer, while they are read. At most
+ * "maxBytes" bytes of answers are kept in memory: the following lines
+ * are written to a temporary file, so an EC producing a huge number
+ * of answers does not exhaust the heap. The temporary file is deleted
+ * by discard(); the ones never discarded are deleted when the JVM
+ * exits, together with the directory holding them.
+ * 
+ * When the launcher can measure it, the peak resident memory of the
+ * process that produced the answers is recorded as well.
+ */
+
+public class CapturedOutput {
+	private long maxBytes;
+	private long bufferedBytes;
+	private long lineCount;
+	private ArrayList<String> lines;
+	private File spillFile;
+	private BufferedWriter spill;
+	private long peakRssKb;
+	private int exitCode;
+	
+	private static File spillDirectory = null;
+	
+	public CapturedOutput(long maxBytes) {
+		this.maxBytes = maxBytes;
+		this.bufferedBytes = 0;
+		this.lineCount = 0;
+		this.lines = new ArrayList<String>();
+		this.spillFile = null;
+		this.spill = null;
+		this.peakRssKb = -1;
+		this.exitCode = 0;
+	}
+	
+	/**
+	 * Appends an answer, writing it to the temporary file if the
+	 * memory budget has been used up.
+	 * 
+	 * @param line
+	 * @throws IOException
+	 */
+	
+	public void addLine(String line) throws IOException {
+		long size = 2L * line.length();
+		
+		if (spill == null && bufferedBytes + size <= maxBytes) {
+			lines.add(line);
+			bufferedBytes += size;
+		} else {
+			if (spill == null) {
+				spillFile = File.createTempFile("ec-output", ".txt", 
+						spillDirectory());
+				spill = new BufferedWriter(new OutputStreamWriter(
+						new FileOutputStream(spillFile), StandardCharsets.UTF_8));
+			}
+			spill.write(line);
+			spill.write('\n');
+		}
+		lineCount++;
+	}
+	
+	/**
+	 * Reads all the lines of "reader" as answers.
+	 * 
+	 * @param reader
+	 * @throws IOException
+	 */
+	
+	public void addLines(BufferedReader reader) throws IOException {
+		String line;
+		while ((line = reader.readLine()) != null)
+			addLine(line);
+	}
+	
+	/**
+	 * Must be called once all the answers have been added.
+	 * 
+	 * @throws IOException
+	 */
+	
+	public void finish() throws IOException {
+		if (spill != null) {
+			spill.close();
+			spill = null;
+		}
+	}
+	
+	/**
+	 * @return the peak resident set size, in kB, of the process that
+	 * produced the answers, or -1 if it is unknown
+	 */
+	
+	public long getPeakRssKb() {
+		return peakRssKb;
+	}
+	
+	public void setPeakRssKb(long peakRssKb) {
+		this.peakRssKb = peakRssKb;
+	}
+	
+	/**
+	 * @return the exit status of the EC that produced the answers: 
+	 * anything but 0 means that it failed
+	 */
+	
+	public int getExitCode() {
+		return exitCode;
+	}
+	
+	public void setExitCode(int exitCode) {
+		this.exitCode = exitCode;
+	}
+	
+	public long getLineCount() {
+		return lineCount;
+	}
+	
+	public boolean isSpilled() {
+		return spillFile != null;
+	}
+	
+	/**
+	 * Returns all the answers, reading back the ones written to
+	 * the temporary file.
+	 * 
+	 * @return ArrayList<String>
+	 * @throws IOException
+	 */
+	
+	public ArrayList<String> readAllLines() throws IOException {
+		if (spillFile == null)
+			return lines;
+		
+		final ArrayList<String> all = new ArrayList<String>(lines);
+		forEachSpilledLine(new LineHandler() {
+			@Override
+			public void handle(String line) {
+				all.add(line);
+			}
+		});
+		return all;
+	}
+	
+	/**
+	 * Writes all the answers to "out", one for each line, without
+	 * loading the temporary file in memory.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	
+	public void writeTo(final Writer out) throws IOException {
+		forEachLine(new LineHandler() {
+			@Override
+			public void handle(String line) throws IOException {
+				out.write(line);
+				out.write('\n');
+			}
+		});
+	}
+	
+	/**
+	 * Passes all the answers, in order, to "handler" without loading
+	 * the temporary file in memory.
+	 * 
+	 * @param handler
+	 * @throws IOException
+	 */
+	
+	public void forEachLine(LineHandler handler) throws IOException {
+		for (String line : lines)
+			handler.handle(line);
+		forEachSpilledLine(handler);
+	}
+	
+	/**
+	 * Deletes the temporary file, if any.
+	 */
+	
+	public void discard() {
+		try {
+			finish();
+		} catch (IOException e) {
+			// the file is deleted anyway
+		}
+		if (spillFile != null)
+			spillFile.delete();
+	}
+	
+	/**
+	 * Returns the directory of the temporary files, creating it the
+	 * first time. It is emptied and deleted when the JVM exits.
+	 * 
+	 * @return File
+	 * @throws IOException
+	 */
+	
+	private static synchronized File spillDirectory() throws IOException {
+		if (spillDirectory == null) {
+			final File directory = Files.createTempDirectory("ec-output").toFile();
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					File[] files = directory.listFiles();
+					if (files != null)
+						for (File f : files)
+							f.delete();
+					directory.delete();
+				}
+			}, "ec-output-cleanup"));
+			spillDirectory = directory;
+		}
+		return spillDirectory;
+	}
+	
+	private void forEachSpilledLine(LineHandler handler) throws IOException {
+		if (spillFile == null)
+			return;
+		finish();
+		
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(spillFile), StandardCharsets.UTF_8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null)
+				handler.handle(line);
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Callback invoked for each answer.
+	 */
+	
+	public interface LineHandler {
+		void handle(String line) throws IOException;
+	}
+}
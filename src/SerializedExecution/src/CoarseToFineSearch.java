@@ -0,0 +1,367 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * The class CoarseToFineSearch explores the grid of a configuration at
+ * increasing resolutions. The first level is a coarse grid, whose step
+ * on every Variable is factor^levels times the step entered by the user.
+ * Each following level divides the step by "factor" and evaluates, 
+ * around each of the best "topK" combinations found so far, the points
+ * of the finer grid within half a step of the previous level. The last
+ * level uses the step of the Variables, so every evaluated combination
+ * belongs to the grid of the configuration and none is evaluated twice.
+ * 
+ * A level starts only when all the results of the previous one have
+ * been observed. The number of combinations depends on the results:
+ * getCombinationCount() returns an upper bound. Note that a level 
+ * evaluates up to (factor + 1)^(number of Variables) points around 
+ * each of the "topK" combinations.
+ */
+
+public class CoarseToFineSearch implements AdaptiveSearch {
+	private int factor;
+	private int levels;
+	private int topK;
+	private MetricExtractor extractor;
+	private boolean maximize;
+	private int runsPerCombination;
+	private volatile Refinement refinement;
+	
+	public CoarseToFineSearch(int factor, int levels, int topK, 
+			MetricExtractor extractor, boolean maximize) {
+		if (factor < 2)
+			throw new IllegalArgumentException("factor must be at least 2");
+		this.factor = factor;
+		this.levels = Math.max(0, levels);
+		this.topK = Math.max(1, topK);
+		this.extractor = extractor;
+		this.maximize = maximize;
+		this.runsPerCombination = 1;
+		this.refinement = null;
+	}
+	
+	@Override
+	public void setRunsPerCombination(int runs) {
+		this.runsPerCombination = Math.max(1, runs);
+	}
+	
+	/**
+	 * @return the stride, in steps of the Variables, of the level "level"
+	 */
+	
+	private long strideOf(int level) {
+		long stride = 1;
+		for (int l = level; l < levels && stride < Integer.MAX_VALUE; l++)
+			stride *= factor;
+		return stride;
+	}
+	
+	/**
+	 * The size of the coarse grid plus, for every other level, "topK"
+	 * neighbourhoods, bounded by the size of the grid.
+	 */
+	
+	@Override
+	public long getCombinationCount(ParameterGrid grid) {
+		double coarse = 1, neighbourhood = 1;
+		for (int d = 0; d < grid.getDimension(); d++) {
+			coarse *= (grid.getCount(d) - 1) / strideOf(0) + 1;
+			neighbourhood *= Math.min(grid.getCount(d), factor / 2 * 2 + 1);
+		}
+		double bound = coarse + (double) levels * topK * neighbourhood;
+		try {
+			return (long) Math.min(bound, grid.size());
+		} catch (IllegalStateException e) {
+			return (long) Math.min(bound, Long.MAX_VALUE);
+		}
+	}
+	
+	@Override
+	public CombinationSource combinations(ParameterGrid grid, final long first) {
+		final Refinement current = new Refinement(grid);
+		refinement = current;
+		return new CombinationSource() {
+			private long index = first;
+			
+			@Override
+			public long getIndex() {
+				return index;
+			}
+			
+			@Override
+			public float[] nextCombination() {
+				float[] vector = current.next();
+				if (vector != null)
+					index++;
+				return vector;
+			}
+		};
+	}
+	
+	@Override
+	public void observe(RunResult result) throws IOException {
+		Refinement current = refinement;
+		if (current == null || result.getCombination() == null)
+			return;
+		
+		// the run is counted even if its score cannot be read
+		Double score = null;
+		try {
+			score = extractor.extract(result);
+		} finally {
+			current.observe(result.getCombination(), score);
+		}
+	}
+	
+	/**
+	 * @return the best combination observed so far, or null
+	 */
+	
+	public float[] getBest() {
+		Refinement current = refinement;
+		return (current == null) ? null : current.getBest();
+	}
+	
+	@Override
+	public String toString() {
+		return "CoarseToFineSearch [factor=" + factor + ", levels=" + levels 
+				+ ", topK=" + topK + ", extractor=" + extractor + ", maximize=" 
+				+ maximize + "]";
+	}
+	
+	/**
+	 * The state of a sweep: the combinations of the current level still
+	 * to be returned, and the scores of the evaluated ones. Combinations
+	 * are identified by their steps on every element (see 
+	 * ParameterGrid.digitsAt()).
+	 */
+	
+	private class Refinement {
+		private ParameterGrid grid;
+		private int level;
+		private ArrayList<int[]> pending;
+		private int nextPending;
+		private long dispatchedRuns;
+		private long observedRuns;
+		private HashSet<String> evaluated;
+		private HashMap<String, Point> points;
+		
+		public Refinement(ParameterGrid grid) {
+			this.grid = grid;
+			this.level = 0;
+			this.nextPending = 0;
+			this.dispatchedRuns = 0;
+			this.observedRuns = 0;
+			this.evaluated = new HashSet<String>();
+			this.points = new HashMap<String, Point>();
+			this.pending = coarseGrid();
+		}
+		
+		/**
+		 * Returns the next combination, waiting for the results of the
+		 * current level before refining it.
+		 * 
+		 * @return null when the finest level has been evaluated
+		 */
+		
+		public synchronized float[] next() {
+			while (nextPending == pending.size()) {
+				if (level == levels)
+					return null;
+				
+				while (observedRuns < dispatchedRuns) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return null;
+					}
+				}
+				level++;
+				pending = refine();
+				nextPending = 0;
+			}
+			
+			int[] digits = pending.get(nextPending++);
+			dispatchedRuns += runsPerCombination;
+			float[] vector = new float[digits.length];
+			for (int d = 0; d < digits.length; d++)
+				vector[d] = grid.valueAt(d, digits[d]);
+			return vector;
+		}
+		
+		/**
+		 * Adds "score" to the combination that has been executed, which
+		 * is not the one returned by next() when the Serializer replaces
+		 * it with its canonical form (see ParameterConstraints).
+		 * 
+		 * @param combination
+		 * @param score
+		 */
+		
+		public synchronized void observe(float[] combination, Double score) {
+			int[] digits = grid.digitsOf(combination);
+			String key = Arrays.toString(digits);
+			Point point = points.get(key);
+			if (point == null) {
+				point = new Point(digits);
+				points.put(key, point);
+				evaluated.add(key);
+			}
+			point.add(score);
+			observedRuns++;
+			notifyAll();
+		}
+		
+		public synchronized float[] getBest() {
+			ArrayList<Point> ranking = ranking();
+			if (ranking.isEmpty() || Double.isNaN(ranking.get(0).getScore()))
+				return null;
+			int[] digits = ranking.get(0).digits;
+			float[] vector = new float[digits.length];
+			for (int d = 0; d < digits.length; d++)
+				vector[d] = grid.valueAt(d, digits[d]);
+			return vector;
+		}
+		
+		/**
+		 * @return the combinations of the first level
+		 */
+		
+		private ArrayList<int[]> coarseGrid() {
+			int[][] axes = new int[grid.getDimension()][];
+			long stride = strideOf(0);
+			for (int d = 0; d < axes.length; d++) {
+				axes[d] = new int[(int) ((grid.getCount(d) - 1) / stride + 1)];
+				for (int i = 0; i < axes[d].length; i++)
+					axes[d][i] = (int) (i * stride);
+			}
+			return product(axes);
+		}
+		
+		/**
+		 * @return the combinations of the current level around the best
+		 * "topK" combinations evaluated so far
+		 */
+		
+		private ArrayList<int[]> refine() {
+			ArrayList<int[]> refined = new ArrayList<int[]>();
+			long stride = strideOf(level);
+			int reach = factor / 2;
+			
+			ArrayList<Point> ranking = ranking();
+			for (int k = 0; k < topK && k < ranking.size(); k++) {
+				if (Double.isNaN(ranking.get(k).getScore()))
+					break;
+				int[] center = ranking.get(k).digits;
+				int[][] axes = new int[center.length][];
+				for (int d = 0; d < center.length; d++) {
+					ArrayList<Integer> axis = new ArrayList<Integer>();
+					for (int j = -reach; j <= reach; j++) {
+						long digit = center[d] + j * stride;
+						if (digit >= 0 && digit < grid.getCount(d))
+							axis.add((int) digit);
+					}
+					axes[d] = new int[axis.size()];
+					for (int i = 0; i < axes[d].length; i++)
+						axes[d][i] = axis.get(i);
+				}
+				refined.addAll(product(axes));
+			}
+			return refined;
+		}
+		
+		/**
+		 * @return the combinations of the given steps of every element
+		 * that have not been evaluated yet
+		 */
+		
+		private ArrayList<int[]> product(int[][] axes) {
+			ArrayList<int[]> combinations = new ArrayList<int[]>();
+			int[] position = new int[axes.length];
+			while (true) {
+				int[] digits = new int[axes.length];
+				for (int d = 0; d < axes.length; d++)
+					digits[d] = axes[d][position[d]];
+				if (evaluated.add(Arrays.toString(digits)))
+					combinations.add(digits);
+				
+				int d = axes.length - 1;
+				while (d >= 0 && ++position[d] == axes[d].length) {
+					position[d] = 0;
+					d--;
+				}
+				if (d < 0)
+					return combinations;
+			}
+		}
+		
+		/**
+		 * @return the evaluated combinations from the best to the 
+		 * worst; the ones missing a score come last
+		 */
+		
+		private ArrayList<Point> ranking() {
+			ArrayList<Point> ranking = new ArrayList<Point>(points.values());
+			Collections.sort(ranking, new Comparator<Point>() {
+				@Override
+				public int compare(Point a, Point b) {
+					if (Double.isNaN(a.getScore()) || Double.isNaN(b.getScore()))
+						return Boolean.compare(Double.isNaN(a.getScore()), 
+								Double.isNaN(b.getScore()));
+					return maximize ? Double.compare(b.getScore(), a.getScore())
+							: Double.compare(a.getScore(), b.getScore());
+				}
+			});
+			return ranking;
+		}
+	}
+	
+	/**
+	 * An evaluated combination with its mean score over the 
+	 * train/test pairs (NaN if some run did not produce one).
+	 */
+	
+	private static class Point {
+		private int[] digits;
+		private double sum;
+		private int runs;
+		private boolean failed;
+		
+		public Point(int[] digits) {
+			this.digits = digits;
+		}
+		
+		public void add(Double score) {
+			runs++;
+			if (score == null || score.isNaN())
+				failed = true;
+			else
+				sum += score;
+		}
+		
+		public double getScore() {
+			return (failed || runs == 0) ? Double.NaN : sum / runs;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+/**
+ * A CombinationSource produces, one at a time, the combinations of
+ * parameters that a SearchStrategy wants to evaluate. Every combination
+ * has an index, which is used to number the executions of the EC.
+ */
+
+public interface CombinationSource {
+	/**
+	 * @return the index of the combination returned by the next
+	 * call to nextCombination()
+	 */
+	
+	public long getIndex();
+	
+	/**
+	 * @return the next combination, or null if there are no more
+	 */
+	
+	public float[] nextCombination();
+}
@@ -0,0 +1,113 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * The class CombinationSpliterator lazily generates the combinations of
+ * a ParameterGrid whose index is in [origin, fence). Only the current
+ * combination is kept in memory, and the range can be split in halves 
+ * to consume the combinations in parallel.
+ */
+
+public class CombinationSpliterator implements Spliterator<float[]>, 
+		CombinationSource {
+	private ParameterGrid grid;
+	private long index;
+	private long fence;
+	private int[] digits;
+	
+	public CombinationSpliterator(ParameterGrid grid, long origin, long fence) {
+		this.grid = grid;
+		this.index = origin;
+		this.fence = fence;
+		this.digits = new int[grid.getDimension()];
+		if (origin < fence)
+			grid.digitsAt(origin, digits);
+	}
+	
+	/**
+	 * @return the index of the next combination
+	 */
+	
+	@Override
+	public long getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Returns the next combination and moves forward like an
+	 * odometer.
+	 * 
+	 * @return null if all the combinations have been generated
+	 */
+	
+	@Override
+	public float[] nextCombination() {
+		if (index >= fence)
+			return null;
+		
+		float[] vector = new float[digits.length];
+		for (int i = 0; i < digits.length; i++)
+			vector[i] = grid.valueAt(i, digits[i]);
+		
+		index++;
+		for (int i = digits.length - 1; i >= 0; i--) {
+			if (++digits[i] < grid.getCount(i))
+				break;
+			digits[i] = 0;
+		}
+		
+		return vector;
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super float[]> action) {
+		float[] vector = nextCombination();
+		if (vector == null)
+			return false;
+		
+		action.accept(vector);
+		return true;
+	}
+	
+	/**
+	 * Hands the first half of the remaining combinations to a new
+	 * spliterator and keeps the second one.
+	 */
+	
+	@Override
+	public Spliterator<float[]> trySplit() {
+		long middle = index + (fence - index) / 2;
+		if (middle <= index)
+			return null;
+		
+		CombinationSpliterator prefix = new CombinationSpliterator(grid, index, middle);
+		index = middle;
+		grid.digitsAt(index, digits);
+		return prefix;
+	}
+	
+	@Override
+	public long estimateSize() {
+		return fence - index;
+	}
+	
+	@Override
+	public int characteristics() {
+		return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class CrossValidation runs the combinations of a Serializer with
+ * k-fold cross validation on a single data set: the data set is split 
+ * into k folds (see FoldSplitter) in a temporary directory, and every
+ * combination is run only on the k matching train/test pairs, instead
+ * of on every train set with every test set.
+ * 
+ * For every combination the score read by "extractor" and the metrics
+ * attached to the results (see Metric) are aggregated over the folds
+ * into their mean and standard deviation. A combination is summarized
+ * as soon as all its folds have been run, so only the combinations 
+ * still running are kept in memory.
+ */
+
+public class CrossValidation {
+	private int k;
+	private long seed;
+	private MetricExtractor extractor;
+	
+	public CrossValidation(int k, MetricExtractor extractor) {
+		this.k = k;
+		this.seed = 0;
+		this.extractor = extractor;
+	}
+	
+	public int getFolds() {
+		return k;
+	}
+	
+	/**
+	 * Sets the seed choosing the fold of every sample.
+	 * 
+	 * @param seed
+	 */
+	
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Splits the data set located at "dataSet" and runs "serializer" 
+	 * on its folds. The results are still handed to the result listener
+	 * of the serializer, whose settings are restored at the end.
+	 * 
+	 * @param serializer
+	 * @param dataSet
+	 * @return the summaries of the combinations, in the order they
+	 * completed
+	 * @throws IOException
+	 */
+	
+	public ArrayList<Summary> run(Serializer serializer, String dataSet) 
+			throws IOException {
+		ResultListener listener = serializer.getResultListener();
+		ArrayList<String> testSet = serializer.getTestSet();
+		ArrayList<String> trainSet = serializer.getTrainSet();
+		boolean paired = serializer.isPaired();
+		
+		File directory = Files.createTempDirectory("ec-folds").toFile();
+		FoldSplitter splitter = new FoldSplitter(directory, k, seed);
+		Aggregator aggregator = new Aggregator(listener);
+		try {
+			splitter.split(dataSet);
+			serializer.setDataSets(splitter.getTestFiles(), splitter.getTrainFiles());
+			serializer.setPaired(true);
+			serializer.setResultListener(aggregator);
+			serializer.run();
+		} finally {
+			serializer.setResultListener(listener);
+			serializer.setDataSets(testSet, trainSet);
+			serializer.setPaired(paired);
+			for (File f : directory.listFiles())
+				f.delete();
+			directory.delete();
+		}
+		
+		return aggregator.summaries;
+	}
+	
+	@Override
+	public String toString() {
+		return "CrossValidation [k=" + k + ", seed=" + seed + ", extractor=" 
+				+ extractor + "]";
+	}
+	
+	/**
+	 * Collects the values of the folds of the running combinations.
+	 */
+	
+	private class Aggregator implements ResultListener {
+		private ResultListener next;
+		private LinkedHashMap<Long, Summary> running;
+		private ArrayList<Summary> summaries;
+		
+		public Aggregator(ResultListener next) {
+			this.next = next;
+			this.running = new LinkedHashMap<Long, Summary>();
+			this.summaries = new ArrayList<Summary>();
+		}
+		
+		@Override
+		public void resultReady(RunResult result) throws IOException {
+			Double score = extractor.extract(result);
+			synchronized (this) {
+				Long index = result.getRunIndex() / k;
+				Summary summary = running.get(index);
+				if (summary == null) {
+					summary = new Summary(result.getCombination());
+					running.put(index, summary);
+				}
+				summary.add("score", score);
+				for (Map.Entry<String, Double> metric : result.getMetrics().entrySet())
+					summary.add(metric.getKey(), metric.getValue());
+				if (++summary.folds == k) {
+					running.remove(index);
+					summaries.add(summary);
+				}
+			}
+			
+			if (next != null)
+				next.resultReady(result);
+			else
+				result.discard();
+		}
+	}
+	
+	/**
+	 * The mean and the standard deviation of the score and of the 
+	 * metrics of a combination over the folds.
+	 */
+	
+	public static class Summary {
+		private float[] combination;
+		private int folds;
+		private LinkedHashMap<String, Statistic> statistics;
+		
+		public Summary(float[] combination) {
+			this.combination = combination;
+			this.folds = 0;
+			this.statistics = new LinkedHashMap<String, Statistic>();
+		}
+		
+		private void add(String name, Double value) {
+			Statistic statistic = statistics.get(name);
+			if (statistic == null) {
+				statistic = new Statistic();
+				statistics.put(name, statistic);
+			}
+			statistic.add(value);
+		}
+		
+		public float[] getCombination() {
+			return combination;
+		}
+		
+		/**
+		 * @param name "score" or the name of a metric
+		 * @return the mean over the folds, NaN if a fold has no value
+		 */
+		
+		public double getMean(String name) {
+			Statistic statistic = statistics.get(name);
+			return (statistic == null) ? Double.NaN : statistic.getMean();
+		}
+		
+		/**
+		 * @param name "score" or the name of a metric
+		 * @return the sample standard deviation over the folds, NaN if
+		 * a fold has no value
+		 */
+		
+		public double getStd(String name) {
+			Statistic statistic = statistics.get(name);
+			return (statistic == null) ? Double.NaN : statistic.getStd();
+		}
+		
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; combination != null && i < combination.length; i++)
+				sb.append(i == 0 ? "" : " ").append(combination[i]);
+			for (Map.Entry<String, Statistic> e : statistics.entrySet())
+				sb.append(" ").append(e.getKey()).append("=").append(e.getValue().getMean())
+						.append("+-").append(e.getValue().getStd());
+			return sb.toString();
+		}
+	}
+	
+	/**
+	 * Running mean and variance (Welford's algorithm).
+	 */
+	
+	private static class Statistic {
+		private int count;
+		private double mean;
+		private double m2;
+		private boolean missing;
+		
+		public void add(Double value) {
+			if (value == null || value.isNaN()) {
+				missing = true;
+				return;
+			}
+			count++;
+			double delta = value - mean;
+			mean += delta / count;
+			m2 += delta * (value - mean);
+		}
+		
+		public double getMean() {
+			return (missing || count == 0) ? Double.NaN : mean;
+		}
+		
+		public double getStd() {
+			if (missing || count == 0)
+				return Double.NaN;
+			return (count == 1) ? 0 : Math.sqrt(m2 / (count - 1));
+		}
+	}
+}
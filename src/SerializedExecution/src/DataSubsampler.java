@@ -0,0 +1,97 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The class DataSubsampler writes reduced copies of train and test set
+ * files, keeping a pseudo-random fraction of their lines (one sample
+ * for each line). Whether a line is kept only depends on its position
+ * and on "seed", so the lines kept for a fraction are also kept for 
+ * every larger fraction: the reduced sets are nested.
+ */
+
+public class DataSubsampler {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	private File directory;
+	private long seed;
+	private int copies;
+	
+	public DataSubsampler(File directory, long seed) {
+		this.directory = directory;
+		this.seed = seed;
+		this.copies = 0;
+	}
+	
+	/**
+	 * Writes in "directory" a copy of the file located at "path" 
+	 * containing a fraction "fraction" of its lines (at least one, if
+	 * the file is not empty), streaming the file once.
+	 * 
+	 * @param path
+	 * @param fraction
+	 * @return the path of the copy
+	 * @throws IOException
+	 */
+	
+	public synchronized String subsample(String path, double fraction) 
+			throws IOException {
+		File source = new File(path);
+		File copy = new File(directory, (copies++) + "-" + source.getName());
+		
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(source), StandardCharsets.UTF_8));
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(copy), StandardCharsets.UTF_8));
+		try {
+			String line;
+			String first = null;
+			long index = 0;
+			long kept = 0;
+			while ((line = reader.readLine()) != null) {
+				if (first == null)
+					first = line;
+				if (isKept(index++, fraction)) {
+					writer.write(line);
+					writer.write('\n');
+					kept++;
+				}
+			}
+			if (kept == 0 && first != null) {
+				writer.write(first);
+				writer.write('\n');
+			}
+		} finally {
+			reader.close();
+			writer.close();
+		}
+		
+		return copy.getPath();
+	}
+	
+	private boolean isKept(long index, double fraction) {
+		long hash = IndexPermutation.mix64(seed + (index + 1) * GOLDEN_GAMMA);
+		return (hash >>> 11) * 0x1.0p-53 < fraction;
+	}
+}
@@ -1,4 +1,4 @@
-/*
+/* 
  * Author: Dario Capozzi, Alessandro Mantovani, Roberto Ronco, Giulio Tavella
  * 
  * Date: 20/06/2017 
@@ -13,29 +13,202 @@
 
 
 
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.concurrent.Executors;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 /**
  * The class Database manages the SQLite database. 
  * 
  * In particular it makes available all the necessary methods
  * to perform the different kinds of query to the database.
+ * 
+ * The database is accessed through a DatabaseAccess: the queries are
+ * run on a pool of read connections, the updates are queued to a
+ * single writer thread. So the methods can be called by any thread,
+ * and a read never waits for the writes of a running sweep.
  */
 
 public class Database {
-	private Connection connection;
-	private String path;
+	/* 
+	 * The catalogue of the statements that are prepared once per 
+	 * connection (see DatabaseAccess.Session). A "%s" is replaced by
+	 * the name of the table of a FileType.
+	 */
+
+	private static final String SELECT_MODELS = "SELECT * FROM %s";
+	private static final String SELECT_CONFIGURATIONS = 
+			"SELECT * FROM CONFIGURATION_TABLE WHERE EC_ID = ?";
+	private static final String SELECT_CLICKED_MODELS = 
+			"SELECT * FROM %s WHERE CHECKED = 1";
+	private static final String UPDATE_CLICKED = 
+			"UPDATE %s SET CHECKED = ? WHERE NAME = ?";
+	private static final String UPDATE_ALL_CLICKED = "UPDATE %s SET CHECKED = ?";
+	private static final String INSERT_MODEL = "INSERT INTO %s VALUES(null, ?, ?, 0)";
+	private static final String SELECT_INSERTED_MODEL = 
+			"SELECT * FROM %s WHERE ID = last_insert_rowid()";
+	private static final String SELECT_MODEL_ID = "SELECT ID FROM %s WHERE NAME = ?";
+	private static final String DELETE_MODEL = "DELETE FROM %s WHERE NAME = ?";
+	private static final String SELECT_CONFIGURATION_VALUES = 
+			"SELECT * FROM CONFIGURATION_VALUES_TABLE WHERE CONFIGURATION_ID = ?";
+	private static final String DELETE_CONFIGURATION_VALUES = 
+			"DELETE FROM CONFIGURATION_VALUES_TABLE WHERE CONFIGURATION_ID = ?";
+	private static final String INSERT_CONFIGURATION_VALUE = 
+			"INSERT INTO CONFIGURATION_VALUES_TABLE VALUES(null, ?, ?, ?, ?, ?)";
+	private static final String DELETE_CONSTRAINTS = 
+			"DELETE FROM CONSTRAINT_TABLE WHERE CONFIGURATION_ID = ?";
+	private static final String SELECT_CONSTRAINTS = "SELECT TARGET, EXPRESSION "
+			+ "FROM CONSTRAINT_TABLE WHERE CONFIGURATION_ID = ? ORDER BY POSITION";
+	private static final String INSERT_CONSTRAINT = 
+			"INSERT INTO CONSTRAINT_TABLE VALUES(?, ?, ?, ?)";
+	private static final String SELECT_METRICS = "SELECT NAME, KIND, PATTERN "
+			+ "FROM METRIC_TABLE WHERE EC_ID = ? ORDER BY ROWID";
+	private static final String INSERT_METRIC = 
+			"INSERT OR REPLACE INTO METRIC_TABLE VALUES(?, ?, ?, ?)";
+	private static final String DELETE_METRIC = 
+			"DELETE FROM METRIC_TABLE WHERE EC_ID = ? AND NAME = ?";
+	private static final String DELETE_METRICS = "DELETE FROM METRIC_TABLE WHERE EC_ID = ?";
+	private static final String SELECT_SWEEP = "SELECT ID, RUNS, FINISHED FROM "
+			+ "SWEEP_TABLE WHERE EC_ID = ? AND CONFIGURATION_ID = ? AND TRAIN_IDS = ? "
+			+ "AND TEST_IDS = ? AND GRID = ?";
+	private static final String INSERT_SWEEP = 
+			"INSERT INTO SWEEP_TABLE VALUES(null, ?, ?, ?, ?, ?, ?, 0)";
+	private static final String SELECT_LAST_ID = "SELECT last_insert_rowid() AS ID";
+	private static final String UPDATE_SWEEP_RESTARTED = 
+			"UPDATE SWEEP_TABLE SET RUNS = ?, FINISHED = 0 WHERE ID = ?";
+	private static final String UPDATE_SWEEP_FINISHED = 
+			"UPDATE SWEEP_TABLE SET FINISHED = 1 WHERE ID = ?";
+	private static final String SELECT_COMPLETED_RUNS = 
+			"SELECT RUN_INDEX FROM SWEEP_RUN_TABLE WHERE SWEEP_ID = ?";
+	private static final String DELETE_COMPLETED_RUNS = 
+			"DELETE FROM SWEEP_RUN_TABLE WHERE SWEEP_ID = ?";
+	private static final String INSERT_COMPLETED_RUN = 
+			"INSERT OR REPLACE INTO SWEEP_RUN_TABLE VALUES(?, ?, ?)";
+	private static final String SELECT_CACHED_RESULT = "SELECT LINES, ANSWERS, "
+			+ "WALL_TIME, PEAK_RSS FROM RESULT_CACHE_TABLE WHERE EC_HASH = ? "
+			+ "AND PARAMETERS = ? AND TRAIN_HASH = ? AND TEST_HASH = ?";
+	private static final String INSERT_CACHED_RESULT = 
+			"INSERT OR REPLACE INTO RESULT_CACHE_TABLE VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String DELETE_CACHED_RESULTS = "DELETE FROM RESULT_CACHE_TABLE";
+	private static final String SELECT_FINGERPRINT = 
+			"SELECT SIZE, MODIFIED, HASH FROM FINGERPRINT_TABLE WHERE PATH = ?";
+	private static final String INSERT_FINGERPRINT = 
+			"INSERT OR REPLACE INTO FINGERPRINT_TABLE VALUES(?, ?, ?, ?)";
+
+	private DatabaseAccess access;
 
 	public Database(String path) throws Exception {
 		Class.forName("org.sqlite.JDBC");
-		this.connection = DriverManager.getConnection(path);
-		this.path = path;
+		this.access = new DatabaseAccess(path);
+		this.access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				createSweepTables(session);
+				createMetricTable(session);
+				createConstraintTable(session);
+				createResultCacheTable(session);
+				createFingerprintTable(session);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Creates, if they do not exist yet, the tables that keep track 
+	 * of the serialized executions: SWEEP_TABLE stores the plan of 
+	 * each sweep (see SweepPlan), SWEEP_RUN_TABLE the index and the
+	 * status of every run completed by a sweep.
+	 * 
+	 * @param session
+	 * @throws SQLException
+	 */
+
+	private void createSweepTables(DatabaseAccess.Session session)
+			throws SQLException {
+		session.executeUpdate("CREATE TABLE IF NOT EXISTS SWEEP_TABLE ("
+				+ "ID INTEGER PRIMARY KEY AUTOINCREMENT, EC_ID INTEGER NOT NULL, "
+				+ "CONFIGURATION_ID INTEGER NOT NULL, TRAIN_IDS TEXT NOT NULL, "
+				+ "TEST_IDS TEXT NOT NULL, GRID TEXT NOT NULL, "
+				+ "RUNS INTEGER NOT NULL, FINISHED INTEGER NOT NULL)");
+		session.executeUpdate("CREATE TABLE IF NOT EXISTS SWEEP_RUN_TABLE ("
+				+ "SWEEP_ID INTEGER NOT NULL, RUN_INDEX INTEGER NOT NULL, "
+				+ "STATUS TEXT NOT NULL, PRIMARY KEY (SWEEP_ID, RUN_INDEX))");
+	}
+
+	/**
+	 * Creates, if it does not exist yet, METRIC_TABLE, which stores
+	 * the metrics (see Metric) read from the answers of each EC.
+	 * 
+	 * @param session
+	 * @throws SQLException
+	 */
+
+	private void createMetricTable(DatabaseAccess.Session session)
+			throws SQLException {
+		session.executeUpdate("CREATE TABLE IF NOT EXISTS METRIC_TABLE ("
+				+ "EC_ID INTEGER NOT NULL, NAME TEXT NOT NULL, "
+				+ "KIND TEXT NOT NULL, PATTERN TEXT NOT NULL, "
+				+ "PRIMARY KEY (EC_ID, NAME))");
+	}
+
+	/**
+	 * Creates, if it does not exist yet, CONSTRAINT_TABLE, which stores
+	 * the rules pruning the combinations of each configuration (see
+	 * ParameterConstraints): a constraint has an empty TARGET, a 
+	 * condition has the name of the element it activates.
+	 * 
+	 * @param session
+	 * @throws SQLException
+	 */
+
+	private void createConstraintTable(DatabaseAccess.Session session)
+			throws SQLException {
+		session.executeUpdate("CREATE TABLE IF NOT EXISTS CONSTRAINT_TABLE ("
+				+ "CONFIGURATION_ID INTEGER NOT NULL, POSITION INTEGER NOT NULL, "
+				+ "TARGET TEXT NOT NULL, EXPRESSION TEXT NOT NULL, "
+				+ "PRIMARY KEY (CONFIGURATION_ID, POSITION))");
+	}
+
+	/**
+	 * Creates, if it does not exist yet, RESULT_CACHE_TABLE, which 
+	 * stores the answers of the completed executions (see ResultCache).
+	 * The answers are joined by new lines.
+	 * 
+	 * @param session
+	 * @throws SQLException
+	 */
+
+	private void createResultCacheTable(DatabaseAccess.Session session)
+			throws SQLException {
+		session.executeUpdate("CREATE TABLE IF NOT EXISTS RESULT_CACHE_TABLE ("
+				+ "EC_HASH TEXT NOT NULL, PARAMETERS TEXT NOT NULL, "
+				+ "TRAIN_HASH TEXT NOT NULL, TEST_HASH TEXT NOT NULL, "
+				+ "LINES INTEGER NOT NULL, ANSWERS TEXT NOT NULL, "
+				+ "WALL_TIME INTEGER NOT NULL, PEAK_RSS INTEGER NOT NULL, "
+				+ "PRIMARY KEY (EC_HASH, PARAMETERS, TRAIN_HASH, TEST_HASH))");
+	}
+
+	/**
+	 * Creates, if it does not exist yet, FINGERPRINT_TABLE, which 
+	 * stores the fingerprint of each file together with its size and 
+	 * modification time when it was hashed (see Fingerprinter).
+	 * 
+	 * @param session
+	 * @throws SQLException
+	 */
+
+	private void createFingerprintTable(DatabaseAccess.Session session)
+			throws SQLException {
+		session.executeUpdate("CREATE TABLE IF NOT EXISTS FINGERPRINT_TABLE ("
+				+ "PATH TEXT PRIMARY KEY, SIZE INTEGER NOT NULL, "
+				+ "MODIFIED INTEGER NOT NULL, HASH TEXT NOT NULL)");
 	}
 
 	/**
@@ -46,64 +219,75 @@ public class Database {
 	 * @return ArrayList<Model>
 	 * @throws Exception
 	 */
-	
-	public ArrayList<Model> retrieveFromTable(FileType fileType)
+
+	public ArrayList<Model> retrieveFromTable(final FileType fileType)
 			throws Exception {
-		ArrayList<Model> data = new ArrayList<Model>();
-
-		//Builds the "select" query
-		String query = "SELECT * FROM " + Database.getTableName(fileType);
-
-		if (fileType == FileType.CONFIGURATION) {
-			/*
-			 * If we are retrieving a "configuration", it is necessary to 
-			 * consider only the configuration that are related to the
-			 * clicked EC, so we query the db in order to get the clicked
-			 * EC.
-			 */
-			ArrayList<Model> clickedEC = this.getClickedModels(FileType.EC);
-			if (clickedEC.size() == 0)
-				return data;	//if no EC selected, no configuration retrieved
-			
-			/*
-			 * if there is an EC selected , we modify the query so that 
-			 * we add a "where" clause
-			 */
-			
-			query = query + " WHERE EC_ID = " + clickedEC.get(0).getId() + "";
-		}
-		//Execute the query
-		ResultContainer rw = this.executeQuery(query);
-
-		ResultSet rs = rw.getRs();
-		
-		while (rs.next()) {
-			/*
-			 *  Saves attribute values obtained by the
-			 *  query to the DB
-			 */
-			
-			Integer id = rs.getInt("ID");
-			String name = rs.getString("NAME");
-			Integer checked = rs.getInt("CHECKED");
-			String path = "";
-			if (fileType != FileType.CONFIGURATION)
-				path = rs.getString("PATH");
-			
-			/*
-			 *  instance a new Model with the values retrieved by 
-			 *  the database 
-			 */
-			
-			Model model = new Model(id, name, path, checked == 1, fileType);
-			data.add(model);	//adds the new model to the arrayList to return
-		}
+		return access.read(new DatabaseAccess.Task<ArrayList<Model>>() {
+			@Override
+			public ArrayList<Model> run(DatabaseAccess.Session session)
+					throws SQLException {
+				ArrayList<Model> data = new ArrayList<Model>();
+
+				//Gets the "select" query
+				PreparedStatement pst;
+
+				if (fileType == FileType.CONFIGURATION) {
+					/* 
+					 * If we are retrieving a "configuration", it is necessary to 
+					 * consider only the configuration that are related to the
+					 * clicked EC, so we query the db in order to get the clicked
+					 * EC.
+					 */
+					ArrayList<Model> clickedEC = getClickedModels(FileType.EC);
+					if (clickedEC.size() == 0)
+						return data;	//if no EC selected, no configuration retrieved
+
+					/* 
+					 * if there is an EC selected , we use the query with
+					 * a "where" clause on its id
+					 */
+
+					pst = session.statement(SELECT_CONFIGURATIONS);
+					pst.setInt(1, clickedEC.get(0).getId());
+				}
+				else 
+					pst = session.statement(table(SELECT_MODELS, fileType));
+				//Execute the query
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
 
-		rw.close();
-		return data;
+				ResultSet rs = rw.getRs();
+
+				while (rs.next()) 
+					data.add(readModel(rs, fileType));	//adds the new model to the arrayList to return
+
+				rw.close();
+				return data;
+			}
+		});
+	}
+
+	/**
+	 * Instances a new Model with the values of the current row of
+	 * "rs", read from the table relative to the FileType "fileType".
+	 * 
+	 * @param rs
+	 * @param fileType
+	 * @return Model
+	 * @throws SQLException
+	 */
+
+	private Model readModel(ResultSet rs, FileType fileType) throws SQLException {
+		Integer id = rs.getInt("ID");
+		String name = rs.getString("NAME");
+		Integer checked = rs.getInt("CHECKED");
+		String path = "";
+		if (fileType != FileType.CONFIGURATION)
+			path = rs.getString("PATH");
+
+		return new Model(id, name, path, checked == 1, fileType);
 	}
 
-	
+
 	/**
 	 * Performs an "insert" query into the table relative to the FileType
 	 * "fileType", in order to insert the element with name "name" and 
@@ -114,40 +298,98 @@ public class Database {
 	 * @param name
 	 * @param path
 	 * @param fileType
+	 * @return the inserted model, or null if nothing has been inserted
 	 * @throws Exception
 	 */
-	
-	public void insertIntoTable(String name, String path, FileType fileType)
-			throws Exception {
-		
-		// builds the "insert" query
-		String query = "INSERT INTO " + Database.getTableName(fileType);
-		
-		/*
-		 * As said before, there is a distinction if a FileType is a 
-		 * CONFIGURATION or not.
-		 */
-		if (fileType == FileType.CONFIGURATION) {
-			// we get the clicked EC
-			ArrayList<Model> clickedEC = getClickedModels(FileType.EC);
-			if (clickedEC.size() == 0)
-				return;		// no selected EC, so we return
-			query = query + " VALUES(null, " + clickedEC.get(0).getId() + ",'"
-					+ name + "',0)";
-		} // The following branches are added for testing purposes
-		else if (fileType == FileType.TEST) {
-			query = query + " VALUES(null, '" + name + "', '" + path + "',0)";
+
+	public Model insertIntoTable(final String name, final String path,
+			final FileType fileType) throws Exception {
+		return access.write(new DatabaseAccess.Task<Model>() {
+			@Override
+			public Model run(DatabaseAccess.Session session) throws SQLException {
+				// gets the "insert" query
+				PreparedStatement pst = session.statement(table(INSERT_MODEL, fileType));
+
+				/* 
+				 * As said before, there is a distinction if a FileType is a 
+				 * CONFIGURATION or not.
+				 */
+				if (fileType == FileType.CONFIGURATION) {
+					// we get the clicked EC
+					ArrayList<Model> clickedEC = getClickedModels(FileType.EC);
+					if (clickedEC.size() == 0)
+						return null;		// no selected EC, so we return
+					pst.setInt(1, clickedEC.get(0).getId());
+					pst.setString(2, name);
+				} // The following branches are added for testing purposes
+				else if (fileType == FileType.TEST) {
+					pst.setString(1, name);
+					pst.setString(2, path);
+				}
+				else 
+					return null;
+
+				/* 
+				 *  Finally, execute the update query
+				 */
+				pst.executeUpdate();
+
+				// reads back the row just inserted, with its id
+				ResultContainer rw = new ResultContainer(session.statement(
+						table(SELECT_INSERTED_MODEL, fileType)).executeQuery());
+				Model model = null;
+				if (rw.getRs().next())
+					model = readModel(rw.getRs(), fileType);
+				rw.close();
+				return model;
+			}
+		});
+	}
+
+	/**
+	 * Inserts the elements with names "names", located at the 
+	 * corresponding paths "paths", in a single transaction.
+	 * 
+	 * @param names
+	 * @param paths
+	 * @param fileType
+	 * @return the inserted models
+	 * @throws Exception
+	 */
+
+	public ArrayList<Model> insertIntoTable(final List<String> names,
+			final List<String> paths, final FileType fileType) throws Exception {
+		return access.write(new DatabaseAccess.Task<ArrayList<Model>>() {
+			@Override
+			public ArrayList<Model> run(DatabaseAccess.Session session)
+					throws SQLException {
+				ArrayList<Model> inserted = new ArrayList<Model>();
+				for (int i = 0; i < names.size(); i++) {
+					Model model = insert(names.get(i), paths.get(i), fileType);
+					if (model != null)
+						inserted.add(model);
+				}
+				return inserted;
+			}
+		});
+	}
+
+	/**
+	 * Calls insertIntoTable() from a task of the writer.
+	 */
+
+	private Model insert(String name, String path, FileType fileType)
+			throws SQLException {
+		try {
+			return insertIntoTable(name, path, fileType);
+		} catch (SQLException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SQLException(e);
 		}
-		else 
-			return;
-		
-		/*
-		 *  Finally, execute the update query
-		 */
-		this.executeUpdate(query);
 	}
 
-	
+
 	/**
 	 * Perform a "delete" query in order to remove the element 
 	 * named "name" from the table of the corresponding "fileType".
@@ -164,78 +406,101 @@ public class Database {
      * @param fileType
 	 * @throws Exception
 	 */
-	
-	public boolean removeFromTable(String name, FileType fileType)
+
+	public boolean removeFromTable(final String name, final FileType fileType)
 			throws Exception {
-		/*
-		 * Test if a model with name "name" exists or not
-		 */
-		
-		ResultContainer rw = this.executeQuery("SELECT ID FROM " 
-    			+ Database.getTableName(fileType)
-    			+ " WHERE NAME = '" + name + "'");
-    
-		ResultSet rs = rw.getRs();
-		Integer id = null;
-	    while (rs.next()) 
-	    	id = rs.getInt("ID");
-	    
-	    rw.close();
-		
-	    /*
-	     * If id is still null, model does not exist
-	     */
-	    
-	    if (id == null)
-	    	return false;
-	    
-	    //Creation of the string of the query.
-	    
-		String q = "DELETE FROM " + Database.getTableName(fileType)
-				+ " WHERE NAME = '" + name + "'";
-		
-		/* 
-		 * When a configuration model is removed,
-		 * delete all the numeric values associated
-		 * to it
-		 */
-		
-		this.executeUpdate("DELETE FROM CONFIGURATION_VALUES_TABLE"
-				+ " WHERE CONFIGURATION_ID = '" + id + "'");
-
-		this.executeUpdate(q);
-		return true;
-	}
-
-	/**
-	 * Performs the SQLite query indicated by the string named "query"
-	 * using the prepared statement.
-	 * 
-	 * @param query
-	 * @return ResultSet
-	 * @throws SQLException
-	 */
-	
-	private ResultContainer executeQuery(String query) throws SQLException {
-		connectionValidator();
-		PreparedStatement pst = this.connection.prepareStatement(query);
-		ResultSet rs = pst.executeQuery();
-		return new ResultContainer(pst, rs);
+		return access.write(new DatabaseAccess.Task<Boolean>() {
+			@Override
+			public Boolean run(DatabaseAccess.Session session) throws SQLException {
+				/* 
+				 * Test if a model with name "name" exists or not
+				 */
+
+				PreparedStatement pst = session.statement(table(SELECT_MODEL_ID, fileType));
+				pst.setString(1, name);
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
+
+				ResultSet rs = rw.getRs();
+				Integer id = null;
+			    while (rs.next()) 
+			    	id = rs.getInt("ID");
+
+			    rw.close();
+
+			    /* 
+			     * If id is still null, model does not exist
+			     */
+
+			    if (id == null)
+			    	return false;
+
+				/* 
+				 * When a configuration model is removed,
+				 * delete all the numeric values associated
+				 * to it
+				 */
+
+				pst = session.statement(DELETE_CONFIGURATION_VALUES);
+				pst.setInt(1, id);
+				pst.executeUpdate();
+
+				if (fileType == FileType.CONFIGURATION) {
+					pst = session.statement(DELETE_CONSTRAINTS);
+					pst.setInt(1, id);
+					pst.executeUpdate();
+				}
+
+				// the metrics of a removed EC are removed too
+				if (fileType == FileType.EC) {
+					pst = session.statement(DELETE_METRICS);
+					pst.setInt(1, id);
+					pst.executeUpdate();
+				}
+
+				pst = session.statement(table(DELETE_MODEL, fileType));
+				pst.setString(1, name);
+				pst.executeUpdate();
+				return true;
+			}
+		});
 	}
-	
+
 	/**
-	 * Performs the SQLite "update" related to the string named
-	 * "query" using the prepared statement.
+	 * Removes the elements named "names" in a single transaction.
 	 * 
-	 * @param query
-	 * @throws SQLException
+	 * @param names
+	 * @param fileType
+	 * @return the names of the elements that have been removed
+	 * @throws Exception
 	 */
 
-	private void executeUpdate(String query) throws SQLException {
-		connectionValidator();
-		PreparedStatement pst = this.connection.prepareStatement(query);
-		pst.executeUpdate();
-		pst.close();
+	public ArrayList<String> removeFromTable(final List<String> names,
+			final FileType fileType) throws Exception {
+		return access.write(new DatabaseAccess.Task<ArrayList<String>>() {
+			@Override
+			public ArrayList<String> run(DatabaseAccess.Session session)
+					throws SQLException {
+				ArrayList<String> removed = new ArrayList<String>();
+				for (String name : names)
+					if (remove(name, fileType))
+						removed.add(name);
+				return removed;
+			}
+		});
+	}
+
+	/**
+	 * Calls removeFromTable() from a task of the writer.
+	 */
+
+	private boolean remove(String name, FileType fileType) throws SQLException {
+		try {
+			return removeFromTable(name, fileType);
+		} catch (SQLException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SQLException(e);
+		}
 	}
 
 	/**
@@ -247,7 +512,7 @@ public class Database {
 	 * @return String
 	 * @throws Exception
 	 */
-	
+
 	public static String getTableName(FileType fileType) {
 		switch (fileType) {
 			case EC:
@@ -262,7 +527,20 @@ public class Database {
 				return "";
 		}
 	}
-	
+
+	/**
+	 * Returns the statement "sql" of the catalogue on the table of the
+	 * FileType "fileType".
+	 * 
+	 * @param sql
+	 * @param fileType
+	 * @return String
+	 */
+
+	private static String table(String sql, FileType fileType) {
+		return String.format(sql, getTableName(fileType));
+	}
+
 	/**
 	 * Performs an update query in order to Set the value of the 
 	 * database field "CHECKED" to "clicked". The table is 
@@ -273,24 +551,31 @@ public class Database {
 	 * @param fileType
 	 * @throws Exception
 	 */
-	
-	public void updateClicked(String selectedName, int clicked,
-			FileType fileType) throws Exception {
-		String whereClause = "";
-		// "*" (asterisk) character is used for indicates all the
-		// elements in a table.
-		if (!selectedName.equals("*"))
-			whereClause = " WHERE NAME = '" + selectedName + "'";
-		
-		// Builds the string
-		String q = "UPDATE " + getTableName(fileType) + " SET CHECKED = "
-				+ clicked + whereClause;
-		
-		// Executes the query
-		this.executeUpdate(q);
-	}
-
-	
+
+	public void updateClicked(final String selectedName, final int clicked,
+			final FileType fileType) throws Exception {
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement pst;
+				// "*" (asterisk) character is used for indicates all the
+				// elements in a table.
+				if (selectedName.equals("*"))
+					pst = session.statement(table(UPDATE_ALL_CLICKED, fileType));
+				else {
+					pst = session.statement(table(UPDATE_CLICKED, fileType));
+					pst.setString(2, selectedName);
+				}
+				pst.setInt(1, clicked);
+
+				// Executes the query
+				pst.executeUpdate();
+				return null;
+			}
+		});
+	}
+
+
 	/**
 	 * Retrieves the models contained in the database in the table
 	 * indicated by "fileType" if the database field "CHECKED"
@@ -300,45 +585,31 @@ public class Database {
 	 * @return ArrayList<Model>
 	 * @throws Exception
 	 */
-	
-	public ArrayList<Model> getClickedModels(FileType fileType)
+
+	public ArrayList<Model> getClickedModels(final FileType fileType)
 			throws SQLException {
-		ArrayList<Model> data = new ArrayList<Model>();
-
-		// Builds a "select" query
-		String query = "SELECT * FROM " + Database.getTableName(fileType)
-				+ " WHERE CHECKED = 1 ";
-		ResultContainer rw = this.executeQuery(query);
-
-		ResultSet rs = rw.getRs();
-		
-		while (rs.next()) {
-			
-			/*
-			 *  Get attribute values from DB
-			 */
-			
-			Integer id = rs.getInt("ID");
-			String name = rs.getString("NAME");
-			String path = "";
-			if (fileType != FileType.CONFIGURATION)
-				path = rs.getString("PATH");
-			
-			/*
-			 *  Create a Model "model" to add to the ArrayList<Model>
-			 *  named "data". This ArrayList<Model> will be returned.
-			 */
-			
-			Model model = new Model(id, name, path, true, fileType);
-			data.add(model);
-		}
+		return access.read(new DatabaseAccess.Task<ArrayList<Model>>() {
+			@Override
+			public ArrayList<Model> run(DatabaseAccess.Session session)
+					throws SQLException {
+				ArrayList<Model> data = new ArrayList<Model>();
+
+				ResultContainer rw = new ResultContainer(session.statement(
+						table(SELECT_CLICKED_MODELS, fileType)).executeQuery());
 
-		rw.close();
-		
-		return data;
+				ResultSet rs = rw.getRs();
+
+				while (rs.next()) 
+					data.add(readModel(rs, fileType));
+
+				rw.close();
+
+				return data;
+			}
+		});
 	}
 
-	
+
 	/**
 	 * Get all the numeric values that have belong to a configuration
 	 * with id "configuration_id". For each extracted value the method
@@ -352,85 +623,560 @@ public class Database {
 	 * @return ArrayList<NumericElement>
 	 * @throws Exception
 	 */
-	
+
 	public ArrayList<NumericElement> retrieveConfigurationValues(
-			String configurationId) throws SQLException {
-		ArrayList<NumericElement> val = new ArrayList<NumericElement>();
-
-		/*
-		 *  Builds the query to select the values from the
-		 *  "CONFIGURATION_VALUES_TABLE" table.
-		 */
-		String q = "SELECT * FROM CONFIGURATION_VALUES_TABLE WHERE CONFIGURATION_ID = "
-				+ configurationId;
-		ResultContainer rw = this.executeQuery(q);
-
-		ResultSet rs = rw.getRs();
-		
-		while (rs.next()) {
-			// Get attribute values from DB
-			String name = rs.getString("NAME");
-			Float start = rs.getFloat("START");
-			Float step = rs.getFloat("STEP");
-			Float end = rs.getFloat("END");
-
-			/*
-			 * Takes a decision on what kind of element has been
-			 * retrieved and instance it.
-			 */
-			NumericElement el;
-			if (step <= 0)
-				el = new Param(name, start);
-			else
-				el = new Variable(name, start, end, step);
-
-			val.add(el);
-		}
+			final String configurationId) throws SQLException {
+		return access.read(new DatabaseAccess.Task<ArrayList<NumericElement>>() {
+			@Override
+			public ArrayList<NumericElement> run(DatabaseAccess.Session session)
+					throws SQLException {
+				ArrayList<NumericElement> val = new ArrayList<NumericElement>();
+
+				/* 
+				 *  Selects the values from the "CONFIGURATION_VALUES_TABLE" 
+				 *  table.
+				 */
+				PreparedStatement pst = session.statement(SELECT_CONFIGURATION_VALUES);
+				pst.setInt(1, Integer.parseInt(configurationId.trim()));
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
+
+				ResultSet rs = rw.getRs();
 
-		rw.close();
-		return val;
+				while (rs.next()) {
+					// Get attribute values from DB
+					String name = rs.getString("NAME");
+					Float start = rs.getFloat("START");
+					Float step = rs.getFloat("STEP");
+					Float end = rs.getFloat("END");
+
+					/* 
+					 * Takes a decision on what kind of element has been
+					 * retrieved and instance it.
+					 */
+					NumericElement el;
+					if (step <= 0)
+						el = new Param(name, start);
+					else 
+						el = new Variable(name, start, end, step);
+
+					val.add(el);
+				}
+
+				rw.close();
+				return val;
+			}
+		});
 	}
-	
+
 	/**
 	 * Executes an "insert" query to store the numeric values related 
 	 * to a configuration with id "id". The numeric values are contained
-	 * in the ArrayList<NumericElement>.
+	 * in the ArrayList<NumericElement>. The old values are replaced in
+	 * a single transaction.
 	 * 
 	 * @param id
 	 * @param value
 	 * @throws Exception
 	 */
-	
+
 	public void insertConfigurationValues(String id,
-			ArrayList<NumericElement> value) throws Exception {
-		this.executeUpdate("DELETE FROM CONFIGURATION_VALUES_TABLE"
-				+ " WHERE CONFIGURATION_ID = " + id);
+			final ArrayList<NumericElement> value) throws Exception {
+		final int configurationId = Integer.parseInt(id.trim());
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement delete = session.statement(DELETE_CONFIGURATION_VALUES);
+				delete.setInt(1, configurationId);
+				delete.executeUpdate();
 
-		for (NumericElement el : value) {
-			String[] parts = el.toString().split(" ");
+				PreparedStatement insert = session.statement(INSERT_CONFIGURATION_VALUE);
+				for (NumericElement el : value) {
+					String[] parts = el.toString().split(" ");
 
-			if (parts.length == 2)
-				parts = new String[] { parts[0], parts[1], "0", "0" };
+					if (parts.length == 2)
+						parts = new String[] { parts[0], parts[1], "0", "0" };
 
-			this.executeUpdate("INSERT INTO CONFIGURATION_VALUES_TABLE"
-					+ " VALUES(null, " + id + ",'" + parts[0] + "'," + parts[1]
-					+ "," + parts[3] + "," + parts[2] + ")");
-		}
+					insert.setInt(1, configurationId);
+					insert.setString(2, parts[0]);
+					insert.setDouble(3, Double.parseDouble(parts[1]));
+					insert.setDouble(4, Double.parseDouble(parts[3]));
+					insert.setDouble(5, Double.parseDouble(parts[2]));
+					insert.addBatch();
+				}
+				insert.executeBatch();
+				return null;
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the id of the sweep with plan "plan", creating it if 
+	 * needed. A sweep that was already finished, or whose number of
+	 * runs differs from "runCount", is restarted: its completed runs
+	 * are forgotten.
+	 * 
+	 * @param plan
+	 * @param runCount
+	 * @return int
+	 * @throws SQLException
+	 */
+
+	public int retrieveSweep(final SweepPlan plan, final long runCount)
+			throws SQLException {
+		return access.write(new DatabaseAccess.Task<Integer>() {
+			@Override
+			public Integer run(DatabaseAccess.Session session) throws SQLException {
+				int id = -1;
+				boolean restart = false;
+
+				PreparedStatement pst = session.statement(SELECT_SWEEP);
+				pst.setInt(1, plan.getEcId());
+				pst.setInt(2, plan.getConfigurationId());
+				pst.setString(3, plan.getTrainIds());
+				pst.setString(4, plan.getTestIds());
+				pst.setString(5, plan.getGrid());
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
+				ResultSet rs = rw.getRs();
+				if (rs.next()) {
+					id = rs.getInt("ID");
+					restart = rs.getInt("FINISHED") == 1 || rs.getLong("RUNS") != runCount;
+				}
+				rw.close();
+
+				if (id < 0) {
+					pst = session.statement(INSERT_SWEEP);
+					pst.setInt(1, plan.getEcId());
+					pst.setInt(2, plan.getConfigurationId());
+					pst.setString(3, plan.getTrainIds());
+					pst.setString(4, plan.getTestIds());
+					pst.setString(5, plan.getGrid());
+					pst.setLong(6, runCount);
+					pst.executeUpdate();
+
+					rw = new ResultContainer(session.statement(SELECT_LAST_ID).executeQuery());
+					rw.getRs().next();
+					id = rw.getRs().getInt("ID");
+					rw.close();
+				} else if (restart) {
+					pst = session.statement(DELETE_COMPLETED_RUNS);
+					pst.setInt(1, id);
+					pst.executeUpdate();
+					pst = session.statement(UPDATE_SWEEP_RESTARTED);
+					pst.setLong(1, runCount);
+					pst.setInt(2, id);
+					pst.executeUpdate();
+				}
+
+				return id;
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the indexes of the runs completed by the sweep with
+	 * id "sweepId".
+	 * 
+	 * @param sweepId
+	 * @return BitSet
+	 * @throws SQLException
+	 */
+
+	public BitSet retrieveCompletedRuns(final int sweepId) throws SQLException {
+		return access.read(new DatabaseAccess.Task<BitSet>() {
+			@Override
+			public BitSet run(DatabaseAccess.Session session) throws SQLException {
+				BitSet completed = new BitSet();
+				PreparedStatement pst = session.statement(SELECT_COMPLETED_RUNS);
+				pst.setInt(1, sweepId);
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
+				ResultSet rs = rw.getRs();
+				while (rs.next()) 
+					completed.set((int) rs.getLong("RUN_INDEX"));
+				rw.close();
+				return completed;
+			}
+		});
+	}
+
+	/**
+	 * Records the first "count" runs of "runIndexes", completed with
+	 * the corresponding "statuses", as completed by the sweep with id 
+	 * "sweepId". All the runs are inserted in a single transaction.
+	 * 
+	 * @param sweepId
+	 * @param runIndexes
+	 * @param statuses
+	 * @param count
+	 * @throws SQLException
+	 */
+
+	public void insertCompletedRuns(final int sweepId, final long[] runIndexes,
+			final RunStatus[] statuses, final int count) throws SQLException {
+		if (count == 0)
+			return;
+
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement pst = session.statement(INSERT_COMPLETED_RUN);
+				for (int i = 0; i < count; i++) {
+					pst.setInt(1, sweepId);
+					pst.setLong(2, runIndexes[i]);
+					pst.setString(3, statuses[i].name());
+					pst.addBatch();
+				}
+				pst.executeBatch();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Marks the sweep with id "sweepId" as finished, so that the
+	 * next sweep with the same plan starts from scratch.
+	 * 
+	 * @param sweepId
+	 * @throws SQLException
+	 */
+
+	public void updateSweepFinished(final int sweepId) throws SQLException {
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement pst = session.statement(UPDATE_SWEEP_FINISHED);
+				pst.setInt(1, sweepId);
+				pst.executeUpdate();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the constraints and the conditions of the configuration
+	 * with id "configurationId", in the order they were declared.
+	 * 
+	 * @param configurationId
+	 * @return ParameterConstraints
+	 * @throws SQLException
+	 */
+
+	public ParameterConstraints retrieveConstraints(final int configurationId)
+			throws SQLException {
+		return access.read(new DatabaseAccess.Task<ParameterConstraints>() {
+			@Override
+			public ParameterConstraints run(DatabaseAccess.Session session)
+					throws SQLException {
+				ParameterConstraints constraints = new ParameterConstraints();
+				PreparedStatement pst = session.statement(SELECT_CONSTRAINTS);
+				pst.setInt(1, configurationId);
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
+				ResultSet rs = rw.getRs();
+				while (rs.next()) {
+					String target = rs.getString("TARGET");
+					if (target.isEmpty())
+						constraints.addConstraint(rs.getString("EXPRESSION"));
+					else 
+						constraints.addCondition(target, rs.getString("EXPRESSION"));
+				}
+				rw.close();
+				return constraints;
+			}
+		});
+	}
+
+	/**
+	 * Replaces the constraints and the conditions of the configuration
+	 * with id "configurationId" with "constraints", in one transaction.
+	 * 
+	 * @param configurationId
+	 * @param constraints
+	 * @throws SQLException
+	 */
+
+	public void insertConstraints(final int configurationId,
+			final ParameterConstraints constraints) throws SQLException {
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement pst = session.statement(DELETE_CONSTRAINTS);
+				pst.setInt(1, configurationId);
+				pst.executeUpdate();
+
+				pst = session.statement(INSERT_CONSTRAINT);
+				int position = 0;
+				for (String constraint : constraints.getConstraints()) {
+					pst.setInt(1, configurationId);
+					pst.setInt(2, position++);
+					pst.setString(3, "");
+					pst.setString(4, constraint);
+					pst.addBatch();
+				}
+				for (Map.Entry<String, String> condition 
+						: constraints.getConditions().entrySet()) {
+					pst.setInt(1, configurationId);
+					pst.setInt(2, position++);
+					pst.setString(3, condition.getKey());
+					pst.setString(4, condition.getValue());
+					pst.addBatch();
+				}
+				pst.executeBatch();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the cached execution with key "key".
+	 * 
+	 * @param key
+	 * @return null if the execution is not cached
+	 * @throws SQLException
+	 */
+
+	public ResultCache.Entry retrieveCachedResult(final ResultCache.Key key)
+			throws SQLException {
+		return access.read(new DatabaseAccess.Task<ResultCache.Entry>() {
+			@Override
+			public ResultCache.Entry run(DatabaseAccess.Session session)
+					throws SQLException {
+				PreparedStatement pst = session.statement(SELECT_CACHED_RESULT);
+				pst.setString(1, key.getEcHash());
+				pst.setString(2, key.getParameters());
+				pst.setString(3, key.getTrainHash());
+				pst.setString(4, key.getTestHash());
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
+				ResultSet rs = rw.getRs();
+				ResultCache.Entry entry = null;
+				if (rs.next()) {
+					ArrayList<String> answers = new ArrayList<String>();
+					if (rs.getInt("LINES") > 0)
+						answers.addAll(Arrays.asList(rs.getString("ANSWERS").split("\n", -1)));
+					entry = new ResultCache.Entry(key, answers, rs.getLong("WALL_TIME"), 
+							rs.getLong("PEAK_RSS"));
+				}
+				rw.close();
+				return entry;
+			}
+		});
+	}
+
+	/**
+	 * Stores the executions "entries" in the result cache, replacing
+	 * the ones with the same key, in a single transaction. The caller
+	 * does not wait for the transaction to be committed.
+	 * 
+	 * @param entries
+	 * @return the future completed by the commit
+	 * @throws SQLException if the database cannot be opened
+	 */
+
+	public Future<Void> insertCachedResults(final List<ResultCache.Entry> entries)
+			throws SQLException {
+		if (entries.isEmpty())
+			return CompletableFuture.completedFuture(null);
+
+		return access.enqueue(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement pst = session.statement(INSERT_CACHED_RESULT);
+				for (ResultCache.Entry entry : entries) {
+					pst.setString(1, entry.getKey().getEcHash());
+					pst.setString(2, entry.getKey().getParameters());
+					pst.setString(3, entry.getKey().getTrainHash());
+					pst.setString(4, entry.getKey().getTestHash());
+					pst.setInt(5, entry.getAnswers().size());
+					pst.setString(6, String.join("\n", entry.getAnswers()));
+					pst.setLong(7, entry.getWallTimeMillis());
+					pst.setLong(8, entry.getPeakRssKb());
+					pst.addBatch();
+				}
+				pst.executeBatch();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Removes all the executions stored in the result cache.
+	 * 
+	 * @throws SQLException
+	 */
+
+	public void clearCachedResults() throws SQLException {
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				session.statement(DELETE_CACHED_RESULTS).executeUpdate();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * @param path the absolute path of a file
+	 * @return the last fingerprint computed for the file located at
+	 * "path", or null if it has never been hashed
+	 * @throws SQLException
+	 */
+
+	public Fingerprinter.Stamp retrieveFingerprint(final String path)
+			throws SQLException {
+		return access.read(new DatabaseAccess.Task<Fingerprinter.Stamp>() {
+			@Override
+			public Fingerprinter.Stamp run(DatabaseAccess.Session session)
+					throws SQLException {
+				PreparedStatement pst = session.statement(SELECT_FINGERPRINT);
+				pst.setString(1, path);
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
+				ResultSet rs = rw.getRs();
+				Fingerprinter.Stamp stamp = null;
+				if (rs.next())
+					stamp = new Fingerprinter.Stamp(rs.getLong("SIZE"), 
+							rs.getLong("MODIFIED"), rs.getString("HASH"));
+				rw.close();
+				return stamp;
+			}
+		});
 	}
-	
-	
+
 	/**
-	 * Close the connection to the SQLite database.
+	 * Stores the fingerprint "stamp" of the file located at "path",
+	 * replacing the previous one. The caller does not wait for the
+	 * transaction to be committed.
+	 * 
+	 * @param path the absolute path of a file
+	 * @param stamp
+	 * @return the future completed by the commit
+	 * @throws SQLException if the database cannot be opened
+	 */
+
+	public Future<Void> insertFingerprint(final String path,
+			final Fingerprinter.Stamp stamp) throws SQLException {
+		return access.enqueue(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement pst = session.statement(INSERT_FINGERPRINT);
+				pst.setString(1, path);
+				pst.setLong(2, stamp.getSize());
+				pst.setLong(3, stamp.getModified());
+				pst.setString(4, stamp.getHash());
+				pst.executeUpdate();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the metrics of the EC with id "ecId", in the order
+	 * they were inserted.
+	 * 
+	 * @param ecId
+	 * @return ArrayList<Metric>
+	 * @throws SQLException
+	 */
+
+	public ArrayList<Metric> retrieveMetrics(final int ecId) throws SQLException {
+		return access.read(new DatabaseAccess.Task<ArrayList<Metric>>() {
+			@Override
+			public ArrayList<Metric> run(DatabaseAccess.Session session)
+					throws SQLException {
+				ArrayList<Metric> metrics = new ArrayList<Metric>();
+				PreparedStatement pst = session.statement(SELECT_METRICS);
+				pst.setInt(1, ecId);
+				ResultContainer rw = new ResultContainer(pst.executeQuery());
+				ResultSet rs = rw.getRs();
+				while (rs.next()) 
+					metrics.add(new Metric(rs.getString("NAME"), 
+							MetricKind.valueOf(rs.getString("KIND")),
+							rs.getString("PATTERN")));
+				rw.close();
+				return metrics;
+			}
+		});
+	}
+
+	/**
+	 * Stores "metric" among the metrics of the EC with id "ecId",
+	 * replacing the metric with the same name, if any.
+	 * 
+	 * @param ecId
+	 * @param metric
+	 * @throws SQLException
+	 */
+
+	public void insertMetric(final int ecId, final Metric metric)
+			throws SQLException {
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement pst = session.statement(INSERT_METRIC);
+				pst.setInt(1, ecId);
+				pst.setString(2, metric.getName());
+				pst.setString(3, metric.getKind().name());
+				pst.setString(4, metric.getPattern());
+				pst.executeUpdate();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Removes the metric named "name" of the EC with id "ecId".
+	 * 
+	 * @param ecId
+	 * @param name
+	 * @return false if the metric does not exist
+	 * @throws SQLException
+	 */
+
+	public boolean removeMetric(final int ecId, final String name)
+			throws SQLException {
+		return access.write(new DatabaseAccess.Task<Boolean>() {
+			@Override
+			public Boolean run(DatabaseAccess.Session session) throws SQLException {
+				PreparedStatement pst = session.statement(DELETE_METRIC);
+				pst.setInt(1, ecId);
+				pst.setString(2, name);
+				return pst.executeUpdate() > 0;
+			}
+		});
+	}
+
+	/**
+	 * Close the connections to the SQLite database, after the
+	 * pending writes have been committed.
 	 * 
 	 * @throws SQLException
 	 */
 	public void closeConnection() throws SQLException {
-		this.connection.abort(Executors.newSingleThreadExecutor());
-		this.connection.close();
+		this.access.close();
+	}
+
+	/**
+	 * Waits until the writes queued so far (e.g. by insertFingerprint())
+	 * have been committed.
+	 * 
+	 * @throws SQLException
+	 */
+
+	public void awaitWrites() throws SQLException {
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) {
+				return null;
+			}
+		});
 	}
-	
+
+	/**
+	 * Restores the connections to the SQLite database if they
+	 * have been closed.
+	 * 
+	 * @throws SQLException
+	 */
+
 	public void connectionValidator() throws SQLException {
-		if(!this.connection.isValid(1000))
-			this.connection = DriverManager.getConnection(path);	
+		this.access.open();
 	}
 }
@@ -0,0 +1,541 @@
+/*
+ * Author: Dario Capozzi, Alessandro Mantovani, Roberto Ronco, Giulio Tavella
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class DatabaseAccess shares a SQLite database among the threads
+ * of the application (the graphic interface, the RunManager and the
+ * workers of a sweep) without making them wait for each other.
+ * 
+ * The database is switched to WAL mode, so readers and the writer do
+ * not exclude each other:
+ * - reads are served by a small pool of read only connections, each
+ *   one borrowed by a single thread at a time;
+ * - writes are queued to a single writer thread, which runs all the
+ *   queued writes in one transaction, each one inside a savepoint:
+ *   a failing write is rolled back without affecting the others of
+ *   its group. The thread that queued a write with write() waits until
+ *   the group is committed; a write queued with enqueue() does not 
+ *   wait, and its outcome is reported by the returned Future.
+ * Each connection keeps its own cache of prepared statements (see 
+ * Session).
+ * 
+ * A read or a write issued while running a task uses the session of 
+ * that task, so a write can read its own changes, and tasks can be 
+ * nested without borrowing another connection.
+ * Note that "path" must locate a database file: the connections to
+ * an in-memory database would not share it.
+ */
+
+public class DatabaseAccess {
+	public static final int READERS = 4;
+	public static final int MAX_GROUP = 512;
+	public static final int BUSY_TIMEOUT = 10000;
+	
+	private String path;
+	private volatile boolean closed;
+	private ArrayBlockingQueue<Session> readers;
+	private LinkedBlockingQueue<Write<?>> writes;
+	private Session writer;
+	private Thread writerThread;
+	private ThreadLocal<Session> current;
+	
+	public DatabaseAccess(String path) throws SQLException {
+		this.path = path;
+		this.current = new ThreadLocal<Session>();
+		this.closed = true;
+		open();
+	}
+	
+	/**
+	 * Opens the write connection, switching the database to WAL mode,
+	 * the read connections and starts the writer thread.
+	 * 
+	 * @throws SQLException
+	 */
+	
+	public synchronized void open() throws SQLException {
+		if (!closed)
+			return;
+		
+		writer = openSession(false);
+		readers = new ArrayBlockingQueue<Session>(READERS);
+		try {
+			for (int i = 0; i < READERS; i++)
+				readers.add(openSession(true));
+		} catch (SQLException e) {
+			for (Session session : readers)
+				session.close();
+			writer.close();
+			throw e;
+		}
+		
+		writes = new LinkedBlockingQueue<Write<?>>();
+		writerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		}, "database-writer");
+		writerThread.setDaemon(true);
+		closed = false;
+		writerThread.start();
+	}
+	
+	public boolean isClosed() {
+		return closed;
+	}
+	
+	/**
+	 * Runs the read "task" on a read connection, waiting for one only
+	 * when all of them are in use.
+	 * 
+	 * @param task
+	 * @return the result of "task"
+	 * @throws SQLException
+	 */
+	
+	public <T> T read(Task<T> task) throws SQLException {
+		Session session = current.get();
+		if (session != null)
+			return task.run(session);
+		
+		ArrayBlockingQueue<Session> pool = null;
+		while (session == null) {
+			synchronized (this) {
+				if (closed)
+					open();
+				pool = readers;
+			}
+			try {
+				// the pool is replaced when the access is closed meanwhile
+				session = pool.poll(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a connection", e);
+			}
+		}
+		
+		try {
+			if (session.isClosed())
+				session = openSession(true);
+			current.set(session);
+			return task.run(session);
+		} finally {
+			current.remove();
+			release(pool, session);
+		}
+	}
+	
+	/**
+	 * Gives back "session" to the pool it was taken from, or closes
+	 * it if the access has been closed in the meantime.
+	 * 
+	 * @param pool
+	 * @param session
+	 */
+	
+	private synchronized void release(ArrayBlockingQueue<Session> pool, 
+			Session session) {
+		if (closed || pool != readers)
+			session.close();
+		else
+			pool.add(session);
+	}
+	
+	/**
+	 * Queues the write "task" to the writer thread and waits until 
+	 * the transaction including it is committed. The task is run 
+	 * directly when it is issued by another task of the writer.
+	 * 
+	 * @param task
+	 * @return the result of "task"
+	 * @throws SQLException if the task or the commit fails
+	 */
+	
+	public <T> T write(Task<T> task) throws SQLException {
+		if (Thread.currentThread() == writerThread)
+			return task.run(writer);
+		
+		Write<T> write = new Write<T>(task);
+		synchronized (this) {
+			if (closed)
+				open();
+			writes.add(write);
+		}
+		return write.get();
+	}
+	
+	/**
+	 * Queues the write "task" to the writer thread without waiting for
+	 * it: the returned future completes when the transaction including
+	 * the task is committed, or fails with the SQLException of the task
+	 * or of the commit. The writes are committed in the order they are
+	 * queued. The task is run directly when it is issued by another 
+	 * task of the writer.
+	 * 
+	 * @param task
+	 * @return the future result of "task"
+	 * @throws SQLException if the access cannot be opened
+	 */
+	
+	public <T> Future<T> enqueue(Task<T> task) throws SQLException {
+		if (Thread.currentThread() == writerThread) {
+			CompletableFuture<T> future = new CompletableFuture<T>();
+			try {
+				future.complete(task.run(writer));
+			} catch (SQLException | RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+			return future;
+		}
+		
+		Write<T> write = new Write<T>(task);
+		synchronized (this) {
+			if (closed)
+				open();
+			writes.add(write);
+		}
+		return write.future;
+	}
+	
+	/**
+	 * Waits for the queued writes, stops the writer thread and closes
+	 * all the connections. The access is opened again by the next read
+	 * or write.
+	 */
+	
+	public synchronized void close() {
+		if (closed)
+			return;
+		closed = true;
+		
+		writes.add(new Write<Void>(null));
+		boolean interrupted = false;
+		while (writerThread.isAlive()) {
+			try {
+				writerThread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		
+		Session session;
+		while ((session = readers.poll()) != null)
+			session.close();
+	}
+	
+	/**
+	 * Body of the writer thread: takes the queued writes, up to 
+	 * MAX_GROUP at a time, and commits them together, until the
+	 * access is closed.
+	 */
+	
+	private void writeLoop() {
+		boolean stop = false;
+		while (!stop) {
+			ArrayList<Write<?>> group = new ArrayList<Write<?>>();
+			try {
+				group.add(writes.take());
+			} catch (InterruptedException e) {
+				continue;
+			}
+			writes.drainTo(group, MAX_GROUP - 1);
+			
+			ArrayList<Write<?>> tasks = new ArrayList<Write<?>>(group.size());
+			for (Write<?> write : group) {
+				if (write.task == null)
+					stop = true;
+				else
+					tasks.add(write);
+			}
+			commit(tasks);
+		}
+		writer.close();
+	}
+	
+	/**
+	 * Runs the writes "group" in a single transaction, each one in 
+	 * its own savepoint, and wakes up the threads waiting for them.
+	 * 
+	 * @param group
+	 */
+	
+	private void commit(ArrayList<Write<?>> group) {
+		if (group.isEmpty())
+			return;
+		
+		current.set(writer);
+		try {
+			if (writer.isClosed()) {
+				writer = openSession(false);
+				current.set(writer);
+			}
+			Connection connection = writer.connection;
+			connection.setAutoCommit(false);
+			try {
+				for (Write<?> write : group)
+					write.run(writer);
+				connection.commit();
+			} catch (SQLException e) {
+				try {
+					connection.rollback();
+				} catch (SQLException r) {
+					// the transaction is already closed
+				}
+				for (Write<?> write : group)
+					write.fail(e);
+			}
+			try {
+				connection.setAutoCommit(true);
+			} catch (SQLException e) {
+				// the connection is reopened by the next group
+				writer.close();
+			}
+		} catch (SQLException e) {
+			for (Write<?> write : group)
+				write.fail(e);
+		} finally {
+			current.remove();
+			for (Write<?> write : group)
+				write.done();
+		}
+	}
+	
+	/**
+	 * Opens a connection to the database. The write connection sets
+	 * the journal of the database to WAL.
+	 * 
+	 * @param readOnly
+	 * @return Session
+	 * @throws SQLException
+	 */
+	
+	private Session openSession(boolean readOnly) throws SQLException {
+		Connection connection = DriverManager.getConnection(path);
+		Statement st = connection.createStatement();
+		try {
+			st.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT);
+			if (readOnly)
+				st.execute("PRAGMA query_only = 1");
+			else {
+				st.execute("PRAGMA journal_mode = WAL");
+				st.execute("PRAGMA synchronous = NORMAL");
+			}
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		} finally {
+			st.close();
+		}
+		return new Session(connection);
+	}
+	
+	/**
+	 * A unit of work performed on a session of the database.
+	 */
+	
+	public interface Task<T> {
+		public T run(Session session) throws SQLException;
+	}
+	
+	/**
+	 * A connection to the database, used by a single thread at a time,
+	 * together with the statements of the catalogue of the Database 
+	 * that have been prepared on it.
+	 */
+	
+	public static class Session {
+		private Connection connection;
+		private HashMap<String, PreparedStatement> statements;
+		
+		public Session(Connection connection) {
+			this.connection = connection;
+			this.statements = new HashMap<String, PreparedStatement>();
+		}
+		
+		public Connection getConnection() {
+			return connection;
+		}
+		
+		/**
+		 * Returns the statement "sql" prepared on this connection,
+		 * preparing it the first time it is asked. The statement is
+		 * shared: its parameters must be bound before each execution
+		 * and it must not be closed.
+		 * 
+		 * @param sql
+		 * @return PreparedStatement
+		 * @throws SQLException
+		 */
+		
+		public PreparedStatement statement(String sql) throws SQLException {
+			PreparedStatement pst = statements.get(sql);
+			if (pst == null) {
+				pst = connection.prepareStatement(sql);
+				statements.put(sql, pst);
+			}
+			return pst;
+		}
+		
+		/**
+		 * Performs the query "query" with a statement that is not 
+		 * cached.
+		 * 
+		 * @param query
+		 * @return ResultContainer
+		 * @throws SQLException
+		 */
+		
+		public ResultContainer executeQuery(String query) throws SQLException {
+			PreparedStatement pst = connection.prepareStatement(query);
+			return new ResultContainer(pst, pst.executeQuery());
+		}
+		
+		/**
+		 * Performs the update "query" with a statement that is not 
+		 * cached.
+		 * 
+		 * @param query
+		 * @throws SQLException
+		 */
+		
+		public void executeUpdate(String query) throws SQLException {
+			PreparedStatement pst = connection.prepareStatement(query);
+			pst.executeUpdate();
+			pst.close();
+		}
+		
+		public boolean isClosed() throws SQLException {
+			return connection.isClosed();
+		}
+		
+		/**
+		 * Closes the statements and the connection.
+		 */
+		
+		public void close() {
+			for (PreparedStatement pst : statements.values()) {
+				try {
+					pst.close();
+				} catch (SQLException e) {
+					// the connection is already unusable
+				}
+			}
+			statements.clear();
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				// the connection is already closed
+			}
+		}
+	}
+	
+	/**
+	 * A write queued to the writer thread, with its outcome. A write
+	 * without a task asks the writer thread to stop.
+	 */
+	
+	private static class Write<T> {
+		private Task<T> task;
+		private T result;
+		private Exception error;
+		private CountDownLatch latch;
+		private CompletableFuture<T> future;
+		
+		public Write(Task<T> task) {
+			this.task = task;
+			this.latch = new CountDownLatch(1);
+			this.future = new CompletableFuture<T>();
+		}
+		
+		/**
+		 * Runs the task inside a savepoint, which is rolled back if
+		 * the task fails.
+		 * 
+		 * @param session
+		 * @throws SQLException if the savepoint cannot be handled
+		 */
+		
+		public void run(Session session) throws SQLException {
+			Savepoint savepoint = session.connection.setSavepoint();
+			try {
+				result = task.run(session);
+			} catch (SQLException | RuntimeException e) {
+				session.connection.rollback(savepoint);
+				error = e;
+			}
+			session.connection.releaseSavepoint(savepoint);
+		}
+		
+		public void fail(Exception e) {
+			if (error == null) {
+				error = e;
+				result = null;
+			}
+		}
+		
+		public void done() {
+			latch.countDown();
+			if (error != null)
+				future.completeExceptionally(error);
+			else
+				future.complete(result);
+		}
+		
+		/**
+		 * Waits until the write is committed or rolled back.
+		 * 
+		 * @return the result of the task
+		 * @throws SQLException if the task or the commit failed
+		 */
+		
+		public T get() throws SQLException {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					latch.await();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			
+			if (error instanceof SQLException)
+				throw (SQLException) error;
+			if (error instanceof RuntimeException)
+				throw (RuntimeException) error;
+			return result;
+		}
+	}
+}
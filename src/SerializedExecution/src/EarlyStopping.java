@@ -0,0 +1,243 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class EarlyStopping cancels a sweep as soon as one of its rules
+ * fires, instead of running every command line:
+ * - target: a run reached the score "target";
+ * - patience: the best score did not improve in the last "patience" 
+ *   runs;
+ * - time budget: the sweep has been running for "timeBudgetMillis".
+ * The score of each run is read by a MetricExtractor. Every rule is
+ * disabled until it is set.
+ * 
+ * The rules are applied to a sweep through watch(), which wraps the
+ * result listener of the Serializer. When a rule fires the Serializer
+ * stops dispatching (see Serializer.stopDispatching()): the queued 
+ * command lines are recorded as CANCELLED, the running ones complete
+ * and the results collected so far are kept.
+ */
+
+public class EarlyStopping {
+	
+	/*
+	 * Single daemon thread firing the time budgets of all the sweeps
+	 */
+	private static final ScheduledExecutorService clock = 
+			Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "sweep-clock");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+	
+	private MetricExtractor extractor;
+	private boolean maximize;
+	private double target;
+	private long patience;
+	private long timeBudgetMillis;
+	
+	public EarlyStopping(MetricExtractor extractor, boolean maximize) {
+		this.extractor = extractor;
+		this.maximize = maximize;
+		this.target = Double.NaN;
+		this.patience = 0;
+		this.timeBudgetMillis = 0;
+	}
+	
+	/**
+	 * Stops the sweep when a run scores "target" or better.
+	 * NaN disables the rule.
+	 * 
+	 * @param target
+	 */
+	
+	public void setTarget(double target) {
+		this.target = target;
+	}
+	
+	/**
+	 * Stops the sweep when the best score has not improved in the 
+	 * last "patience" runs. Zero disables the rule.
+	 * 
+	 * @param patience
+	 */
+	
+	public void setPatience(long patience) {
+		this.patience = Math.max(0, patience);
+	}
+	
+	/**
+	 * Stops the sweep after "timeBudgetMillis" milliseconds of
+	 * wall-clock time. Zero disables the rule.
+	 * 
+	 * @param timeBudgetMillis
+	 */
+	
+	public void setTimeBudget(long timeBudgetMillis) {
+		this.timeBudgetMillis = Math.max(0, timeBudgetMillis);
+	}
+	
+	/**
+	 * Applies the rules to the next run of "serializer": the returned
+	 * watch must be set as its result listener, and forwards every 
+	 * result to "listener". The time budget starts now.
+	 * 
+	 * @param serializer
+	 * @param listener
+	 * @return Watch
+	 */
+	
+	public Watch watch(Serializer serializer, ResultListener listener) {
+		return new Watch(serializer, listener);
+	}
+	
+	@Override
+	public String toString() {
+		return "EarlyStopping [extractor=" + extractor + ", maximize=" + maximize 
+				+ ", target=" + target + ", patience=" + patience 
+				+ ", timeBudgetMillis=" + timeBudgetMillis + "]";
+	}
+	
+	/**
+	 * The state of the rules during a sweep.
+	 */
+	
+	public class Watch implements ResultListener {
+		private Serializer serializer;
+		private ResultListener next;
+		private ScheduledFuture<?> deadline;
+		private long runs;
+		private long lastImprovement;
+		private double best;
+		private volatile String reason;
+		
+		private Watch(Serializer serializer, ResultListener next) {
+			this.serializer = serializer;
+			this.next = next;
+			this.runs = 0;
+			this.lastImprovement = 0;
+			this.best = Double.NaN;
+			this.reason = null;
+			
+			if (timeBudgetMillis > 0) {
+				deadline = clock.schedule(new Runnable() {
+					@Override
+					public void run() {
+						stop("time budget of " + timeBudgetMillis + " ms exhausted");
+					}
+				}, timeBudgetMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+		
+		/**
+		 * Forwards the result and then checks the target and the 
+		 * patience. Cancelled runs are not taken into account.
+		 */
+		
+		@Override
+		public void resultReady(RunResult result) throws IOException {
+			Double score = (result.getStatus() == RunStatus.CANCELLED) 
+					? null : extractor.extract(result);
+			if (next != null)
+				next.resultReady(result);
+			else
+				result.discard();
+			if (result.getStatus() == RunStatus.CANCELLED)
+				return;
+			
+			String fired = null;
+			synchronized (this) {
+				runs++;
+				if (score != null && !score.isNaN() && (Double.isNaN(best) 
+						|| (maximize ? score > best : score < best))) {
+					best = score;
+					lastImprovement = runs;
+				}
+				
+				if (!Double.isNaN(target) && !Double.isNaN(best)
+						&& (maximize ? best >= target : best <= target))
+					fired = "target " + target + " reached with score " + best;
+				else if (patience > 0 && runs - lastImprovement >= patience)
+					fired = "no improvement in the last " + patience + " runs";
+			}
+			if (fired != null)
+				stop(fired);
+		}
+		
+		/**
+		 * Stops the sweep, recording "why" if no rule fired before.
+		 * 
+		 * @param why
+		 */
+		
+		private void stop(String why) {
+			synchronized (this) {
+				if (reason != null)
+					return;
+				reason = why;
+			}
+			serializer.stopDispatching();
+		}
+		
+		/**
+		 * @return the rule that stopped the sweep, or null if the sweep
+		 * has not been stopped
+		 */
+		
+		public String getReason() {
+			return reason;
+		}
+		
+		public synchronized double getBestScore() {
+			return best;
+		}
+		
+		public synchronized long getRuns() {
+			return runs;
+		}
+		
+		/**
+		 * @return the lines describing why and when the sweep stopped
+		 */
+		
+		public synchronized ArrayList<String> summary() {
+			ArrayList<String> lines = new ArrayList<String>();
+			lines.add("Stopped: " + reason);
+			lines.add("Runs: " + runs);
+			lines.add("Best score: " + best);
+			return lines;
+		}
+		
+		/**
+		 * Disables the time budget. To be called when the sweep is over.
+		 */
+		
+		public void close() {
+			if (deadline != null)
+				deadline.cancel(false);
+		}
+	}
+}
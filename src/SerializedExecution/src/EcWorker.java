@@ -0,0 +1,96 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * EcWorker is the entry point of the long-lived JVMs started by
+ * WorkerPoolLauncher. It loads the EC jar (first argument) once and
+ * serves the execution requests read from the standard input.
+ * 
+ * Protocol (UTF-8, one request at a time):
+ * - request: the arguments of the execution separated by '\t', 
+ *   terminated by '\n'
+ * - answer: MARKER "OK <n> <exit status>" followed by the n answers 
+ *   printed by the EC, or MARKER "ERROR <message>" when the EC throws
+ *   an exception
+ * 
+ * The standard output of the worker is reserved to the protocol: what
+ * the EC prints outside an execution (static initializers, threads
+ * not created by the execution) goes to the standard error. A header
+ * without the marker means that the stream has been corrupted anyway.
+ * 
+ * The worker terminates when its standard input is closed.
+ */
+
+public class EcWorker {
+	public static final String MARKER = "#EcWorker# ";
+	public static final String OK = MARKER + "OK ";
+	public static final String ERROR = MARKER + "ERROR ";
+	public static final String SEPARATOR = "\t";
+
+	public static void main(String[] args) throws IOException {
+		/*
+		 * The protocol is written on the original standard output, 
+		 * while System.out (captured by the InProcessLauncher during an
+		 * execution) is sent to the standard error
+		 */
+		
+		BufferedWriter protocol = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8));
+		System.setOut(new PrintStream(
+				new FileOutputStream(FileDescriptor.err), true));
+		BufferedReader requests = new BufferedReader(
+				new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		
+		/*
+		 * A System.exit() of the EC that cannot be trapped only ends this
+		 * worker, which is then replaced by the WorkerPoolLauncher
+		 */
+		
+		InProcessLauncher launcher = new InProcessLauncher(args[0], false);
+		
+		String request;
+		while ((request = requests.readLine()) != null) {
+			String[] arguments = request.isEmpty() ? new String[0] 
+					: request.split(SEPARATOR, -1);
+			try {
+				CapturedOutput output = launcher.launch(arguments);
+				try {
+					protocol.write(OK + output.getLineCount() + " " 
+							+ output.getExitCode() + "\n");
+					output.writeTo(protocol);
+				} finally {
+					output.discard();
+				}
+			} catch (IOException e) {
+				String message = String.valueOf(e.getCause() != null 
+						? e.getCause() : e.getMessage());
+				protocol.write(ERROR + message.replace('\n', ' ') + "\n");
+			}
+			protocol.flush();
+		}
+		
+		launcher.close();
+	}
+}
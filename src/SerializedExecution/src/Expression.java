@@ -0,0 +1,292 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.List;
+
+/**
+ * The class Expression is an arithmetic and boolean expression over 
+ * the elements of a configuration, e.g. "min <= max && depth % 2 == 0".
+ * It supports numbers, names of elements, parentheses, the operators
+ * + - * / %, the comparisons < <= > >= == != and the boolean operators
+ * ! && ||, with the usual precedences. A boolean value is 1 (true) or
+ * 0 (false), and any value different from 0 is true.
+ * 
+ * The expression is parsed once, binding every name to the position of
+ * its element in a combination; numbers are rounded to float, like the
+ * values of the elements, so that "lr == 0.1" holds when lr is 0.1.
+ */
+
+public class Expression {
+	private String text;
+	private Node root;
+	
+	/**
+	 * @param text
+	 * @param names the names of the elements, in the order of their
+	 * values in a combination
+	 * @throws IllegalArgumentException if the expression is malformed
+	 * or refers to an unknown element
+	 */
+	
+	public Expression(String text, List<String> names) {
+		this.text = text;
+		Parser parser = new Parser(text, names);
+		this.root = parser.parseOr();
+		parser.skipSpaces();
+		if (parser.position < text.length())
+			throw parser.error("unexpected '" + text.charAt(parser.position) + "'");
+	}
+	
+	public double evaluate(float[] vector) {
+		return root.evaluate(vector);
+	}
+	
+	public boolean isSatisfied(float[] vector) {
+		return root.evaluate(vector) != 0;
+	}
+	
+	@Override
+	public String toString() {
+		return text;
+	}
+	
+	/**
+	 * A node of the syntax tree.
+	 */
+	
+	private interface Node {
+		public double evaluate(float[] vector);
+	}
+	
+	private static class Constant implements Node {
+		private double value;
+		
+		public Constant(double value) {
+			this.value = value;
+		}
+		
+		@Override
+		public double evaluate(float[] vector) {
+			return value;
+		}
+	}
+	
+	private static class Element implements Node {
+		private int index;
+		
+		public Element(int index) {
+			this.index = index;
+		}
+		
+		@Override
+		public double evaluate(float[] vector) {
+			return vector[index];
+		}
+	}
+	
+	private static class Unary implements Node {
+		private char operator;
+		private Node operand;
+		
+		public Unary(char operator, Node operand) {
+			this.operator = operator;
+			this.operand = operand;
+		}
+		
+		@Override
+		public double evaluate(float[] vector) {
+			double value = operand.evaluate(vector);
+			return (operator == '-') ? -value : (value == 0 ? 1 : 0);
+		}
+	}
+	
+	private static class Binary implements Node {
+		private String operator;
+		private Node left;
+		private Node right;
+		
+		public Binary(String operator, Node left, Node right) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+		
+		@Override
+		public double evaluate(float[] vector) {
+			double a = left.evaluate(vector);
+			
+			// the boolean operators do not evaluate the right operand if not needed
+			if (operator.equals("&&"))
+				return (a != 0 && right.evaluate(vector) != 0) ? 1 : 0;
+			if (operator.equals("||"))
+				return (a != 0 || right.evaluate(vector) != 0) ? 1 : 0;
+			
+			double b = right.evaluate(vector);
+			switch (operator) {
+			case "+": return a + b;
+			case "-": return a - b;
+			case "*": return a * b;
+			case "/": return a / b;
+			case "%": return a % b;
+			case "<": return (a < b) ? 1 : 0;
+			case "<=": return (a <= b) ? 1 : 0;
+			case ">": return (a > b) ? 1 : 0;
+			case ">=": return (a >= b) ? 1 : 0;
+			case "==": return (a == b) ? 1 : 0;
+			default: return (a != b) ? 1 : 0;
+			}
+		}
+	}
+	
+	/**
+	 * Recursive descent parser, one method for each level of precedence.
+	 */
+	
+	private static class Parser {
+		private String text;
+		private List<String> names;
+		private int position;
+		
+		public Parser(String text, List<String> names) {
+			this.text = text;
+			this.names = names;
+			this.position = 0;
+		}
+		
+		public Node parseOr() {
+			Node node = parseAnd();
+			while (accept("||"))
+				node = new Binary("||", node, parseAnd());
+			return node;
+		}
+		
+		private Node parseAnd() {
+			Node node = parseComparison();
+			while (accept("&&"))
+				node = new Binary("&&", node, parseComparison());
+			return node;
+		}
+		
+		private Node parseComparison() {
+			Node node = parseAdditive();
+			String[] operators = { "<=", ">=", "==", "!=", "<", ">" };
+			for (String operator : operators) {
+				if (accept(operator))
+					return new Binary(operator, node, parseAdditive());
+			}
+			return node;
+		}
+		
+		private Node parseAdditive() {
+			Node node = parseTerm();
+			while (true) {
+				if (accept("+"))
+					node = new Binary("+", node, parseTerm());
+				else if (accept("-"))
+					node = new Binary("-", node, parseTerm());
+				else
+					return node;
+			}
+		}
+		
+		private Node parseTerm() {
+			Node node = parseUnary();
+			while (true) {
+				if (accept("*"))
+					node = new Binary("*", node, parseUnary());
+				else if (accept("/"))
+					node = new Binary("/", node, parseUnary());
+				else if (accept("%"))
+					node = new Binary("%", node, parseUnary());
+				else
+					return node;
+			}
+		}
+		
+		private Node parseUnary() {
+			if (accept("-"))
+				return new Unary('-', parseUnary());
+			if (!lookingAt("!=") && accept("!"))
+				return new Unary('!', parseUnary());
+			return parsePrimary();
+		}
+		
+		private Node parsePrimary() {
+			skipSpaces();
+			if (accept("(")) {
+				Node node = parseOr();
+				if (!accept(")"))
+					throw error("missing ')'");
+				return node;
+			}
+			
+			int start = position;
+			if (position < text.length() && (Character.isDigit(text.charAt(position)) 
+					|| text.charAt(position) == '.')) {
+				while (position < text.length() && (Character.isDigit(text.charAt(position))
+						|| text.charAt(position) == '.'))
+					position++;
+				if (position < text.length() && (text.charAt(position) == 'e' 
+						|| text.charAt(position) == 'E')) {
+					position++;
+					if (position < text.length() && (text.charAt(position) == '+' 
+							|| text.charAt(position) == '-'))
+						position++;
+					while (position < text.length() && Character.isDigit(text.charAt(position)))
+						position++;
+				}
+				try {
+					return new Constant(Float.parseFloat(text.substring(start, position)));
+				} catch (NumberFormatException e) {
+					throw error("invalid number " + text.substring(start, position));
+				}
+			}
+			
+			while (position < text.length() && (Character.isLetterOrDigit(text.charAt(position))
+					|| text.charAt(position) == '_'))
+				position++;
+			if (start == position)
+				throw error((position < text.length()) 
+						? "unexpected '" + text.charAt(position) + "'" : "unexpected end");
+			String name = text.substring(start, position);
+			int index = names.indexOf(name);
+			if (index < 0)
+				throw error("unknown element " + name);
+			return new Element(index);
+		}
+		
+		public void skipSpaces() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position)))
+				position++;
+		}
+		
+		private boolean lookingAt(String token) {
+			skipSpaces();
+			return text.startsWith(token, position);
+		}
+		
+		private boolean accept(String token) {
+			if (!lookingAt(token))
+				return false;
+			position += token.length();
+			return true;
+		}
+		
+		public IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Invalid expression \"" + text 
+					+ "\" at " + position + ": " + message);
+		}
+	}
+}
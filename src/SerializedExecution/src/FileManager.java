@@ -14,29 +14,38 @@
 
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * The class FileManager is essential to put in communication
  * database, graphic interface and logic of the software.
+ * 
+ * The models of each fileType are kept in a Registry, indexed by
+ * id, name and path, that is updated with the rows affected by each
+ * insertion or removal instead of reading again the whole table.
  */
 
 public class FileManager {
 	private Database db;
-	private ArrayList<ArrayList<Model>> models;
+	private ArrayList<Registry> models;
 	
 	/*
-	 * "array" is an ArrayList<ArrayList<Model>> . In practice, it 
-	 * will contain four ArrayList<Model> (one for each fileType).
+	 * "models" is an ArrayList<Registry> . In practice, it 
+	 * will contain four Registry (one for each fileType).
 	 */
 
 	public FileManager(Database db) throws Exception {
 		this.db = db;
-		this.models = new ArrayList<ArrayList<Model>>();
+		this.models = new ArrayList<Registry>();
 		
 		for (FileType fileType : FileType.values()) 
-			this.models.add(fileType.ordinal(), 
-					new ArrayList<Model>());
+			this.models.add(fileType.ordinal(), new Registry());
 		
 		this.updateAllModelData();
 	}
@@ -52,10 +61,33 @@ public class FileManager {
 	 */
 
 	public Model getElement(FileType kindOfFile, int j) {
-		int maxIndex = models.get(kindOfFile.ordinal()).size();
+		int maxIndex = models.get(kindOfFile.ordinal()).list.size();
 		if (j < 0 || j >= maxIndex)	// check on the bounds of the array
 			return null;
-		return models.get(kindOfFile.ordinal()).get(j);
+		return models.get(kindOfFile.ordinal()).list.get(j);
+	}
+	
+	/**
+	 * @param id
+	 * @param kindOfFile
+	 * @return the model of file type "kindOfFile" with id "id",
+	 * or null if there is none
+	 */
+	
+	public Model getById(int id, FileType kindOfFile) {
+		return models.get(kindOfFile.ordinal()).byId.get(id);
+	}
+	
+	/**
+	 * @param modelPath
+	 * @param kindOfFile
+	 * @return the models of file type "kindOfFile" located at
+	 * "modelPath" (an empty list if there is none)
+	 */
+	
+	public ArrayList<Model> getByPath(String modelPath, FileType kindOfFile) {
+		ArrayList<Model> found = models.get(kindOfFile.ordinal()).byPath.get(modelPath);
+		return (found == null) ? new ArrayList<Model>() : new ArrayList<Model>(found);
 	}
 	
 	/**
@@ -69,8 +101,22 @@ public class FileManager {
 	 */
 	
 	public void remove(String modelName, FileType kindOfFile) throws Exception {
-		this.db.removeFromTable(modelName, kindOfFile);
-		this.updateModelData(kindOfFile);
+		if (this.db.removeFromTable(modelName, kindOfFile))
+			models.get(kindOfFile.ordinal()).remove(Collections.singleton(modelName));
+	}
+	
+	/**
+	 * Removes the models named "modelNames" of FileType "fileType"
+	 * in a single transaction.
+	 * 
+	 * @param modelNames
+	 * @param kindOfFile
+	 * @throws Exception
+	 */
+	
+	public void removeAll(List<String> modelNames, FileType kindOfFile) throws Exception {
+		ArrayList<String> removed = this.db.removeFromTable(modelNames, kindOfFile);
+		models.get(kindOfFile.ordinal()).remove(new HashSet<String>(removed));
 	}
 	
 	/**
@@ -101,7 +147,7 @@ public class FileManager {
 	 */
 
 	public Iterator<Model> getIterator(FileType kindOfFile) {
-		return models.get(kindOfFile.ordinal()).iterator();
+		return models.get(kindOfFile.ordinal()).list.iterator();
 	}
 	
 	/**
@@ -113,8 +159,7 @@ public class FileManager {
 	 */
 
 	public int getArraySize(FileType kindOfFile) {
-		ArrayList<Model> array = models.get(kindOfFile.ordinal());
-		return array.size();
+		return models.get(kindOfFile.ordinal()).list.size();
 	}
 	
 	/**
@@ -128,8 +173,29 @@ public class FileManager {
 	 */
 	
 	public void insert(String modelName, String modelPath, FileType kindOfFile) throws Exception {
-		this.db.insertIntoTable(modelName, modelPath, kindOfFile);
-		this.updateModelData(kindOfFile);
+		Model model = this.db.insertIntoTable(modelName, modelPath, kindOfFile);
+		if (model != null)
+			models.get(kindOfFile.ordinal()).add(model);
+	}
+	
+	/**
+	 * Inserts the models named "modelNames", located at the 
+	 * corresponding paths "modelPaths", of FileType "fileType"
+	 * in a single transaction.
+	 * 
+	 * @param modelNames
+	 * @param modelPaths
+	 * @param kindOfFile
+	 * @throws Exception
+	 */
+	
+	public void insertAll(List<String> modelNames, List<String> modelPaths, 
+			FileType kindOfFile) throws Exception {
+		if (modelNames.size() != modelPaths.size())
+			throw new IllegalArgumentException("A path is needed for each name");
+		Registry registry = models.get(kindOfFile.ordinal());
+		for (Model model : this.db.insertIntoTable(modelNames, modelPaths, kindOfFile))
+			registry.add(model);
 	}
 	
 	/**
@@ -144,8 +210,11 @@ public class FileManager {
 	
 	public ArrayList<Model> updateModelData(FileType kindOfFile) throws Exception {
 		ArrayList<Model> result = db.retrieveFromTable(kindOfFile);
-			
-		models.set(kindOfFile.ordinal(), result);
+		
+		Registry registry = new Registry();
+		for (Model model : result)
+			registry.add(model);
+		models.set(kindOfFile.ordinal(), registry);
 		
 		return result;
 	}
@@ -174,23 +243,25 @@ public class FileManager {
 	 */
 	
 	public void setClicked(FileType kindOfFile, int j, boolean checked) throws Exception {
-		int maxIndex = models.get(kindOfFile.ordinal()).size();
+		Registry registry = models.get(kindOfFile.ordinal());
+		int maxIndex = registry.list.size();
 		if (j < 0 || j >= maxIndex)
 			return;
 		if (checked && (kindOfFile == FileType.EC || kindOfFile == FileType.CONFIGURATION)) {
-			for (Model mod : models.get(kindOfFile.ordinal())) {
+			for (Model mod : registry.clicked.values()) {
 				/*
 				 * EC and CONFIGURATION models must be exclusive so we must
 				 * set all the other models to false.
 				 */
 				mod.setClicked(false);
 			}
+			registry.clicked.clear();
 			db.updateClicked("*", 0, kindOfFile);
 		}
 		// Get the model at index "j"
-		Model mod = models.get(kindOfFile.ordinal()).get(j);
+		Model mod = registry.list.get(j);
 		// Current model set at "val"
-		mod.setClicked(checked);
+		registry.setClicked(mod, checked);
 		// Database is kept coherent with this
 		db.updateClicked(mod.getName(), 1, kindOfFile);
 	}
@@ -205,21 +276,12 @@ public class FileManager {
 	 */
 	
 	public ArrayList<Model> getClicked(FileType kinfOfFile) {
-		ArrayList<Model> modelArray = this.models.get(kinfOfFile.ordinal());
-		ArrayList<Model> checkedModel = new ArrayList<Model>();
-		
-		Iterator<Model> iterator = modelArray.iterator();
-		while(iterator.hasNext()) {
-			Model mod = iterator.next();
-			if(mod.getClicked()) {
-				checkedModel.add(mod);
-			}
-		}
+		TreeMap<Integer, Model> clicked = this.models.get(kinfOfFile.ordinal()).clicked;
 		
-		if (checkedModel.size() == 0)
+		if (clicked.size() == 0)
 			return null;
 		
-		return checkedModel;
+		return new ArrayList<Model>(clicked.values());
 	}
 	
 
@@ -232,14 +294,92 @@ public class FileManager {
 	 */
 	
 	public int getIdByName(String modelName, FileType kindOfFile) throws Exception {
-		Iterator<Model> iterator = models.get(kindOfFile.ordinal()).iterator();
-		while(iterator.hasNext()) {
-			Model mod = iterator.next();
-			if (mod.getName().equals(modelName))
-				return mod.getId();
-		}
+		ArrayList<Model> found = models.get(kindOfFile.ordinal()).byName.get(modelName);
+		if (found == null)
+			return -1;
 		
-		return -1;
+		return found.get(0).getId();
 	}
 	
+	/**
+	 * The models of a fileType, in the order of the table, together
+	 * with their indexes by id, name and path and the clicked ones.
+	 * The models sharing a name or a path are kept in order of id.
+	 */
+	
+	private static class Registry {
+		private ArrayList<Model> list;
+		private HashMap<Integer, Model> byId;
+		private HashMap<String, ArrayList<Model>> byName;
+		private HashMap<String, ArrayList<Model>> byPath;
+		private TreeMap<Integer, Model> clicked;
+		
+		public Registry() {
+			this.list = new ArrayList<Model>();
+			this.byId = new HashMap<Integer, Model>();
+			this.byName = new HashMap<String, ArrayList<Model>>();
+			this.byPath = new HashMap<String, ArrayList<Model>>();
+			this.clicked = new TreeMap<Integer, Model>();
+		}
+		
+		public void add(Model model) {
+			list.add(model);
+			byId.put(model.getId(), model);
+			index(byName, model.getName(), model);
+			index(byPath, model.getPath(), model);
+			if (model.getClicked())
+				clicked.put(model.getId(), model);
+		}
+		
+		/**
+		 * Removes the models whose name is in "names".
+		 * 
+		 * @param names
+		 */
+		
+		public void remove(Set<String> names) {
+			if (names.isEmpty())
+				return;
+			Iterator<Model> iterator = list.iterator();
+			while (iterator.hasNext()) {
+				Model model = iterator.next();
+				if (!names.contains(model.getName()))
+					continue;
+				iterator.remove();
+				byId.remove(model.getId());
+				clicked.remove(model.getId());
+				unindex(byPath, model.getPath(), model);
+			}
+			for (String name : names)
+				byName.remove(name);
+		}
+		
+		public void setClicked(Model model, boolean checked) {
+			model.setClicked(checked);
+			if (checked)
+				clicked.put(model.getId(), model);
+			else
+				clicked.remove(model.getId());
+		}
+		
+		private static void index(HashMap<String, ArrayList<Model>> index, 
+				String key, Model model) {
+			ArrayList<Model> models = index.get(key);
+			if (models == null) {
+				models = new ArrayList<Model>(1);
+				index.put(key, models);
+			}
+			models.add(model);
+		}
+		
+		private static void unindex(HashMap<String, ArrayList<Model>> index, 
+				String key, Model model) {
+			ArrayList<Model> models = index.get(key);
+			if (models == null)
+				return;
+			models.remove(model);
+			if (models.isEmpty())
+				index.remove(key);
+		}
+	}
 }
@@ -0,0 +1,263 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The class Fingerprinter computes the fingerprint of the content of 
+ * the files used by a sweep (the EC jar and the data sets), so that the
+ * results of an execution can be recognized whatever the path of its
+ * files.
+ * 
+ * A file is split in chunks of "chunkSize" bytes that are mapped in 
+ * memory and hashed in parallel; the fingerprint is the SHA-256 of the
+ * size of the file followed by the SHA-256 of each chunk. 
+ * The fingerprints are remembered by path together with the size and 
+ * the last modification time of the file, in memory and, when a 
+ * database is given, in FINGERPRINT_TABLE: a file is hashed again only
+ * when its size or its modification time change, so a large train set
+ * is read once and not at every sweep.
+ */
+
+public class Fingerprinter {
+	public static final int CHUNK_SIZE = 64 * 1024 * 1024;
+	
+	private static final ExecutorService hashers = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "fingerprint");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+	
+	private Database database;
+	private int chunkSize;
+	private ConcurrentHashMap<String, Stamp> stamps;
+	private ConcurrentHashMap<String, Object> locks;
+	
+	public Fingerprinter() {
+		this(null);
+	}
+	
+	public Fingerprinter(Database database) {
+		this(database, CHUNK_SIZE);
+	}
+	
+	public Fingerprinter(Database database, int chunkSize) {
+		this.database = database;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.stamps = new ConcurrentHashMap<String, Stamp>();
+		this.locks = new ConcurrentHashMap<String, Object>();
+	}
+	
+	/**
+	 * Returns the fingerprint of the file located at "path", hashing 
+	 * it only if it has never been hashed or it changed since. The 
+	 * threads asking for the same file wait for a single hashing.
+	 * 
+	 * @param path
+	 * @return the fingerprint in hexadecimal digits, or an empty string
+	 * if "path" is empty (e.g. no train set)
+	 * @throws IOException
+	 */
+	
+	public String fingerprint(String path) throws IOException {
+		if (path.isEmpty())
+			return "";
+		File file = new File(path);
+		if (!file.isFile())
+			throw new FileNotFoundException(path);
+		String key = file.getAbsolutePath();
+		
+		Object lock = locks.get(key);
+		if (lock == null) {
+			locks.putIfAbsent(key, new Object());
+			lock = locks.get(key);
+		}
+		
+		synchronized (lock) {
+			long size = file.length();
+			long modified = Files.getLastModifiedTime(file.toPath()).toMillis();
+			
+			Stamp stamp = stamps.get(key);
+			if (stamp == null && database != null)
+				stamp = retrieve(key);
+			if (stamp != null && stamp.matches(size, modified)) {
+				stamps.put(key, stamp);
+				return stamp.getHash();
+			}
+			
+			stamp = new Stamp(size, modified, digest(file));
+			stamps.put(key, stamp);
+			if (database != null)
+				store(key, stamp);
+			return stamp.getHash();
+		}
+	}
+	
+	/**
+	 * @param model
+	 * @return the fingerprint of the file of the model "model"
+	 * @throws IOException
+	 */
+	
+	public String fingerprint(Model model) throws IOException {
+		return fingerprint(model.getPath());
+	}
+	
+	private Stamp retrieve(String path) throws IOException {
+		try {
+			return database.retrieveFingerprint(path);
+		} catch (SQLException e) {
+			throw new IOException("Unable to read the fingerprint of " + path, e);
+		}
+	}
+	
+	/**
+	 * Queues the storage of "stamp" without waiting for it: if it fails
+	 * the file is only hashed again next time.
+	 * 
+	 * @param path
+	 * @param stamp
+	 * @throws IOException
+	 */
+	
+	private void store(String path, Stamp stamp) throws IOException {
+		try {
+			database.insertFingerprint(path, stamp);
+		} catch (SQLException e) {
+			throw new IOException("Unable to store the fingerprint of " + path, e);
+		}
+	}
+	
+	/**
+	 * Hashes the chunks of the file "file" in parallel and combines
+	 * their digests.
+	 * 
+	 * @param file
+	 * @return String
+	 * @throws IOException
+	 */
+	
+	protected String digest(File file) throws IOException {
+		final FileChannel channel = FileChannel.open(file.toPath(), 
+				StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			ArrayList<Future<byte[]>> chunks = new ArrayList<Future<byte[]>>();
+			for (long position = 0; position < size; position += chunkSize) {
+				final long start = position;
+				final long length = Math.min(chunkSize, size - position);
+				chunks.add(hashers.submit(new Callable<byte[]>() {
+					@Override
+					public byte[] call() throws IOException {
+						MappedByteBuffer region = channel.map(
+								FileChannel.MapMode.READ_ONLY, start, length);
+						MessageDigest digest = newDigest();
+						digest.update(region);
+						return digest.digest();
+					}
+				}));
+			}
+			
+			MessageDigest digest = newDigest();
+			digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, size));
+			try {
+				for (Future<byte[]> chunk : chunks)
+					digest.update(chunk.get());
+			} catch (ExecutionException e) {
+				throw new IOException("Unable to hash " + file, e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while hashing " + file, e);
+			} finally {
+				for (Future<byte[]> chunk : chunks)
+					chunk.cancel(true);
+			}
+			return toHex(digest.digest());
+		} finally {
+			channel.close();
+		}
+	}
+	
+	private static MessageDigest newDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("SHA-256 not available", e);
+		}
+	}
+	
+	protected static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(2 * bytes.length);
+		for (byte b : bytes)
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16))
+					.append(Character.forDigit(b & 0xf, 16));
+		return sb.toString();
+	}
+	
+	/**
+	 * The fingerprint of a file together with the size and the last
+	 * modification time the file had when it was hashed.
+	 */
+	
+	public static class Stamp {
+		private long size;
+		private long modified;
+		private String hash;
+		
+		public Stamp(long size, long modified, String hash) {
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+		}
+		
+		public long getSize() {
+			return size;
+		}
+		
+		public long getModified() {
+			return modified;
+		}
+		
+		public String getHash() {
+			return hash;
+		}
+		
+		public boolean matches(long size, long modified) {
+			return this.size == size && this.modified == modified;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * The class FoldSplitter splits a data set file, one sample for each
+ * line, into "k" folds for a cross validation. For every fold i it
+ * writes a test file with the lines of the fold and a train file with
+ * the lines of all the other folds.
+ * 
+ * The file is streamed once, with the 2k output files open at the same
+ * time, so it is never loaded in memory. The lines are assigned to the
+ * folds in blocks of k consecutive lines: each block gives one line 
+ * to every fold, starting from a pseudo-random fold that depends on
+ * "seed", so the sizes of the folds differ by at most one line.
+ */
+
+public class FoldSplitter {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	private File directory;
+	private int k;
+	private long seed;
+	private ArrayList<String> trainFiles;
+	private ArrayList<String> testFiles;
+	
+	public FoldSplitter(File directory, int k, long seed) {
+		if (k < 2)
+			throw new IllegalArgumentException("At least 2 folds are needed");
+		this.directory = directory;
+		this.k = k;
+		this.seed = seed;
+		this.trainFiles = new ArrayList<String>();
+		this.testFiles = new ArrayList<String>();
+	}
+	
+	/**
+	 * Writes the train and test files of the folds of the data set 
+	 * located at "path" in "directory".
+	 * 
+	 * @param path
+	 * @throws IOException
+	 */
+	
+	public void split(String path) throws IOException {
+		String name = new File(path).getName();
+		BufferedWriter[] train = new BufferedWriter[k];
+		BufferedWriter[] test = new BufferedWriter[k];
+		trainFiles.clear();
+		testFiles.clear();
+		
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(path), StandardCharsets.UTF_8));
+		try {
+			for (int i = 0; i < k; i++) {
+				File trainFile = new File(directory, "train-" + i + "-" + name);
+				File testFile = new File(directory, "test-" + i + "-" + name);
+				trainFiles.add(trainFile.getPath());
+				testFiles.add(testFile.getPath());
+				train[i] = open(trainFile);
+				test[i] = open(testFile);
+			}
+			
+			String line;
+			long index = 0;
+			while ((line = reader.readLine()) != null) {
+				int fold = foldOf(index++);
+				for (int i = 0; i < k; i++) {
+					BufferedWriter writer = (i == fold) ? test[i] : train[i];
+					writer.write(line);
+					writer.write('\n');
+				}
+			}
+		} finally {
+			reader.close();
+			for (int i = 0; i < k; i++) {
+				if (train[i] != null)
+					train[i].close();
+				if (test[i] != null)
+					test[i].close();
+			}
+		}
+	}
+	
+	private static BufferedWriter open(File file) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * @param index
+	 * @return the fold of the line with index "index"
+	 */
+	
+	public int foldOf(long index) {
+		long block = index / k;
+		long offset = IndexPermutation.mix64(seed + (block + 1) * GOLDEN_GAMMA) >>> 1;
+		return (int) ((index % k + offset % k) % k);
+	}
+	
+	/**
+	 * @return the paths of the train files written by split(), by fold
+	 */
+	
+	public ArrayList<String> getTrainFiles() {
+		return trainFiles;
+	}
+	
+	/**
+	 * @return the paths of the test files written by split(), by fold
+	 */
+	
+	public ArrayList<String> getTestFiles() {
+		return testFiles;
+	}
+}
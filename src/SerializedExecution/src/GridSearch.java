@@ -0,0 +1,37 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+/**
+ * The class GridSearch evaluates all the combinations of a ParameterGrid
+ * (i.e. the Cartesian product of the values of every element), in the
+ * order of their index.
+ */
+
+public class GridSearch implements SearchStrategy {
+	@Override
+	public long getCombinationCount(ParameterGrid grid) {
+		return grid.size();
+	}
+	
+	@Override
+	public CombinationSource combinations(ParameterGrid grid, long first) {
+		return grid.spliterator(first);
+	}
+	
+	@Override
+	public String toString() {
+		return "GridSearch";
+	}
+}
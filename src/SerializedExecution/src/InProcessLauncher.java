@@ -0,0 +1,453 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.security.Permission;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * The class InProcessLauncher loads the EC jar once in a dedicated
+ * URLClassLoader and runs each execution by calling the main(String[])
+ * of the jar's Main-Class in the current JVM, avoiding the start up 
+ * of a new JVM for every combination of parameters.
+ * 
+ * The standard output is captured per thread, so concurrent executions
+ * do not mix their answers, and a call to System.exit() performed by 
+ * the EC only terminates the current execution. The call is trapped by
+ * a security manager: when it cannot be installed (e.g. Java 18+ without
+ * -Djava.security.manager=allow) the launcher refuses to run the EC, 
+ * unless it runs in a JVM of its own (see EcWorker).
+ * Note that the static state of the EC classes is shared by all the
+ * executions: only ECs that do not rely on it should run in process.
+ * 
+ * Each execution runs in a thread of the launcher, which is interrupted
+ * when the execution times out or is cancelled. A thread cannot be 
+ * killed, so an EC that ignores the interruption keeps running in the
+ * background even though its execution has been recorded as stopped.
+ */
+
+public class InProcessLauncher extends Launcher {
+	private static CapturingOutputStream capture;
+	private static boolean exitTrapped = false;
+	
+	private String ecPath;
+	private URLClassLoader classLoader;
+	private Method mainMethod;
+	private ExecutorService executor;
+	private Set<Future<CapturedOutput>> running;
+	
+	public InProcessLauncher(String ecPath) throws IOException {
+		this(ecPath, true);
+	}
+	
+	/**
+	 * If "requireExitTrap" is true and the System.exit() calls of the EC
+	 * cannot be trapped (see isExitTrapped()), an IOException is thrown,
+	 * since such a call would terminate the whole application.
+	 * 
+	 * @param ecPath
+	 * @param requireExitTrap
+	 * @throws IOException
+	 */
+	
+	public InProcessLauncher(String ecPath, boolean requireExitTrap) 
+			throws IOException {
+		if (requireExitTrap && !isExitTrapped())
+			throw new IOException("System.exit() of the EC " + ecPath 
+					+ " cannot be trapped in this JVM");
+		this.ecPath = ecPath;
+		this.running = ConcurrentHashMap.newKeySet();
+		
+		String mainClassName = getMainClassName(ecPath);
+		URL[] urls = new URL[] { new File(ecPath).toURI().toURL() };
+		
+		/*
+		 * The parent of the class loader is the parent of the application
+		 * class loader, so the EC does not see the classes of this tool
+		 */
+		
+		classLoader = new URLClassLoader(urls, 
+				ClassLoader.getSystemClassLoader().getParent());
+		
+		try {
+			Class<?> mainClass = Class.forName(mainClassName, false, classLoader);
+			mainMethod = mainClass.getMethod("main", String[].class);
+			if (!Modifier.isStatic(mainMethod.getModifiers()))
+				throw new IOException("main() of " + mainClassName 
+						+ " is not static");
+		} catch (ReflectiveOperationException e) {
+			classLoader.close();
+			throw new IOException("Unable to load the EC " + ecPath, e);
+		}
+		
+		installCapture();
+		
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "in-process-ec");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * Calls the main(String[]) of the EC with the arguments "arguments"
+	 * and returns the answers printed on the standard output during 
+	 * the call. The execution ends normally when the EC calls 
+	 * System.exit().
+	 * 
+	 * @param arguments
+	 * @return CapturedOutput
+	 * @throws RunAbortedException if the execution times out or is
+	 * cancelled
+	 * @throws IOException if the EC throws an exception
+	 */
+	
+	@Override
+	public CapturedOutput launch(final String[] arguments) throws IOException {
+		checkCancelled();
+		Future<CapturedOutput> execution = executor.submit(
+				new Callable<CapturedOutput>() {
+			@Override
+			public CapturedOutput call() throws IOException {
+				return invokeMain(arguments);
+			}
+		});
+		running.add(execution);
+		
+		CapturedOutput output;
+		try {
+			checkCancelled();
+			if (getTimeout() > 0)
+				output = execution.get(getTimeout(), TimeUnit.MILLISECONDS);
+			else
+				output = execution.get();
+		} catch (TimeoutException e) {
+			execution.cancel(true);
+			throw new RunAbortedException(RunStatus.TIMEOUT);
+		} catch (CancellationException e) {
+			throw new RunAbortedException(RunStatus.CANCELLED);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("EC " + ecPath + " failed", e.getCause());
+		} catch (InterruptedException e) {
+			execution.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new RunAbortedException(RunStatus.CANCELLED);
+		} finally {
+			running.remove(execution);
+			if (isCancelled())
+				execution.cancel(true);
+		}
+		
+		return output;
+	}
+	
+	/**
+	 * Calls the main(String[]) of the EC in the current thread, reading
+	 * the lines of its standard output as answers while they are printed.
+	 * 
+	 * @param arguments
+	 * @return the answers, at most getMaxBufferedBytes() bytes of them
+	 * in memory
+	 * @throws IOException if the EC throws an exception
+	 */
+	
+	private CapturedOutput invokeMain(String[] arguments) throws IOException {
+		LineSink sink = new LineSink(new CapturedOutput(getMaxBufferedBytes()));
+		ClassLoader previousLoader = Thread.currentThread().getContextClassLoader();
+		
+		capture.sink.set(sink);
+		Thread.currentThread().setContextClassLoader(classLoader);
+		try {
+			try {
+				mainMethod.invoke(null, (Object) arguments.clone());
+			} catch (InvocationTargetException e) {
+				if (!(e.getCause() instanceof ExitTrappedException))
+					throw new IOException("EC " + ecPath + " failed", e.getCause());
+				sink.getOutput().setExitCode(
+						((ExitTrappedException) e.getCause()).getStatus());
+			} catch (ExitTrappedException e) {
+				// the EC has terminated itself through System.exit()
+				sink.getOutput().setExitCode(e.getStatus());
+			} catch (IllegalAccessException e) {
+				throw new IOException("Unable to invoke the EC " + ecPath, e);
+			} finally {
+				System.out.flush();
+				Thread.currentThread().setContextClassLoader(previousLoader);
+				capture.sink.remove();
+			}
+			return sink.finish();
+		} catch (IOException e) {
+			sink.getOutput().discard();
+			throw e;
+		}
+	}
+	
+	@Override
+	protected void abortRunning() {
+		for (Future<CapturedOutput> execution : running)
+			execution.cancel(true);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		executor.shutdownNow();
+		classLoader.close();
+	}
+	
+	/**
+	 * Reads the Main-Class attribute from the manifest of the jar
+	 * located at "jarPath".
+	 * 
+	 * @param jarPath
+	 * @return String
+	 * @throws IOException if the jar does not declare a Main-Class
+	 */
+	
+	private static String getMainClassName(String jarPath) throws IOException {
+		JarFile jar = new JarFile(jarPath);
+		try {
+			Manifest manifest = jar.getManifest();
+			String name = (manifest == null) ? null 
+					: manifest.getMainAttributes().getValue("Main-Class");
+			if (name == null)
+				throw new IOException("No Main-Class declared in " + jarPath);
+			return name.trim();
+		} finally {
+			jar.close();
+		}
+	}
+	
+	/**
+	 * Replaces System.out with a stream that writes to the sink of the
+	 * current thread (if any). This is done only once for the whole 
+	 * application.
+	 */
+	
+	private static synchronized void installCapture() {
+		if (capture != null)
+			return;
+		
+		capture = new CapturingOutputStream(System.out);
+		System.setOut(new PrintStream(capture, true));
+	}
+	
+	/**
+	 * Installs, the first time, a security manager that turns the
+	 * System.exit() calls of a running EC into an ExitTrappedException.
+	 * 
+	 * @return false if System.exit() cannot be trapped in this JVM:
+	 * Java 18+ refuses to install a security manager unless 
+	 * -Djava.security.manager=allow is given, and a security manager
+	 * installed by someone else cannot be replaced
+	 */
+	
+	@SuppressWarnings("removal")
+	public static synchronized boolean isExitTrapped() {
+		if (!exitTrapped && System.getSecurityManager() == null) {
+			try {
+				System.setSecurityManager(new ExitTrap());
+			} catch (UnsupportedOperationException e) {
+				return false;
+			}
+		}
+		exitTrapped = System.getSecurityManager() instanceof ExitTrap;
+		return exitTrapped;
+	}
+	
+	@Override
+	public String toString() {
+		return "InProcessLauncher [ecPath=" + ecPath + "]";
+	}
+	
+	/**
+	 * Output stream that forwards the bytes written by a thread to
+	 * the sink associated to that thread, or to the original standard
+	 * output when no sink is set. The sink is inherited by the threads 
+	 * created by the EC.
+	 */
+	
+	private static class CapturingOutputStream extends OutputStream {
+		private final PrintStream original;
+		private final InheritableThreadLocal<LineSink> sink;
+		
+		public CapturingOutputStream(PrintStream original) {
+			this.original = original;
+			this.sink = new InheritableThreadLocal<LineSink>();
+		}
+		
+		@Override
+		public void write(int b) {
+			LineSink target = sink.get();
+			if (target != null)
+				target.write(b);
+			else
+				original.write(b);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) {
+			LineSink target = sink.get();
+			if (target != null)
+				target.write(b, off, len);
+			else
+				original.write(b, off, len);
+		}
+		
+		@Override
+		public void flush() {
+			if (sink.get() == null)
+				original.flush();
+		}
+	}
+	
+	/**
+	 * Sink of an execution: splits the bytes printed by the EC into 
+	 * lines, like BufferedReader.readLine() would do, and adds them to
+	 * the answers. Only the current line is buffered.
+	 */
+	
+	private static class LineSink extends OutputStream {
+		private final CapturedOutput output;
+		private final ByteArrayOutputStream line;
+		private boolean carriageReturn;
+		private IOException failure;
+		
+		public LineSink(CapturedOutput output) {
+			this.output = output;
+			this.line = new ByteArrayOutputStream();
+			this.carriageReturn = false;
+			this.failure = null;
+		}
+		
+		public CapturedOutput getOutput() {
+			return output;
+		}
+		
+		@Override
+		public synchronized void write(int b) {
+			if (b == '\n' && carriageReturn) {
+				carriageReturn = false;
+				return;
+			}
+			carriageReturn = (b == '\r');
+			if (b == '\n' || b == '\r')
+				endLine();
+			else
+				line.write(b);
+		}
+		
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			for (int i = off; i < off + len; i++)
+				write(b[i]);
+		}
+		
+		private void endLine() {
+			if (failure != null)
+				return;
+			try {
+				output.addLine(new String(line.toByteArray(), Charset.defaultCharset()));
+			} catch (IOException e) {
+				failure = e;
+			}
+			line.reset();
+		}
+		
+		/**
+		 * Adds the last line, if it is not terminated.
+		 * 
+		 * @return the answers
+		 * @throws IOException if an answer could not be stored
+		 */
+		
+		public synchronized CapturedOutput finish() throws IOException {
+			if (line.size() > 0)
+				endLine();
+			if (failure != null)
+				throw failure;
+			output.finish();
+			return output;
+		}
+	}
+	
+	/**
+	 * Security manager that allows everything but System.exit()
+	 * invoked by a thread that is running an in-process EC.
+	 */
+	
+	@SuppressWarnings("removal")
+	private static class ExitTrap extends SecurityManager {
+		@Override
+		public void checkExit(int status) {
+			CapturingOutputStream c = capture;
+			if (c != null && c.sink.get() != null)
+				throw new ExitTrappedException(status);
+		}
+		
+		@Override
+		public void checkPermission(Permission perm) {
+		}
+		
+		@Override
+		public void checkPermission(Permission perm, Object context) {
+		}
+	}
+	
+	/**
+	 * Thrown in place of terminating the JVM when an in-process
+	 * EC calls System.exit().
+	 */
+	
+	private static class ExitTrappedException extends SecurityException {
+		private static final long serialVersionUID = 1L;
+		private int status;
+		
+		public ExitTrappedException(int status) {
+			super("EC called System.exit(" + status + ")");
+			this.status = status;
+		}
+		
+		public int getStatus() {
+			return status;
+		}
+	}
+}
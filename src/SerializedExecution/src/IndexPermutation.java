@@ -0,0 +1,88 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.SplittableRandom;
+
+/**
+ * The class IndexPermutation is a pseudo-random permutation of the 
+ * integers in [0, size), determined by a seed. The image of an index
+ * is computed directly, in constant memory, whatever the size.
+ * 
+ * A balanced Feistel network is a permutation of the integers of 
+ * twice its half width: it is applied until the result falls in 
+ * [0, size), which happens after less than four rounds on average.
+ */
+
+public class IndexPermutation {
+	private static final int ROUNDS = 4;
+	
+	private long size;
+	private int halfBits;
+	private long mask;
+	private long[] roundKeys;
+	
+	public IndexPermutation(long size, long seed) {
+		this.size = size;
+		int bits = (size <= 1) ? 0 : 64 - Long.numberOfLeadingZeros(size - 1);
+		this.halfBits = (bits + 1) / 2;
+		this.mask = (1L << halfBits) - 1;
+		
+		roundKeys = new long[ROUNDS];
+		SplittableRandom keys = new SplittableRandom(seed);
+		for (int i = 0; i < ROUNDS; i++)
+			roundKeys[i] = keys.nextLong();
+	}
+	
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * @param index in [0, size)
+	 * @return the image of "index"
+	 */
+	
+	public long apply(long index) {
+		if (size <= 1)
+			return 0;
+		
+		long x = index;
+		do {
+			long left = x >>> halfBits;
+			long right = x & mask;
+			for (int r = 0; r < ROUNDS; r++) {
+				long next = left ^ (mix64(right ^ roundKeys[r]) & mask);
+				left = right;
+				right = next;
+			}
+			x = (left << halfBits) | right;
+		} while (Long.compareUnsigned(x, size) >= 0);
+		
+		return x;
+	}
+	
+	/**
+	 * The bit mixing function used by SplittableRandom.
+	 * 
+	 * @param z
+	 * @return long
+	 */
+	
+	public static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
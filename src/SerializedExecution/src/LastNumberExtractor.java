@@ -0,0 +1,52 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The class LastNumberExtractor takes as score the last number printed
+ * by the EC (e.g. "0.91" for a final line "Accuracy0.91").
+ */
+
+public class LastNumberExtractor implements MetricExtractor {
+	static final Pattern NUMBER = 
+			Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+	
+	@Override
+	public Double extract(RunResult result) throws IOException {
+		if (result.getStatus() != RunStatus.COMPLETED || result.getOutput() == null)
+			return null;
+		
+		final String[] last = new String[1];
+		final Matcher matcher = NUMBER.matcher("");
+		result.getOutput().forEachLine(new CapturedOutput.LineHandler() {
+			@Override
+			public void handle(String line) {
+				matcher.reset(line);
+				while (matcher.find())
+					last[0] = matcher.group();
+			}
+		});
+		
+		return (last[0] == null) ? null : Double.valueOf(last[0]);
+	}
+	
+	@Override
+	public String toString() {
+		return "LastNumberExtractor";
+	}
+}
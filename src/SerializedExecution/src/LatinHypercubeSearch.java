@@ -0,0 +1,71 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.SplittableRandom;
+
+/**
+ * The class LatinHypercubeSearch evaluates a Latin hypercube sample of
+ * "budget" points over the ranges of the Variables (the Params take 
+ * their value): the range of every Variable is divided in "budget"
+ * intervals of the same width, and every interval contains the value
+ * of exactly one point. The intervals of the different Variables are
+ * paired by independent pseudo-random permutations (see IndexPermutation),
+ * and the value inside an interval is drawn uniformly.
+ * 
+ * The sample only depends on "budget" and "seed". The values are not
+ * snapped to the steps of the Variables.
+ */
+
+public class LatinHypercubeSearch extends SampledSearch {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	private long seed;
+	
+	public LatinHypercubeSearch(long budget, long seed) {
+		super(budget);
+		this.seed = seed;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	@Override
+	protected Sampler newSampler(final ParameterGrid grid) {
+		final IndexPermutation[] strata = 
+				new IndexPermutation[grid.getVariableCount()];
+		for (int d = 0; d < strata.length; d++)
+			strata[d] = new IndexPermutation(getBudget(), 
+					IndexPermutation.mix64(seed + (d + 1) * GOLDEN_GAMMA));
+		
+		return new Sampler() {
+			@Override
+			public float[] combinationAt(long index) {
+				SplittableRandom random = new SplittableRandom(
+						IndexPermutation.mix64(~seed + (index + 1) * GOLDEN_GAMMA));
+				double[] position = new double[strata.length];
+				for (int d = 0; d < strata.length; d++)
+					position[d] = (strata[d].apply(index) + random.nextDouble()) 
+							/ getBudget();
+				return grid.pointAt(position);
+			}
+		};
+	}
+	
+	@Override
+	public String toString() {
+		return "LatinHypercubeSearch [budget=" + getBudget() + ", seed=" + seed + "]";
+	}
+}
@@ -0,0 +1,22 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+/**
+ * The ways an EC can be run for each command line:
+ * PROCESS starts a new JVM ("java -jar"), IN_PROCESS loads the EC in
+ * the running JVM, WORKER_POOL uses a pool of long-lived worker JVMs.
+ */
+
+public enum LaunchMode { PROCESS, IN_PROCESS, WORKER_POOL; }
@@ -0,0 +1,255 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.StringTokenizer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class Launcher is the superclass of the different ways of running 
+ * an External Classifier (EC). Given the arguments of a single execution
+ * (the values of the parameters, the train set and the test set) a 
+ * launcher runs the EC and returns its answers.
+ * 
+ * Every execution can be limited by a wall-clock timeout, and all the
+ * running executions can be cancelled at once.
+ */
+
+public abstract class Launcher {
+	
+	/*
+	 * Single daemon thread firing the timeouts of all the launchers
+	 */
+	private static final ScheduledExecutorService watchdog = 
+			Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ec-watchdog");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+	
+	private long timeoutMillis = 0;
+	private long maxBufferedBytes = 4 * 1024 * 1024;
+	private volatile boolean cancelled = false;
+	
+	/**
+	 * Executes the EC with the arguments "arguments" and returns
+	 * the answers printed by the EC, one for each line.
+	 * Implementations must allow concurrent invocations.
+	 * 
+	 * @param arguments
+	 * @return CapturedOutput
+	 * @throws RunAbortedException if the execution exceeded the
+	 * timeout or the launcher has been cancelled
+	 * @throws IOException
+	 */
+	
+	public abstract CapturedOutput launch(String[] arguments) 
+			throws IOException;
+	
+	public long getTimeout() {
+		return timeoutMillis;
+	}
+	
+	/**
+	 * Sets the maximum wall-clock time of a single execution.
+	 * A value lower or equal than zero disables the timeout.
+	 * 
+	 * @param timeoutMillis
+	 */
+	
+	public void setTimeout(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+	
+	public long getMaxBufferedBytes() {
+		return maxBufferedBytes;
+	}
+	
+	/**
+	 * Sets how many bytes of the answers of a single execution are
+	 * kept in memory; the rest is written to a temporary file.
+	 * 
+	 * @param maxBufferedBytes
+	 */
+	
+	public void setMaxBufferedBytes(long maxBufferedBytes) {
+		this.maxBufferedBytes = maxBufferedBytes;
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * Stops all the running executions, which end with status
+	 * CANCELLED, and refuses the next ones.
+	 */
+	
+	public void cancel() {
+		cancelled = true;
+		abortRunning();
+	}
+	
+	/**
+	 * Stops all the executions currently running.
+	 */
+	
+	protected abstract void abortRunning();
+	
+	/**
+	 * Throws a RunAbortedException if the launcher has been cancelled.
+	 * 
+	 * @throws RunAbortedException
+	 */
+	
+	protected void checkCancelled() throws RunAbortedException {
+		if (cancelled)
+			throw new RunAbortedException(RunStatus.CANCELLED);
+	}
+	
+	/**
+	 * Schedules "onTimeout" to run when the timeout of an execution
+	 * started now expires.
+	 * 
+	 * @param onTimeout
+	 * @return null if no timeout is set, the scheduled task otherwise
+	 */
+	
+	protected ScheduledFuture<?> scheduleTimeout(Runnable onTimeout) {
+		if (timeoutMillis <= 0)
+			return null;
+		return watchdog.schedule(onTimeout, timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Runs "sample" every "periodMillis" milliseconds, starting now,
+	 * on the thread firing the timeouts. The task must be short.
+	 * 
+	 * @param sample
+	 * @param periodMillis
+	 * @return the scheduled task, to be cancelled when the execution ends
+	 */
+	
+	protected static ScheduledFuture<?> scheduleSampling(Runnable sample, 
+			long periodMillis) {
+		return watchdog.scheduleWithFixedDelay(sample, 0, periodMillis, 
+				TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Reads the peak resident set size (VmHWM) of the process with id
+	 * "pid" from /proc/<pid>/status.
+	 * 
+	 * @param pid
+	 * @return the peak in kB, or -1 if it cannot be read (e.g. the 
+	 * process has exited or the system has no /proc)
+	 */
+	
+	protected static long readPeakRss(long pid) {
+		try {
+			for (String line : Files.readAllLines(Paths.get("/proc", 
+					Long.toString(pid), "status"), StandardCharsets.UTF_8)) {
+				if (line.startsWith("VmHWM:"))
+					return Long.parseLong(line.substring(6).replace("kB", "").trim());
+			}
+		} catch (IOException | NumberFormatException e) {
+			// the process is gone, or the status has an unknown format
+		}
+		return -1;
+	}
+	
+	/**
+	 * Forcibly terminates "process" and all its descendants. The
+	 * descendants are collected first, since they are not reachable 
+	 * any more once their parent is dead.
+	 * 
+	 * @param process
+	 */
+	
+	protected static void destroyTree(Process process) {
+		ArrayList<ProcessHandle> descendants = new ArrayList<ProcessHandle>();
+		Iterator<ProcessHandle> iterator = process.descendants().iterator();
+		while (iterator.hasNext())
+			descendants.add(iterator.next());
+		
+		process.destroyForcibly();
+		for (ProcessHandle handle : descendants)
+			handle.destroyForcibly();
+	}
+	
+	/**
+	 * Releases the resources held by the launcher.
+	 * 
+	 * @throws IOException
+	 */
+	
+	public void close() throws IOException {
+	}
+	
+	/**
+	 * Splits the arguments part of a command line in the same way
+	 * Runtime.exec() does (i.e. on white spaces).
+	 * 
+	 * @param arguments
+	 * @return String[]
+	 */
+	
+	public static String[] splitArguments(String arguments) {
+		StringTokenizer st = new StringTokenizer(arguments);
+		String[] tokens = new String[st.countTokens()];
+		for (int i = 0; st.hasMoreTokens(); i++)
+			tokens[i] = st.nextToken();
+		return tokens;
+	}
+	
+	/**
+	 * Reads the answers of an execution from "is", one for each
+	 * line, keeping at most getMaxBufferedBytes() bytes in memory.
+	 * 
+	 * @param is
+	 * @return CapturedOutput
+	 * @throws IOException 
+	 */
+	
+	protected CapturedOutput capture(InputStream is) throws IOException {
+		CapturedOutput output = new CapturedOutput(maxBufferedBytes);
+		BufferedReader br = new BufferedReader(new InputStreamReader(is));
+		try {
+			output.addLines(br);
+			output.finish();
+		} catch (IOException e) {
+			output.discard();
+			throw e;
+		} finally {
+			br.close();
+		}
+		return output;
+	}
+}
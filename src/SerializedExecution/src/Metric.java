@@ -0,0 +1,135 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The class Metric is a named numeric value read from the answers of
+ * the EC (e.g. the accuracy), according to its MetricKind. The pattern
+ * is compiled once, when the metric is created. The metrics of an EC
+ * are stored in the database, and the Serializer attaches their values 
+ * to every RunResult.
+ * 
+ * A Metric is also a MetricExtractor, so it can drive the adaptive 
+ * searches, the successive halving and the early stopping: when the
+ * result already carries its value, the answers are not read again.
+ */
+
+public class Metric implements MetricExtractor {
+	private String name;
+	private MetricKind kind;
+	private String pattern;
+	private Pattern compiled;
+	
+	/**
+	 * @param name
+	 * @param kind
+	 * @param pattern the regular expression of a REGEX metric, the key
+	 * of a KEY_VALUE metric, ignored by a LAST_LINE metric
+	 * @throws IllegalArgumentException if the pattern is not valid for
+	 * the kind of metric
+	 */
+	
+	public Metric(String name, MetricKind kind, String pattern) {
+		if (name == null || name.trim().isEmpty() || name.matches(".*[\\s=].*"))
+			throw new IllegalArgumentException("Invalid metric name: " + name);
+		this.name = name;
+		this.kind = kind;
+		this.pattern = (kind == MetricKind.LAST_LINE) ? "" : pattern;
+		
+		switch (kind) {
+		case REGEX:
+			compiled = Pattern.compile(pattern);
+			if (compiled.matcher("").groupCount() < 1)
+				throw new IllegalArgumentException("The pattern of metric " 
+						+ name + " has no capture group");
+			break;
+		case KEY_VALUE:
+			if (pattern == null || pattern.trim().isEmpty())
+				throw new IllegalArgumentException("Metric " + name + " has no key");
+			compiled = Pattern.compile("^\\s*" + Pattern.quote(pattern.trim())
+					+ "\\s*[=:]\\s*(" + LastNumberExtractor.NUMBER.pattern() + ")");
+			break;
+		default:
+			compiled = LastNumberExtractor.NUMBER;
+		}
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public MetricKind getKind() {
+		return kind;
+	}
+	
+	public String getPattern() {
+		return pattern;
+	}
+	
+	/**
+	 * @return the value of the metric carried by "result" or, if it
+	 * carries none, the one read from its answers; null if the 
+	 * execution did not complete or the value is missing
+	 */
+	
+	@Override
+	public Double extract(RunResult result) throws IOException {
+		Double value = result.getMetric(name);
+		if (value != null)
+			return value;
+		if (result.getStatus() != RunStatus.COMPLETED || result.getOutput() == null)
+			return null;
+		
+		final String[] last = new String[1];
+		final Matcher matcher = compiled.matcher("");
+		result.getOutput().forEachLine(new CapturedOutput.LineHandler() {
+			@Override
+			public void handle(String line) {
+				if (kind == MetricKind.LAST_LINE) {
+					if (!line.trim().isEmpty())
+						last[0] = line;
+					return;
+				}
+				matcher.reset(line);
+				if (matcher.find())
+					last[0] = matcher.group(1);
+			}
+		});
+		
+		if (kind == MetricKind.LAST_LINE && last[0] != null) {
+			matcher.reset(last[0]);
+			String number = null;
+			while (matcher.find())
+				number = matcher.group();
+			last[0] = number;
+		}
+		
+		if (last[0] == null)
+			return null;
+		try {
+			return Double.valueOf(last[0].trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return name + " " + kind + " " + pattern;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+
+/**
+ * A MetricExtractor reads the answers of an execution of the EC and
+ * extracts from them the score of the execution, used to compare the
+ * combinations of parameters.
+ */
+
+public interface MetricExtractor {
+	/**
+	 * @param result
+	 * @return the score of "result", or null if the execution did
+	 * not complete or its answers contain no score
+	 * @throws IOException
+	 */
+	
+	public Double extract(RunResult result) throws IOException;
+}
@@ -0,0 +1,27 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+/**
+ * The ways a Metric can read its value from the answers of the EC:
+ * - REGEX: the first capture group of the last line matching a 
+ *   regular expression;
+ * - LAST_LINE: the last number of the last non blank line;
+ * - KEY_VALUE: the value of the last line "key=value" (or 
+ *   "key: value") with the given key.
+ */
+
+public enum MetricKind {
+	REGEX, LAST_LINE, KEY_VALUE;
+}
@@ -13,25 +13,54 @@
 
 
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class handles the total output data which are produced
  * after the serialised execution of an EC (External Classifier)
+ * 
+ * The results can either be collected in a map and written at the
+ * end (see writeToFile()), or appended to the output file while the
+ * executions complete (see open(), resultReady() and close()).
  */
 
-public class Output {
+public class Output implements ResultListener {
+	private static final int QUEUE_CAPACITY = 1024;
+	
+	/*
+	 * Marks the end of the results in the queue
+	 */
+	private static final RunResult END = 
+			new RunResult(null, null, RunStatus.COMPLETED);
+	
 	private String outputFileFolder;
 	private HashMap<String, ArrayList<String>> mapOfValues;
 	
+	private long flushIntervalMillis;
+	private ResultListener flushedListener;
+	private BlockingQueue<RunResult> pending;
+	private Thread writerThread;
+	private volatile IOException failure;
+	
 	public Output() {
 		this.mapOfValues = new HashMap<String, ArrayList<String>>();
 		this.outputFileFolder = null;
+		this.flushIntervalMillis = 1000;
+		this.flushedListener = null;
+		this.pending = null;
+		this.writerThread = null;
+		this.failure = null;
 	}
 	
 	public void setMapOfValues(HashMap<String, ArrayList<String>> mapOfValues) {
@@ -49,6 +78,17 @@ public class Output {
 	public void setOutputFileFolder(String outputFileFolder) {
 		this.outputFileFolder = outputFileFolder;
 	}
+	
+	/**
+	 * Sets how often the results appended to the output file are 
+	 * flushed to disk.
+	 * 
+	 * @param flushIntervalMillis
+	 */
+	
+	public void setFlushInterval(long flushIntervalMillis) {
+		this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+	}
 
 	
 	/**
@@ -75,4 +115,204 @@ public class Output {
 		}
 		writer.close();
 	}
+	
+	/**
+	 * Writes "lines" into a file named "fileName" located at path
+	 * "outputFileFolder", next to the output file.
+	 * 
+	 * @param fileName
+	 * @param lines
+	 * @throws IOException
+	 */
+	
+	public void writeSummary(String fileName, ArrayList<String> lines) 
+			throws IOException {
+		File f = new File(outputFileFolder + File.separator + fileName);
+		PrintWriter writer = new PrintWriter(f, "UTF-8");
+		for (String line : lines)
+			writer.println(line);
+		writer.close();
+	}
+	
+	/**
+	 * Sets the listener that receives, from the writer thread, each
+	 * result appended to the output file once it has been flushed.
+	 * 
+	 * @param flushedListener
+	 */
+	
+	public void setFlushedListener(ResultListener flushedListener) {
+		this.flushedListener = flushedListener;
+	}
+	
+	/**
+	 * Same as open(false).
+	 * 
+	 * @throws IOException if the file cannot be created
+	 */
+	
+	public void open() throws IOException {
+		open(false);
+	}
+	
+	/**
+	 * This method creates (or, unless "append" is set, truncates) the 
+	 * file "output.txt" located at path "outputFileFolder" and starts 
+	 * the thread that appends to it the results passed to resultReady().
+	 * The results are written in the same format as writeToFile(), in
+	 * order of completion.
+	 * 
+	 * @param append
+	 * @throws IOException if the file cannot be created
+	 */
+	
+	public synchronized void open(boolean append) throws IOException {
+		if (writerThread != null)
+			throw new IllegalStateException("Output already open");
+		
+		File f = new File(outputFileFolder + File.separator + "output.txt");
+		final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(f, append), "UTF-8"));
+		
+		failure = null;
+		pending = new ArrayBlockingQueue<RunResult>(QUEUE_CAPACITY);
+		writerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeResults(writer);
+			}
+		}, "output-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+	
+	/**
+	 * Queues the result of an execution to be appended to the output
+	 * file. When the writer thread falls behind the calling thread
+	 * waits, so the results waiting to be written are bounded.
+	 * 
+	 * @param result
+	 * @throws IOException if writing a previous result failed
+	 */
+	
+	@Override
+	public void resultReady(RunResult result) throws IOException {
+		if (pending == null)
+			throw new IllegalStateException("Output not open");
+		if (failure != null) {
+			result.discard();
+			throw failure;
+		}
+		
+		try {
+			pending.put(result);
+		} catch (InterruptedException e) {
+			result.discard();
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing the output", e);
+		}
+	}
+	
+	/**
+	 * Waits until all the queued results are written and closes the
+	 * output file.
+	 * 
+	 * @throws IOException if writing a result failed
+	 */
+	
+	public synchronized void close() throws IOException {
+		if (writerThread == null)
+			return;
+		
+		try {
+			pending.put(END);
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing the output", e);
+		} finally {
+			writerThread = null;
+		}
+		
+		if (failure != null)
+			throw failure;
+	}
+	
+	/**
+	 * Body of the writer thread: takes the results from the queue
+	 * and appends them to "writer", flushing it at least every 
+	 * "flushIntervalMillis". After a failure the remaining results 
+	 * are discarded, so the producers never block.
+	 * 
+	 * @param writer
+	 */
+	
+	private void writeResults(BufferedWriter writer) {
+		ArrayList<RunResult> unflushed = new ArrayList<RunResult>();
+		long lastFlush = System.currentTimeMillis();
+		
+		try {
+			while (true) {
+				RunResult result = pending.poll(flushIntervalMillis, 
+						TimeUnit.MILLISECONDS);
+				if (result == END)
+					break;
+				
+				if (result != null) {
+					try {
+						if (failure == null) {
+							writer.write(result.getCommandLine());
+							writer.write('\n');
+							result.writeTo(writer);
+							writer.write('\n');
+							unflushed.add(result);
+						}
+					} catch (IOException e) {
+						failure = e;
+					} finally {
+						result.discard();
+					}
+				}
+				
+				long now = System.currentTimeMillis();
+				if (result == null || now - lastFlush >= flushIntervalMillis) {
+					flush(writer, unflushed);
+					lastFlush = now;
+				}
+			}
+			flush(writer, unflushed);
+		} catch (InterruptedException e) {
+			failure = new IOException("Output writer interrupted", e);
+		} finally {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				if (failure == null)
+					failure = e;
+			}
+		}
+	}
+	
+	/**
+	 * Flushes "writer" and hands the results written since the
+	 * previous flush to the flushed listener, if any.
+	 * 
+	 * @param writer
+	 * @param unflushed
+	 */
+	
+	private void flush(BufferedWriter writer, ArrayList<RunResult> unflushed) {
+		if (unflushed.isEmpty() || failure != null)
+			return;
+		
+		try {
+			writer.flush();
+			if (flushedListener != null)
+				for (RunResult result : unflushed)
+					flushedListener.resultReady(result);
+		} catch (IOException e) {
+			failure = e;
+		}
+		unflushed.clear();
+	}
 }
@@ -0,0 +1,181 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class ParameterConstraints holds the rules that prune the
+ * combinations of a configuration before they are launched:
+ * - constraints: expressions (see Expression) that every valid 
+ *   combination satisfies, e.g. "min <= max";
+ * - conditions: an element is active only when its condition holds,
+ *   e.g. "momentum" only when "solver == 2". The value of an inactive
+ *   element does not matter, so a combination is "canonical" when its
+ *   inactive elements take their first value.
+ * The conditions are applied in the order they are declared, so the
+ * condition of an element can depend on elements made inactive by the
+ * previous ones. The constraints are checked on the canonical 
+ * combination.
+ * 
+ * The rules refer to the elements by name and are bound to the grid
+ * of the configuration by bind().
+ */
+
+public class ParameterConstraints {
+	private ArrayList<String> constraints;
+	private LinkedHashMap<String, String> conditions;
+	
+	private ParameterGrid grid;
+	private ArrayList<Expression> compiledConstraints;
+	private int[] conditionTargets;
+	private Expression[] compiledConditions;
+	
+	public ParameterConstraints() {
+		this.constraints = new ArrayList<String>();
+		this.conditions = new LinkedHashMap<String, String>();
+		this.grid = null;
+	}
+	
+	public void addConstraint(String expression) {
+		constraints.add(expression);
+		grid = null;
+	}
+	
+	/**
+	 * Makes the element "name" active only when "expression" holds.
+	 * A new condition replaces the previous one of the same element.
+	 * 
+	 * @param name
+	 * @param expression
+	 */
+	
+	public void addCondition(String name, String expression) {
+		conditions.put(name, expression);
+		grid = null;
+	}
+	
+	public ArrayList<String> getConstraints() {
+		return constraints;
+	}
+	
+	public LinkedHashMap<String, String> getConditions() {
+		return conditions;
+	}
+	
+	public boolean isEmpty() {
+		return constraints.isEmpty() && conditions.isEmpty();
+	}
+	
+	/**
+	 * Parses the rules, binding the names they refer to the elements
+	 * of "grid".
+	 * 
+	 * @param grid
+	 * @throws IllegalArgumentException if a rule is malformed or refers
+	 * to an unknown element
+	 */
+	
+	public void bind(ParameterGrid grid) {
+		ArrayList<String> names = new ArrayList<String>();
+		for (int d = 0; d < grid.getDimension(); d++)
+			names.add(grid.getElement(d).getName());
+		
+		compiledConstraints = new ArrayList<Expression>();
+		for (String constraint : constraints)
+			compiledConstraints.add(new Expression(constraint, names));
+		
+		conditionTargets = new int[conditions.size()];
+		compiledConditions = new Expression[conditions.size()];
+		int i = 0;
+		for (Map.Entry<String, String> condition : conditions.entrySet()) {
+			conditionTargets[i] = names.indexOf(condition.getKey());
+			if (conditionTargets[i] < 0)
+				throw new IllegalArgumentException("Condition on unknown element " 
+						+ condition.getKey());
+			compiledConditions[i] = new Expression(condition.getValue(), names);
+			i++;
+		}
+		this.grid = grid;
+	}
+	
+	/**
+	 * @param vector
+	 * @return a copy of "vector" whose inactive elements take their 
+	 * first value
+	 */
+	
+	public float[] canonical(float[] vector) {
+		checkBound();
+		float[] canonical = vector.clone();
+		for (int i = 0; i < compiledConditions.length; i++) {
+			if (!compiledConditions[i].isSatisfied(canonical))
+				canonical[conditionTargets[i]] = grid.valueAt(conditionTargets[i], 0);
+		}
+		return canonical;
+	}
+	
+	/**
+	 * @param canonical a combination returned by canonical()
+	 * @return true if "canonical" satisfies all the constraints
+	 */
+	
+	public boolean isValid(float[] canonical) {
+		checkBound();
+		for (Expression constraint : compiledConstraints) {
+			if (!constraint.isSatisfied(canonical))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * @param vector
+	 * @return true if "vector" is a valid combination and it is 
+	 * canonical, i.e. it must be launched when every combination of
+	 * the grid is enumerated
+	 */
+	
+	public boolean accepts(float[] vector) {
+		float[] canonical = canonical(vector);
+		for (int d = 0; d < vector.length; d++) {
+			if (Float.floatToIntBits(canonical[d]) != Float.floatToIntBits(vector[d]))
+				return false;
+		}
+		return isValid(canonical);
+	}
+	
+	private void checkBound() {
+		if (grid == null)
+			throw new IllegalStateException("Constraints not bound to a grid");
+	}
+	
+	/**
+	 * The rules in a textual form, e.g. to identify a sweep (see 
+	 * SweepPlan).
+	 */
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (String constraint : constraints)
+			sb.append(sb.length() == 0 ? "" : ";").append(constraint);
+		for (Map.Entry<String, String> condition : conditions.entrySet())
+			sb.append(sb.length() == 0 ? "" : ";").append(condition.getKey())
+					.append(" if ").append(condition.getValue());
+		return sb.toString();
+	}
+}
@@ -0,0 +1,305 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.ArrayList;
+
+/**
+ * The class ParameterGrid describes the grid of all the combinations of
+ * the numeric elements of a configuration. Every element is a dimension
+ * of the grid: a Param has a single value, while a Variable takes the 
+ * values start + i * step, for i = 0 ... getPointCount() - 1.
+ * 
+ * The combinations are numbered in mixed radix (the last element changes
+ * fastest), so the combination with a given index can be computed
+ * directly, without enumerating the ones before it, and every index
+ * corresponds to exactly one combination.
+ */
+
+public class ParameterGrid {
+	/*
+	 * The values of the elements with at most MAX_CACHED_VALUES 
+	 * values are computed once and kept in "values"
+	 */
+	private static final int MAX_CACHED_VALUES = 1 << 16;
+	
+	private NumericElement[] elements;
+	private float[][] values;
+	private int[] counts;
+	private long size;
+	
+	public ParameterGrid(ArrayList<NumericElement> val) {
+		int dimension = val.size();
+		elements = val.toArray(new NumericElement[dimension]);
+		values = new float[dimension][];
+		counts = new int[dimension];
+		size = 1;
+		
+		for (int index = 0; index < dimension; index++) {
+			if (elements[index] instanceof Param) {
+				counts[index] = 1;
+				values[index] = new float[] { 
+						((Param) elements[index]).getValue() };
+			} else {
+				Variable variable = (Variable) elements[index];
+				counts[index] = variable.getPointCount();
+				if (counts[index] <= MAX_CACHED_VALUES) {
+					values[index] = new float[counts[index]];
+					for (int i = 0; i < counts[index]; i++)
+						values[index][i] = variable.valueAt(i);
+				}
+			}
+			
+			/*
+			 * A grid with more than Long.MAX_VALUE combinations cannot
+			 * be enumerated, but it can still be sampled (see pointAt())
+			 */
+			if (size < 0 || size > Long.MAX_VALUE / counts[index])
+				size = -1;
+			else
+				size *= counts[index];
+		}
+	}
+	
+	public int getDimension() {
+		return counts.length;
+	}
+	
+	/**
+	 * @return the element (Param or Variable) of the dimension 
+	 * "dimension"
+	 */
+	
+	public NumericElement getElement(int dimension) {
+		return elements[dimension];
+	}
+	
+	/**
+	 * @return the number of values taken by the element "dimension"
+	 */
+	
+	public int getCount(int dimension) {
+		return counts[dimension];
+	}
+	
+	/**
+	 * @return the total number of combinations of the grid
+	 * @throws IllegalStateException if it exceeds Long.MAX_VALUE
+	 */
+	
+	public long size() {
+		if (size < 0)
+			throw new IllegalStateException("Too many combinations");
+		return size;
+	}
+	
+	/**
+	 * Returns the value of the element "dimension" at step "i".
+	 * 
+	 * @param dimension
+	 * @param i
+	 * @return float
+	 */
+	
+	public float valueAt(int dimension, int i) {
+		if (values[dimension] != null)
+			return values[dimension][i];
+		return ((Variable) elements[dimension]).valueAt(i);
+	}
+	
+	/**
+	 * Writes into "digits" the step of each element for the combination
+	 * with index "index".
+	 * 
+	 * @param index
+	 * @param digits
+	 */
+	
+	public void digitsAt(long index, int[] digits) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Combination " + index);
+		for (int i = counts.length - 1; i >= 0; i--) {
+			digits[i] = (int) (index % counts[i]);
+			index /= counts[i];
+		}
+	}
+	
+	/**
+	 * Returns the combination with index "index".
+	 * 
+	 * @param index
+	 * @return float[]
+	 */
+	
+	public float[] vectorAt(long index) {
+		int[] digits = new int[counts.length];
+		digitsAt(index, digits);
+		float[] vector = new float[counts.length];
+		for (int i = 0; i < counts.length; i++)
+			vector[i] = valueAt(i, digits[i]);
+		return vector;
+	}
+	
+	/**
+	 * @return the number of Variables of the configuration
+	 */
+	
+	public int getVariableCount() {
+		int count = 0;
+		for (NumericElement el : elements)
+			if (el instanceof Variable)
+				count++;
+		return count;
+	}
+	
+	/**
+	 * Returns the combination located at "position" of the ranges
+	 * of the Variables, i.e. the i-th Variable takes the value 
+	 * start + position[i] * (end - start), with position[i] in 
+	 * [0, 1]. The Params take their value. The values are not 
+	 * snapped to the steps of the Variables.
+	 * 
+	 * @param position
+	 * @return float[]
+	 */
+	
+	public float[] pointAt(double[] position) {
+		float[] vector = new float[elements.length];
+		int v = 0;
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] instanceof Param) {
+				vector[i] = ((Param) elements[i]).getValue();
+			} else {
+				Variable variable = (Variable) elements[i];
+				float start = variable.getStart();
+				float end = variable.getEnd();
+				double u = position[v++];
+				vector[i] = (end > start) 
+						? Math.min((float) (start + u * (end - start)), end) 
+						: start;
+			}
+		}
+		return vector;
+	}
+	
+	/**
+	 * The inverse of pointAt(): returns the position of "vector" in
+	 * the ranges of the Variables, each coordinate in [0, 1].
+	 * 
+	 * @param vector
+	 * @return double[]
+	 */
+	
+	public double[] positionOf(float[] vector) {
+		double[] position = new double[getVariableCount()];
+		int v = 0;
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] instanceof Variable) {
+				Variable variable = (Variable) elements[i];
+				float start = variable.getStart();
+				float end = variable.getEnd();
+				double u = (end > start) ? (vector[i] - start) / (double) (end - start) : 0;
+				position[v++] = Math.max(0, Math.min(1, u));
+			}
+		}
+		return position;
+	}
+	
+	/**
+	 * Returns the combination of the grid nearest to "vector", i.e. 
+	 * every Variable takes the value start + i * step nearest to its
+	 * value in "vector".
+	 * 
+	 * @param vector
+	 * @return float[]
+	 */
+	
+	public float[] snap(float[] vector) {
+		float[] snapped = new float[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] instanceof Param) {
+				snapped[i] = ((Param) elements[i]).getValue();
+			} else {
+				Variable variable = (Variable) elements[i];
+				long step = Math.round((vector[i] - variable.getStart()) 
+						/ (double) variable.getStep());
+				step = Math.max(0, Math.min(counts[i] - 1, step));
+				snapped[i] = valueAt(i, (int) step);
+			}
+		}
+		return snapped;
+	}
+	
+	/**
+	 * Returns the step of each element for the combination of the
+	 * grid nearest to "vector" (see snap()).
+	 * 
+	 * @param vector
+	 * @return int[]
+	 */
+	
+	public int[] digitsOf(float[] vector) {
+		int[] digits = new int[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] instanceof Variable) {
+				Variable variable = (Variable) elements[i];
+				long step = Math.round((vector[i] - variable.getStart()) 
+						/ (double) variable.getStep());
+				digits[i] = (int) Math.max(0, Math.min(counts[i] - 1, step));
+			}
+		}
+		return digits;
+	}
+	
+	/**
+	 * Returns the index of the combination whose element steps
+	 * are "digits".
+	 * 
+	 * @param digits
+	 * @return long
+	 */
+	
+	public long indexOf(int[] digits) {
+		long index = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (digits[i] < 0 || digits[i] >= counts[i])
+				throw new IndexOutOfBoundsException("Step " + digits[i] 
+						+ " of element " + i);
+			index = index * counts[i] + digits[i];
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns a lazy spliterator over all the combinations of the grid.
+	 * 
+	 * @return CombinationSpliterator
+	 */
+	
+	public CombinationSpliterator spliterator() {
+		return new CombinationSpliterator(this, 0, size());
+	}
+	
+	/**
+	 * Returns a lazy spliterator over the combinations of the grid
+	 * starting from the one with index "from".
+	 * 
+	 * @param from
+	 * @return CombinationSpliterator
+	 */
+	
+	public CombinationSpliterator spliterator(long from) {
+		return new CombinationSpliterator(this, Math.min(from, size()), size());
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * The class ParetoFront keeps, while the results of a sweep arrive,
+ * the executions that are not dominated on three objectives: the 
+ * score read by a MetricExtractor, the wall time and the peak memory
+ * (see RunResult). An execution dominates another one when it is not
+ * worse on any objective and better on at least one. An unknown wall
+ * time or memory counts as the worst value.
+ * 
+ * The front is updated incrementally, so its cost depends on the size
+ * of the front and not on the number of executions. Executions that 
+ * did not complete, or have no score, are not taken into account.
+ */
+
+public class ParetoFront {
+	private MetricExtractor extractor;
+	private boolean maximize;
+	private ArrayList<Entry> front;
+	
+	public ParetoFront(MetricExtractor extractor, boolean maximize) {
+		this.extractor = extractor;
+		this.maximize = maximize;
+		this.front = new ArrayList<Entry>();
+	}
+	
+	/**
+	 * Empties the front and returns a listener that adds every result 
+	 * to it before forwarding the result to "next".
+	 * 
+	 * @param next
+	 * @return ResultListener
+	 */
+	
+	public ResultListener track(final ResultListener next) {
+		synchronized (this) {
+			front.clear();
+		}
+		return new ResultListener() {
+			@Override
+			public void resultReady(RunResult result) throws IOException {
+				add(result);
+				if (next != null)
+					next.resultReady(result);
+				else
+					result.discard();
+			}
+		};
+	}
+	
+	/**
+	 * Adds the execution "result" to the front, unless an execution of
+	 * the front dominates it or has the same objectives, and removes
+	 * the executions it dominates.
+	 * 
+	 * @param result
+	 * @return true if the execution entered the front
+	 * @throws IOException
+	 */
+	
+	public boolean add(RunResult result) throws IOException {
+		if (result.getStatus() != RunStatus.COMPLETED)
+			return false;
+		Double score = extractor.extract(result);
+		if (score == null || score.isNaN())
+			return false;
+		
+		Entry entry = new Entry(result.getCommandLine(), score, 
+				result.getWallTimeMillis(), result.getPeakRssKb());
+		synchronized (this) {
+			for (Entry e : front) {
+				if (e.dominates(entry) || e.sameObjectives(entry))
+					return false;
+			}
+			for (int i = front.size() - 1; i >= 0; i--) {
+				if (entry.dominates(front.get(i)))
+					front.remove(i);
+			}
+			front.add(entry);
+		}
+		return true;
+	}
+	
+	/**
+	 * @return the executions of the front, from the best score to the
+	 * worst
+	 */
+	
+	public synchronized ArrayList<Entry> getFront() {
+		ArrayList<Entry> sorted = new ArrayList<Entry>(front);
+		Collections.sort(sorted, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b) {
+				return maximize ? Double.compare(b.score, a.score) 
+						: Double.compare(a.score, b.score);
+			}
+		});
+		return sorted;
+	}
+	
+	/**
+	 * Returns the fastest execution whose score is within "tolerance"
+	 * (relative to the best score, e.g. 0.005 for 0.5%) of the best.
+	 * 
+	 * @param tolerance
+	 * @return null if the front is empty
+	 */
+	
+	public synchronized Entry fastestWithin(double tolerance) {
+		ArrayList<Entry> sorted = getFront();
+		if (sorted.isEmpty())
+			return null;
+		double best = sorted.get(0).score;
+		double margin = Math.abs(best) * tolerance;
+		
+		Entry fastest = null;
+		for (Entry e : sorted) {
+			boolean close = maximize ? e.score >= best - margin 
+					: e.score <= best + margin;
+			if (close && (fastest == null || e.time() < fastest.time()))
+				fastest = e;
+		}
+		return fastest;
+	}
+	
+	/**
+	 * @return the lines describing the front, one for each execution,
+	 * from the best score to the worst
+	 */
+	
+	public ArrayList<String> summary() {
+		ArrayList<String> lines = new ArrayList<String>();
+		for (Entry e : getFront())
+			lines.add(e.toString());
+		return lines;
+	}
+	
+	@Override
+	public String toString() {
+		return "ParetoFront [extractor=" + extractor + ", maximize=" + maximize + "]";
+	}
+	
+	/**
+	 * An execution of the front with its objectives.
+	 */
+	
+	public class Entry {
+		private String commandLine;
+		private double score;
+		private long wallTimeMillis;
+		private long peakRssKb;
+		
+		private Entry(String commandLine, double score, long wallTimeMillis,
+				long peakRssKb) {
+			this.commandLine = commandLine;
+			this.score = score;
+			this.wallTimeMillis = wallTimeMillis;
+			this.peakRssKb = peakRssKb;
+		}
+		
+		public String getCommandLine() {
+			return commandLine;
+		}
+		
+		public double getScore() {
+			return score;
+		}
+		
+		public long getWallTimeMillis() {
+			return wallTimeMillis;
+		}
+		
+		public long getPeakRssKb() {
+			return peakRssKb;
+		}
+		
+		private long time() {
+			return (wallTimeMillis < 0) ? Long.MAX_VALUE : wallTimeMillis;
+		}
+		
+		private long memory() {
+			return (peakRssKb < 0) ? Long.MAX_VALUE : peakRssKb;
+		}
+		
+		private boolean dominates(Entry other) {
+			int byScore = maximize ? Double.compare(score, other.score) 
+					: Double.compare(other.score, score);
+			if (byScore < 0 || time() > other.time() || memory() > other.memory())
+				return false;
+			return byScore > 0 || time() < other.time() || memory() < other.memory();
+		}
+		
+		private boolean sameObjectives(Entry other) {
+			return score == other.score && time() == other.time() 
+					&& memory() == other.memory();
+		}
+		
+		@Override
+		public String toString() {
+			return "score=" + score + " " + RunResult.WALL_TIME + "=" + wallTimeMillis 
+					+ " " + RunResult.PEAK_RSS + "=" + peakRssKb + " " + commandLine;
+		}
+	}
+}
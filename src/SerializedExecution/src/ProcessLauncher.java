@@ -0,0 +1,196 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class ProcessLauncher runs each execution of the EC in a new JVM
+ * through the command "java -jar", reading the answers from the 
+ * standard output of the child process while it runs. The standard
+ * error is drained at the same time by another thread, so that an EC
+ * writing a lot on it cannot block on a full pipe.
+ * 
+ * The peak resident memory of the process is sampled while it runs
+ * (on Linux, see Launcher.readPeakRss()) and recorded in its answers,
+ * together with its exit status.
+ */
+
+public class ProcessLauncher extends Launcher {
+	private static final long RSS_SAMPLING_MILLIS = 50;
+	
+	/*
+	 * Threads draining the standard error of the running processes
+	 */
+	private static final ExecutorService drainers = 
+			Executors.newCachedThreadPool(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ec-stderr");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+	
+	private String ecPath;
+	private Set<Process> running;
+	
+	public ProcessLauncher(String ecPath) {
+		this.ecPath = ecPath;
+		this.running = ConcurrentHashMap.newKeySet();
+	}
+	
+	/**
+	 * This method invokes the O.S. in order to execute an external 
+	 * classifier. The answers are read while they are produced.
+	 * If the timeout expires, or the launcher is cancelled, the 
+	 * process and all its descendants are killed.
+	 * 
+	 * @param arguments
+	 * @throws RunAbortedException
+	 * @throws IOException
+	 */
+	
+	@Override
+	public CapturedOutput launch(String[] arguments) throws IOException {
+		String[] commandLine = new String[arguments.length + 3];
+		commandLine[0] = "java";
+		commandLine[1] = "-jar";
+		commandLine[2] = ecPath;
+		System.arraycopy(arguments, 0, commandLine, 3, arguments.length);
+		
+		checkCancelled();
+		final Process proc = new ProcessBuilder(commandLine).start();
+		running.add(proc);
+		drainers.execute(new Runnable() {
+			@Override
+			public void run() {
+				drain(proc.getErrorStream());
+			}
+		});
+		
+		/*
+		 * VmHWM only grows, but it cannot be read once the process has
+		 * exited: the last value read is the best estimate of the peak
+		 */
+		
+		final AtomicLong peakRss = new AtomicLong(-1);
+		ScheduledFuture<?> sampling = scheduleSampling(new Runnable() {
+			@Override
+			public void run() {
+				long rss = readPeakRss(proc.pid());
+				if (rss > peakRss.get())
+					peakRss.set(rss);
+			}
+		}, RSS_SAMPLING_MILLIS);
+		
+		final AtomicBoolean timedOut = new AtomicBoolean(false);
+		ScheduledFuture<?> timeout = scheduleTimeout(new Runnable() {
+			@Override
+			public void run() {
+				timedOut.set(true);
+				destroyTree(proc);
+			}
+		});
+		
+		try {
+			checkCancelled();
+			CapturedOutput output = capture(proc.getInputStream());
+			
+			try {
+				sampling.cancel(false);
+				output.setPeakRssKb(Math.max(peakRss.get(), readPeakRss(proc.pid())));
+				output.setExitCode(proc.waitFor());
+				checkAborted(timedOut.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				output.discard();
+				throw new IOException("Interrupted while waiting for the EC", e);
+			} catch (RunAbortedException e) {
+				output.discard();
+				throw e;
+			}
+			return output;
+		} catch (RunAbortedException e) {
+			throw e;
+		} catch (IOException e) {
+			// reading fails when the process is killed
+			checkAborted(timedOut.get());
+			throw e;
+		} finally {
+			sampling.cancel(false);
+			if (timeout != null)
+				timeout.cancel(false);
+			running.remove(proc);
+			if (timedOut.get() || isCancelled())
+				destroyTree(proc);
+		}
+	}
+	
+	/**
+	 * Throws a RunAbortedException if the execution has been stopped.
+	 * 
+	 * @param timedOut
+	 * @throws RunAbortedException
+	 */
+	
+	private void checkAborted(boolean timedOut) throws RunAbortedException {
+		if (timedOut)
+			throw new RunAbortedException(RunStatus.TIMEOUT);
+		checkCancelled();
+	}
+	
+	/**
+	 * Reads and discards everything written on "in": the standard
+	 * error of the EC is not part of its answers.
+	 * 
+	 * @param in
+	 */
+	
+	private static void drain(InputStream in) {
+		byte[] buffer = new byte[8192];
+		try {
+			while (in.read(buffer) != -1)
+				;
+		} catch (IOException e) {
+			// the process has been killed
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// nothing left to release
+			}
+		}
+	}
+	
+	@Override
+	protected void abortRunning() {
+		for (Process proc : running)
+			destroyTree(proc);
+	}
+
+	@Override
+	public String toString() {
+		return "ProcessLauncher [ecPath=" + ecPath + "]";
+	}
+}
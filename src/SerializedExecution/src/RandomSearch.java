@@ -0,0 +1,97 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.SplittableRandom;
+
+/**
+ * The class RandomSearch evaluates "budget" combinations of parameters
+ * drawn uniformly at random, which for configurations with many 
+ * variables explores every variable far better than a grid with the
+ * same number of combinations.
+ * 
+ * Each Variable takes either any value in [start, end] or, when 
+ * "snapToGrid" is set, one of its values start + i * step. Params always
+ * take their value. In the latter case the combinations are distinct:
+ * they are the first "budget" ones of a pseudo-random permutation of 
+ * the grid (see IndexPermutation), so at most all the combinations of
+ * the grid are evaluated.
+ * 
+ * The combinations only depend on "seed" and on their index, which
+ * is used to compute each one directly: the sequence is reproducible 
+ * and can be generated from any index, in any order.
+ */
+
+public class RandomSearch extends SampledSearch {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	private long seed;
+	private boolean snapToGrid;
+	
+	public RandomSearch(long budget, long seed, boolean snapToGrid) {
+		super(budget);
+		this.seed = seed;
+		this.snapToGrid = snapToGrid;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	public boolean isSnapToGrid() {
+		return snapToGrid;
+	}
+	
+	@Override
+	public long getCombinationCount(ParameterGrid grid) {
+		return snapToGrid ? Math.min(getBudget(), grid.size()) : getBudget();
+	}
+	
+	@Override
+	protected Sampler newSampler(final ParameterGrid grid) {
+		if (snapToGrid) {
+			final IndexPermutation permutation = 
+					new IndexPermutation(grid.size(), seed);
+			return new Sampler() {
+				@Override
+				public float[] combinationAt(long index) {
+					return grid.vectorAt(permutation.apply(index));
+				}
+			};
+		}
+		
+		return new Sampler() {
+			@Override
+			public float[] combinationAt(long index) {
+				/*
+				 * The generator of the combination "index" is seeded with
+				 * the index-th value of a SplittableRandom seeded with "seed"
+				 */
+				
+				SplittableRandom random = new SplittableRandom(
+						IndexPermutation.mix64(seed + (index + 1) * GOLDEN_GAMMA));
+				double[] position = new double[grid.getVariableCount()];
+				for (int i = 0; i < position.length; i++)
+					position[i] = random.nextDouble();
+				return grid.pointAt(position);
+			}
+		};
+	}
+	
+	@Override
+	public String toString() {
+		return "RandomSearch [budget=" + getBudget() + ", seed=" + seed 
+				+ ", snapToGrid=" + snapToGrid + "]";
+	}
+}
@@ -0,0 +1,304 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class ResultCache stores in the database the answers of the
+ * completed executions, keyed by the fingerprint of the EC jar, the 
+ * values of the parameters and the fingerprints of the train and test
+ * sets (see Fingerprinter). An execution whose key is found is not
+ * launched again: its answers are served from the cache.
+ * 
+ * Only completed executions (i.e. the EC exited with status 0) whose
+ * answers fit in memory (see CapturedOutput.isSpilled()) are stored.
+ * The new entries are buffered and inserted in a single transaction 
+ * every "BATCH_SIZE" entries and when the cache is flushed. A full 
+ * batch is queued to the writer of the database (see 
+ * DatabaseAccess.enqueue()) without waiting for its commit, so the 
+ * executions never wait for the database; flush() waits for all the
+ * queued batches.
+ * 
+ * Note that the cache assumes the EC to be deterministic: the answers
+ * of an execution only depend on its jar, parameters and data sets.
+ */
+
+public class ResultCache {
+	private static final int BATCH_SIZE = 256;
+	
+	private Database database;
+	private Fingerprinter fingerprinter;
+	private ArrayList<Entry> batch;
+	private ArrayList<Future<Void>> pending;
+	private AtomicLong hits;
+	private AtomicLong misses;
+	
+	public ResultCache(Database database) {
+		this.database = database;
+		this.fingerprinter = new Fingerprinter(database);
+		this.batch = new ArrayList<Entry>();
+		this.pending = new ArrayList<Future<Void>>();
+		this.hits = new AtomicLong(0);
+		this.misses = new AtomicLong(0);
+	}
+	
+	public Fingerprinter getFingerprinter() {
+		return fingerprinter;
+	}
+	
+	/**
+	 * Builds the key of the execution of the EC located at "ecPath" 
+	 * with the parameters "parameters" on the given train and test set.
+	 * 
+	 * @param ecPath
+	 * @param parameters the values of the parameters, as passed to the EC
+	 * @param trainPath
+	 * @param testPath
+	 * @return Key
+	 * @throws IOException if a file cannot be read
+	 */
+	
+	public Key key(String ecPath, String parameters, String trainPath, 
+			String testPath) throws IOException {
+		return new Key(fingerprinter.fingerprint(ecPath), parameters.trim(), 
+				fingerprinter.fingerprint(trainPath), fingerprinter.fingerprint(testPath));
+	}
+	
+	/**
+	 * @param key
+	 * @return the cached execution with key "key", or null on a miss
+	 * @throws IOException
+	 */
+	
+	public Entry lookup(Key key) throws IOException {
+		Entry entry;
+		try {
+			entry = database.retrieveCachedResult(key);
+		} catch (SQLException e) {
+			throw new IOException("Unable to read the result cache", e);
+		}
+		if (entry == null)
+			misses.incrementAndGet();
+		else
+			hits.incrementAndGet();
+		return entry;
+	}
+	
+	/**
+	 * Stores the result of the execution with key "key", if it is
+	 * completed and its answers are in memory.
+	 * 
+	 * @param key
+	 * @param result
+	 * @throws IOException
+	 */
+	
+	public void store(Key key, RunResult result) throws IOException {
+		if (result.getStatus() != RunStatus.COMPLETED || result.getOutput() == null
+				|| result.getOutput().isSpilled())
+			return;
+		
+		Entry entry = new Entry(key, result.getOutput().readAllLines(), 
+				result.getWallTimeMillis(), result.getPeakRssKb());
+		ArrayList<Entry> full = null;
+		synchronized (this) {
+			batch.add(entry);
+			if (batch.size() >= BATCH_SIZE)
+				full = takeBatch();
+		}
+		if (full != null)
+			insert(full);
+	}
+	
+	/**
+	 * Inserts the buffered entries in the database and waits until 
+	 * all the queued batches are committed.
+	 * 
+	 * @throws IOException if a batch could not be stored
+	 */
+	
+	public void flush() throws IOException {
+		ArrayList<Entry> last;
+		synchronized (this) {
+			last = takeBatch();
+		}
+		insert(last);
+		
+		ArrayList<Future<Void>> queued;
+		synchronized (this) {
+			queued = pending;
+			pending = new ArrayList<Future<Void>>();
+		}
+		IOException failure = null;
+		boolean interrupted = false;
+		for (Future<Void> future : queued) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null)
+						failure = new IOException("Unable to store the result cache", 
+								e.getCause());
+					break;
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		if (failure != null)
+			throw failure;
+	}
+	
+	/**
+	 * Removes every execution from the cache, including the ones 
+	 * not flushed yet: the next lookups are all misses.
+	 * 
+	 * @throws IOException
+	 */
+	
+	public void clear() throws IOException {
+		synchronized (this) {
+			batch.clear();
+		}
+		try {
+			database.clearCachedResults();
+		} catch (SQLException e) {
+			throw new IOException("Unable to clear the result cache", e);
+		}
+	}
+	
+	/**
+	 * Replaces the batch with an empty one. The caller must hold the
+	 * lock of the cache.
+	 * 
+	 * @return the buffered entries
+	 */
+	
+	private ArrayList<Entry> takeBatch() {
+		ArrayList<Entry> pending = batch;
+		batch = new ArrayList<Entry>();
+		return pending;
+	}
+	
+	/**
+	 * Queues the insertion of "entries" in the database.
+	 * 
+	 * @param entries
+	 * @throws IOException
+	 */
+	
+	private void insert(ArrayList<Entry> entries) throws IOException {
+		try {
+			Future<Void> future = database.insertCachedResults(entries);
+			synchronized (this) {
+				pending.add(future);
+			}
+		} catch (SQLException e) {
+			throw new IOException("Unable to store the result cache", e);
+		}
+	}
+	
+	public long getHits() {
+		return hits.get();
+	}
+	
+	public long getMisses() {
+		return misses.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "ResultCache [hits=" + getHits() + ", misses=" + getMisses() + "]";
+	}
+	
+	/**
+	 * The key of an execution.
+	 */
+	
+	public static class Key {
+		private String ecHash;
+		private String parameters;
+		private String trainHash;
+		private String testHash;
+		
+		public Key(String ecHash, String parameters, String trainHash, 
+				String testHash) {
+			this.ecHash = ecHash;
+			this.parameters = parameters;
+			this.trainHash = trainHash;
+			this.testHash = testHash;
+		}
+		
+		public String getEcHash() {
+			return ecHash;
+		}
+		
+		public String getParameters() {
+			return parameters;
+		}
+		
+		public String getTrainHash() {
+			return trainHash;
+		}
+		
+		public String getTestHash() {
+			return testHash;
+		}
+	}
+	
+	/**
+	 * A cached execution: its key, its answers and the resources it 
+	 * used.
+	 */
+	
+	public static class Entry {
+		private Key key;
+		private ArrayList<String> answers;
+		private long wallTimeMillis;
+		private long peakRssKb;
+		
+		public Entry(Key key, ArrayList<String> answers, long wallTimeMillis,
+				long peakRssKb) {
+			this.key = key;
+			this.answers = answers;
+			this.wallTimeMillis = wallTimeMillis;
+			this.peakRssKb = peakRssKb;
+		}
+		
+		public Key getKey() {
+			return key;
+		}
+		
+		public ArrayList<String> getAnswers() {
+			return answers;
+		}
+		
+		public long getWallTimeMillis() {
+			return wallTimeMillis;
+		}
+		
+		public long getPeakRssKb() {
+			return peakRssKb;
+		}
+	}
+}
@@ -32,12 +32,22 @@ public class ResultContainer {
 		this.rs = rs;
 	}
 	
+	/*
+	 * The statement of "rs" is kept open (e.g. it is cached by 
+	 * the Database), only the ResultSet is released
+	 */
+	
+	public ResultContainer(ResultSet rs){
+		this(null, rs);
+	}
+	
 	public ResultSet getRs() {
 		return rs;
 	}
 
 	public void close() throws SQLException {
-		pst.close();
+		if (pst != null)
+			pst.close();
 		rs.close();
 	}
 }
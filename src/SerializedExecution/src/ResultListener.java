@@ -0,0 +1,26 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+
+/**
+ * A ResultListener receives the result of every execution of the EC
+ * as soon as it is available. The method can be invoked concurrently
+ * by the threads running the executions.
+ */
+
+public interface ResultListener {
+	public void resultReady(RunResult result) throws IOException;
+}
@@ -0,0 +1,35 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+
+/**
+ * Thrown by a Launcher when an execution of the EC has been stopped
+ * before its end, because of a timeout or of a cancellation.
+ */
+
+public class RunAbortedException extends IOException {
+	private static final long serialVersionUID = 1L;
+	private RunStatus status;
+	
+	public RunAbortedException(RunStatus status) {
+		super("Execution stopped: " + status.name());
+		this.status = status;
+	}
+	
+	public RunStatus getStatus() {
+		return status;
+	}
+}
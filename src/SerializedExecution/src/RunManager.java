@@ -16,12 +16,15 @@
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
 
+import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
@@ -41,10 +44,35 @@ public class RunManager implements Runnable {
 	private Database database;
 	private Output outputSet;
 	private JFrame parent;
+	private int workers;
+	private boolean virtualThreads;
+	private int maxLiveProcesses;
+	private LaunchMode launchMode;
+	private int invocationsPerWorker;
+	private long timeoutMillis;
+	private SearchStrategy searchStrategy;
+	private SuccessiveHalving successiveHalving;
+	private EarlyStopping earlyStopping;
+	private ParetoFront paretoFront;
+	private CrossValidation crossValidation;
+	private boolean resultCache;
+	private volatile Serializer serializer;
 
 	public RunManager(Database database) {
 		this.database = database;
 		outputSet = new Output();
+		workers = Runtime.getRuntime().availableProcessors();
+		virtualThreads = false;
+		maxLiveProcesses = workers;
+		launchMode = LaunchMode.PROCESS;
+		invocationsPerWorker = 100;
+		timeoutMillis = 0;
+		searchStrategy = new GridSearch();
+		successiveHalving = null;
+		earlyStopping = null;
+		paretoFront = null;
+		crossValidation = null;
+		resultCache = false;
 		resetModels();
 	}
 
@@ -52,6 +80,244 @@ public class RunManager implements Runnable {
 		return this.outputSet;
 	}
 	
+	public int getWorkers() {
+		return workers;
+	}
+	
+	/**
+	 * Sets the number of EC executions that the Serializer
+	 * is allowed to run at the same time (by default the 
+	 * number of available processors).
+	 * 
+	 * @param workers
+	 */
+	
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+	
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+	
+	/**
+	 * Selects the execution mode based on one virtual thread per
+	 * command line, with at most "maxLiveProcesses" EC processes
+	 * alive at the same time.
+	 * 
+	 * @param virtualThreads
+	 * @param maxLiveProcesses
+	 */
+	
+	public void setVirtualThreads(boolean virtualThreads, int maxLiveProcesses) {
+		this.virtualThreads = virtualThreads;
+		this.maxLiveProcesses = maxLiveProcesses;
+	}
+	
+	public LaunchMode getLaunchMode() {
+		return launchMode;
+	}
+	
+	/**
+	 * Selects how the EC is run for each command line: a new JVM
+	 * per command line, the EC loaded in the running JVM, or a pool
+	 * of warm worker JVMs (see LaunchMode).
+	 * 
+	 * @param launchMode
+	 */
+	
+	public void setLaunchMode(LaunchMode launchMode) {
+		this.launchMode = launchMode;
+	}
+	
+	/**
+	 * Sets the number of executions served by a worker JVM before 
+	 * it is replaced, when LaunchMode.WORKER_POOL is selected.
+	 * 
+	 * @param invocationsPerWorker
+	 */
+	
+	public void setInvocationsPerWorker(int invocationsPerWorker) {
+		this.invocationsPerWorker = invocationsPerWorker;
+	}
+	
+	public long getTimeout() {
+		return timeoutMillis;
+	}
+	
+	/**
+	 * Sets the maximum wall-clock time of each execution of the EC
+	 * (zero means no limit).
+	 * 
+	 * @param timeoutMillis
+	 */
+	
+	public void setTimeout(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+	
+	public SearchStrategy getSearchStrategy() {
+		return searchStrategy;
+	}
+	
+	/**
+	 * Sets the strategy choosing the combinations of parameters that
+	 * are evaluated: all of them (GridSearch, the default), a 
+	 * sample of them (e.g. RandomSearch) or the ones proposed from
+	 * the previous results (e.g. TpeSearch). Sweeps driven by an 
+	 * AdaptiveSearch are not checkpointed.
+	 * 
+	 * @param searchStrategy
+	 */
+	
+	public void setSearchStrategy(SearchStrategy searchStrategy) {
+		this.searchStrategy = searchStrategy;
+	}
+	
+	public SuccessiveHalving getSuccessiveHalving() {
+		return successiveHalving;
+	}
+	
+	/**
+	 * Enables the multi-fidelity mode: the combinations of the search
+	 * strategy are run by "successiveHalving" on growing fractions of
+	 * the selected data sets. The final ranking of the combinations is
+	 * written to "ranking.txt" next to the output file. Multi-fidelity
+	 * sweeps are not checkpointed. Passing null disables the mode.
+	 * 
+	 * @param successiveHalving
+	 */
+	
+	public void setSuccessiveHalving(SuccessiveHalving successiveHalving) {
+		this.successiveHalving = successiveHalving;
+	}
+	
+	public CrossValidation getCrossValidation() {
+		return crossValidation;
+	}
+	
+	/**
+	 * Enables the k-fold cross validation: the first selected test set
+	 * is split into folds and every combination is run only on the
+	 * matching train/test folds (the selected train sets are not used).
+	 * The mean and the standard deviation over the folds of each 
+	 * combination are written to "folds.txt" next to the output file.
+	 * It takes the place of the multi-fidelity mode, and the sweep is
+	 * not checkpointed. Passing null disables it.
+	 * 
+	 * @param crossValidation
+	 */
+	
+	public void setCrossValidation(CrossValidation crossValidation) {
+		this.crossValidation = crossValidation;
+	}
+	
+	public EarlyStopping getEarlyStopping() {
+		return earlyStopping;
+	}
+	
+	/**
+	 * Sets the rules that stop a sweep before all its command lines
+	 * have run (see EarlyStopping). When a rule fires, the rule and the
+	 * best score are written to "stopped.txt" next to the output file.
+	 * The cancelled runs are not checkpointed, so running the same plan
+	 * again resumes the sweep. Passing null disables early stopping.
+	 * 
+	 * @param earlyStopping
+	 */
+	
+	public void setEarlyStopping(EarlyStopping earlyStopping) {
+		this.earlyStopping = earlyStopping;
+	}
+	
+	public ParetoFront getParetoFront() {
+		return paretoFront;
+	}
+	
+	/**
+	 * Sets the front of the executions that are not dominated on score,
+	 * wall time and peak memory (see ParetoFront). It is kept while 
+	 * the results arrive and written to "pareto.txt" next to the output
+	 * file at the end of the sweep. Passing null disables it.
+	 * 
+	 * @param paretoFront
+	 */
+	
+	public void setParetoFront(ParetoFront paretoFront) {
+		this.paretoFront = paretoFront;
+	}
+	
+	public boolean isResultCache() {
+		return resultCache;
+	}
+	
+	/**
+	 * Enables or disables the result cache (see ResultCache). When it
+	 * is enabled, an execution whose EC, parameters and data sets have
+	 * already been run is not launched again: its answers are read from
+	 * the database. It is disabled by default, as it must not be used 
+	 * for ECs whose answers are not deterministic.
+	 * 
+	 * @param resultCache
+	 */
+	
+	public void setResultCache(boolean resultCache) {
+		this.resultCache = resultCache;
+	}
+	
+	/**
+	 * Removes all the executions stored in the result cache, e.g.
+	 * after a change of the EC that does not alter its jar.
+	 * 
+	 * @throws IOException
+	 */
+	
+	public void clearResultCache() throws IOException {
+		new ResultCache(database).clear();
+	}
+	
+	/**
+	 * Cancels the running serialized execution, if any. The results
+	 * collected so far are written to the output file.
+	 */
+	
+	public void cancel() {
+		Serializer s = serializer;
+		if (s != null)
+			s.cancel();
+	}
+	
+	/**
+	 * Creates the launcher for the EC located at "ecPath" according
+	 * to the selected launch mode. When the System.exit() calls of an
+	 * in-process EC cannot be trapped, the EC is run by a pool of 
+	 * worker JVMs instead.
+	 * 
+	 * @param ecPath
+	 * @return Launcher
+	 * @throws IOException
+	 */
+	
+	private Launcher createLauncher(String ecPath) throws IOException {
+		LaunchMode mode = launchMode;
+		if (mode == LaunchMode.IN_PROCESS && !InProcessLauncher.isExitTrapped()) {
+			System.err.println("System.exit() cannot be trapped in this JVM: "
+					+ "the EC runs in a pool of worker JVMs");
+			mode = LaunchMode.WORKER_POOL;
+		}
+		
+		switch (mode) {
+			case IN_PROCESS:
+				return new InProcessLauncher(ecPath);
+			case WORKER_POOL:
+				return new WorkerPoolLauncher(ecPath, 
+						virtualThreads ? maxLiveProcesses : workers,
+						invocationsPerWorker);
+			default:
+				return new ProcessLauncher(ecPath);
+		}
+	}
+	
 	public void setParent(JFrame parent){
 		this.parent = parent;
 	}
@@ -130,9 +396,17 @@ public class RunManager implements Runnable {
 		
 		panel.add(textArea);
 		
+		JButton btnCancel = new JButton("Cancel");
+		btnCancel.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				cancel();
+			}
+		});
+		panel.add(btnCancel);
+		
 		frame.add(panel);
 		frame.setTitle("Work in progress. Please wait");
-		frame.setSize(300, 300);
+		frame.setSize(300, 340);
 		frame.setLocationRelativeTo(null);
 		frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
 		frame.setVisible(true);
@@ -222,19 +496,105 @@ public class RunManager implements Runnable {
 							.toString(configurationId));
 			
 			ArrayList<String> testSetPath = new ArrayList<String>();
-			for (Model m : model.get(FileType.TEST.ordinal()))
+			ArrayList<Integer> testSetIds = new ArrayList<Integer>();
+			for (Model m : model.get(FileType.TEST.ordinal())) {
 				testSetPath.add(m.getPath());
+				testSetIds.add(m.getId());
+			}
 			
 			ArrayList<String> trainSetPath = new ArrayList<String>();
-			for (Model m : model.get(FileType.TRAIN.ordinal()))
+			ArrayList<Integer> trainSetIds = new ArrayList<Integer>();
+			for (Model m : model.get(FileType.TRAIN.ordinal())) {
 				trainSetPath.add(m.getPath());
+				trainSetIds.add(m.getId());
+			}
+			
+			Model ec = model.get(FileType.EC.ordinal()).get(0);
+			String ecPath = ec.getPath();
+			Serializer s = new Serializer(val, ecPath, testSetPath, trainSetPath);
+			s.setWorkers(workers);
+			s.setVirtualThreads(virtualThreads);
+			s.setMaxLiveProcesses(maxLiveProcesses);
+			s.setLauncher(createLauncher(ecPath));
+			s.setTimeout(timeoutMillis);
+			s.setSearchStrategy(searchStrategy);
+			s.setMetrics(database.retrieveMetrics(ec.getId()));
+			if (resultCache)
+				s.setResultCache(new ResultCache(database));
+			ParameterConstraints constraints = 
+					database.retrieveConstraints(configurationId);
+			s.setConstraints(constraints.isEmpty() ? null : constraints);
+			long pruned = s.countPrunedCombinations();
+			ResultListener listener = outputSet;
+			if (paretoFront != null)
+				listener = paretoFront.track(listener);
+			EarlyStopping.Watch watch = null;
+			if (earlyStopping != null) {
+				watch = earlyStopping.watch(s, listener);
+				listener = watch;
+			}
+			s.setResultListener(listener);
 			
-			Serializer s = new Serializer(val, 
-					model.get(FileType.EC.ordinal()).get(0).getPath(),
-					testSetPath, trainSetPath);
+			/*
+			 * The runs completed by a previous, interrupted, sweep with
+			 * the same plan are skipped and their answers are kept
+			 */
 			
-			outputSet.setMapOfValues(s.run());
-			outputSet.writeToFile();
+			SweepCheckpoint checkpoint = null;
+			if (successiveHalving == null && crossValidation == null
+					&& !(searchStrategy instanceof AdaptiveSearch)
+					&& s.getRunCount() <= Integer.MAX_VALUE) {
+				checkpoint = new SweepCheckpoint(database, new SweepPlan(ec.getId(),
+						configurationId, trainSetIds, testSetIds, val, searchStrategy,
+						constraints), s.getRunCount());
+				checkpoint.setPrunedRuns(pruned 
+						* (s.getRunCount() / Math.max(1, s.getCombinationCount())));
+				s.setCompletedRuns(checkpoint.getCompletedRuns());
+			}
+			outputSet.setFlushedListener(checkpoint);
+			
+			/*
+			 * The pruned combinations are reported before the first launch
+			 */
+			
+			if (!constraints.isEmpty()) {
+				ArrayList<String> report = new ArrayList<String>();
+				report.add("Rules: " + constraints);
+				report.add("Combinations: " + s.getCombinationCount());
+				report.add("Pruned: " + ((pruned < 0) ? "unknown" : Long.toString(pruned)));
+				outputSet.writeSummary("pruned.txt", report);
+			}
+			
+			serializer = s;
+			outputSet.open(checkpoint != null && checkpoint.isResumed());
+			try {
+				if (crossValidation != null) {
+					ArrayList<String> folds = new ArrayList<String>();
+					for (CrossValidation.Summary c 
+							: crossValidation.run(s, testSetPath.get(0)))
+						folds.add(c.toString());
+					outputSet.writeSummary("folds.txt", folds);
+				} else if (successiveHalving == null) {
+					s.run();
+				} else {
+					ArrayList<String> ranking = new ArrayList<String>();
+					for (SuccessiveHalving.Candidate c : successiveHalving.run(s))
+						ranking.add(c.toString());
+					outputSet.writeSummary("ranking.txt", ranking);
+				}
+				if (watch != null && watch.getReason() != null)
+					outputSet.writeSummary("stopped.txt", watch.summary());
+				if (paretoFront != null)
+					outputSet.writeSummary("pareto.txt", paretoFront.summary());
+			} finally {
+				serializer = null;
+				if (watch != null)
+					watch.close();
+				s.getLauncher().close();
+				outputSet.close();
+				if (checkpoint != null)
+					checkpoint.close();
+			}
 			Thread.sleep(5000);
 			this.hideRunningWindow(frame);
 
@@ -258,7 +618,7 @@ public class RunManager implements Runnable {
 	@Override
 	public String toString() {
 		return "RunManager [model=" + model + ", database=" + database
-				+ ", outputSet=" + outputSet + "]";
+				+ ", outputSet=" + outputSet + ", workers=" + workers + "]";
 	}
 	
 	/*
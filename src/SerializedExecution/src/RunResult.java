@@ -0,0 +1,228 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class RunResult represents the outcome of a single execution of
+ * the EC: the command line, its status and, when it completed, the 
+ * answers it produced together with the values of the metrics read
+ * from them (see Metric).
+ */
+
+public class RunResult {
+	public static final String METRIC_PREFIX = "metric ";
+	public static final String WALL_TIME = "wall_time_ms";
+	public static final String PEAK_RSS = "peak_rss_kb";
+	
+	private String commandLine;
+	private long runIndex;
+	private float[] combination;
+	private CapturedOutput output;
+	private RunStatus status;
+	private LinkedHashMap<String, Double> metrics;
+	private long wallTimeMillis;
+	private boolean cached;
+	
+	public RunResult(String commandLine, CapturedOutput output, RunStatus status) {
+		this(commandLine, -1, output, status);
+	}
+	
+	public RunResult(String commandLine, long runIndex, CapturedOutput output, 
+			RunStatus status) {
+		this(commandLine, runIndex, null, output, status);
+	}
+	
+	public RunResult(String commandLine, long runIndex, float[] combination,
+			CapturedOutput output, RunStatus status) {
+		this.commandLine = commandLine;
+		this.runIndex = runIndex;
+		this.combination = combination;
+		this.output = output;
+		this.status = status;
+		this.metrics = new LinkedHashMap<String, Double>();
+		this.wallTimeMillis = -1;
+		this.cached = false;
+	}
+	
+	public String getCommandLine() {
+		return commandLine;
+	}
+	
+	/**
+	 * @return the position of the execution in the sweep (see 
+	 * Serializer.getRunCount()), or -1 if it is unknown
+	 */
+	
+	public long getRunIndex() {
+		return runIndex;
+	}
+	
+	/**
+	 * @return the combination of parameters of the execution, or null
+	 * if it is unknown
+	 */
+	
+	public float[] getCombination() {
+		return combination;
+	}
+	
+	/**
+	 * @return the answers of the execution, or null if it did
+	 * not complete
+	 */
+	
+	public CapturedOutput getOutput() {
+		return output;
+	}
+	
+	public RunStatus getStatus() {
+		return status;
+	}
+	
+	/**
+	 * @return the wall-clock time of the execution in milliseconds,
+	 * or -1 if it is unknown
+	 */
+	
+	public long getWallTimeMillis() {
+		return wallTimeMillis;
+	}
+	
+	public void setWallTimeMillis(long wallTimeMillis) {
+		this.wallTimeMillis = wallTimeMillis;
+	}
+	
+	/**
+	 * @return true if the answers have been served by a ResultCache
+	 * instead of running the EC
+	 */
+	
+	public boolean isCached() {
+		return cached;
+	}
+	
+	public void setCached(boolean cached) {
+		this.cached = cached;
+	}
+	
+	/**
+	 * @return the peak resident set size of the execution in kB, or
+	 * -1 if it is unknown (see CapturedOutput.getPeakRssKb())
+	 */
+	
+	public long getPeakRssKb() {
+		return (output == null) ? -1 : output.getPeakRssKb();
+	}
+	
+	/**
+	 * @param name
+	 * @return the value of the metric "name", or null if it has 
+	 * not been read
+	 */
+	
+	public Double getMetric(String name) {
+		return metrics.get(name);
+	}
+	
+	public LinkedHashMap<String, Double> getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Reads the value of every metric of "metricSet" from the answers
+	 * of the execution. The metrics without a value are left out.
+	 * If "metricSet" is not empty, the wall time and the peak memory of
+	 * the execution, when known, are recorded as the metrics WALL_TIME
+	 * and PEAK_RSS.
+	 * 
+	 * @param metricSet
+	 * @throws IOException
+	 */
+	
+	public void readMetrics(Iterable<Metric> metricSet) throws IOException {
+		boolean configured = false;
+		for (Metric metric : metricSet) {
+			configured = true;
+			Double value = metric.extract(this);
+			if (value != null)
+				metrics.put(metric.getName(), value);
+		}
+		
+		if (configured && wallTimeMillis >= 0)
+			metrics.put(WALL_TIME, (double) wallTimeMillis);
+		if (configured && getPeakRssKb() >= 0)
+			metrics.put(PEAK_RSS, (double) getPeakRssKb());
+	}
+	
+	/**
+	 * Returns the lines recorded for this execution: the answers
+	 * of the EC, followed by the values of the metrics (one line
+	 * "metric name=value" each) and by the status if it did not
+	 * complete.
+	 * 
+	 * @return ArrayList<String>
+	 * @throws IOException
+	 */
+	
+	public ArrayList<String> getAnswers() throws IOException {
+		ArrayList<String> lines = (output == null) ? new ArrayList<String>()
+				: new ArrayList<String>(output.readAllLines());
+		for (Map.Entry<String, Double> metric : metrics.entrySet())
+			lines.add(METRIC_PREFIX + metric.getKey() + "=" + metric.getValue());
+		if (status != RunStatus.COMPLETED)
+			lines.add(status.toAnswer());
+		return lines;
+	}
+	
+	/**
+	 * Writes the lines recorded for this execution (see getAnswers())
+	 * to "out", one for each line.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	
+	public void writeTo(Writer out) throws IOException {
+		if (output != null)
+			output.writeTo(out);
+		for (Map.Entry<String, Double> metric : metrics.entrySet()) {
+			out.write(METRIC_PREFIX + metric.getKey() + "=" + metric.getValue());
+			out.write('\n');
+		}
+		if (status != RunStatus.COMPLETED) {
+			out.write(status.toAnswer());
+			out.write('\n');
+		}
+	}
+	
+	/**
+	 * Releases the temporary file holding the answers, if any.
+	 */
+	
+	public void discard() {
+		if (output != null)
+			output.discard();
+	}
+	
+	@Override
+	public String toString() {
+		return "RunResult [commandLine=" + commandLine + ", status=" + status + "]";
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.awt.Component;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+/**
+ * The class RunSettings shows the settings of the next serialized
+ * execution in a dialog and applies them to the RunManager when the 
+ * user confirms. The dialog keeps the values of the last time it was
+ * shown.
+ * 
+ * The score used by the adaptive strategies, the multi-fidelity mode,
+ * the cross validation, the Pareto front and the early stopping rules
+ * is the last number printed by the EC (see LastNumberExtractor).
+ */
+
+public class RunSettings {
+	private static final String[] STRATEGIES = { "Grid", "Random", "Sobol", 
+			"Latin hypercube", "TPE" };
+	
+	private RunManager runManager;
+	private JPanel panel;
+	private JTextField timeout;
+	private JComboBox<String> strategy;
+	private JTextField budget;
+	private JTextField seed;
+	private JCheckBox maximize;
+	private JTextField halvingEta;
+	private JTextField halvingFraction;
+	private JTextField folds;
+	private JCheckBox paretoFront;
+	private JTextField target;
+	private JTextField patience;
+	private JTextField timeBudget;
+	private JCheckBox resultCache;
+	
+	public RunSettings(RunManager runManager) {
+		this.runManager = runManager;
+	}
+	
+	/**
+	 * Shows the dialog until the user cancels it or confirms valid
+	 * settings.
+	 * 
+	 * @param parent
+	 * @return true if the settings have been applied
+	 */
+	
+	public boolean show(Component parent) {
+		if (panel == null)
+			build();
+		while (JOptionPane.showConfirmDialog(parent, panel, "Run settings",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE)
+				== JOptionPane.OK_OPTION) {
+			try {
+				apply();
+				return true;
+			} catch (IllegalArgumentException e) {
+				JOptionPane.showMessageDialog(parent, e.getMessage());
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Creates the fields of the dialog.
+	 */
+	
+	private void build() {
+		panel = new JPanel(new GridLayout(0, 2, 5, 5));
+		
+		timeout = new JTextField(String.valueOf(runManager.getTimeout() / 1000));
+		addRow("Timeout of a run (s, 0 = none)", timeout);
+		
+		strategy = new JComboBox<String>(STRATEGIES);
+		addRow("Search strategy", strategy);
+		budget = new JTextField("100");
+		addRow("Combinations (not for Grid)", budget);
+		seed = new JTextField("0");
+		addRow("Seed", seed);
+		maximize = new JCheckBox("", true);
+		addRow("Maximize the score", maximize);
+		halvingEta = new JTextField("0");
+		addRow("Successive halving eta (0 = off)", halvingEta);
+		halvingFraction = new JTextField("0.1");
+		addRow("Smallest data fraction", halvingFraction);
+		folds = new JTextField("0");
+		addRow("Cross validation folds (0 = off)", folds);
+		paretoFront = new JCheckBox();
+		addRow("Pareto front", paretoFront);
+		
+		target = new JTextField("");
+		addRow("Stop at score (empty = off)", target);
+		patience = new JTextField("0");
+		addRow("Stop after runs without improvement (0 = off)", patience);
+		timeBudget = new JTextField("0");
+		addRow("Stop after (s, 0 = off)", timeBudget);
+		
+		resultCache = new JCheckBox("", runManager.isResultCache());
+		addRow("Reuse the answers of previous runs (deterministic EC)", resultCache);
+		JButton clear = new JButton("Clear");
+		clear.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				try {
+					runManager.clearResultCache();
+					JOptionPane.showMessageDialog(panel, "Result cache cleared");
+				} catch (IOException ee) {
+					JOptionPane.showMessageDialog(panel, ee.getMessage());
+				}
+			}
+		});
+		addRow("Stored answers", clear);
+	}
+	
+	private void addRow(String label, Component field) {
+		panel.add(new JLabel(label));
+		panel.add(field);
+	}
+	
+	/**
+	 * Reads the fields and sets them on the RunManager. Nothing is
+	 * set if a field is not valid.
+	 * 
+	 * @throws IllegalArgumentException if a field is not valid
+	 */
+	
+	private void apply() {
+		long timeoutSeconds = readLong(timeout, "timeout");
+		SearchStrategy searchStrategy = createStrategy();
+		int eta = (int) readLong(halvingEta, "eta");
+		double fraction = readDouble(halvingFraction, "data fraction");
+		int k = (int) readLong(folds, "number of folds");
+		EarlyStopping earlyStopping = createEarlyStopping();
+		SuccessiveHalving successiveHalving = null;
+		if (eta > 0) {
+			successiveHalving = new SuccessiveHalving(eta, fraction, 
+					new LastNumberExtractor(), maximize.isSelected());
+			successiveHalving.setSeed(readLong(seed, "seed"));
+		}
+		CrossValidation crossValidation = null;
+		if (k > 0) {
+			crossValidation = new CrossValidation(k, new LastNumberExtractor());
+			crossValidation.setSeed(readLong(seed, "seed"));
+		}
+		
+		runManager.setTimeout(timeoutSeconds * 1000);
+		runManager.setSearchStrategy(searchStrategy);
+		runManager.setSuccessiveHalving(successiveHalving);
+		runManager.setCrossValidation(crossValidation);
+		runManager.setParetoFront(paretoFront.isSelected() 
+				? new ParetoFront(new LastNumberExtractor(), maximize.isSelected()) 
+				: null);
+		runManager.setEarlyStopping(earlyStopping);
+		runManager.setResultCache(resultCache.isSelected());
+	}
+	
+	/**
+	 * @return the early stopping rules set in the dialog, or null if 
+	 * no rule is set
+	 * @throws IllegalArgumentException if a rule is not valid
+	 */
+	
+	private EarlyStopping createEarlyStopping() {
+		double score = target.getText().trim().isEmpty() ? Double.NaN 
+				: readDouble(target, "score");
+		long runs = readLong(patience, "number of runs");
+		long seconds = readLong(timeBudget, "time budget");
+		if (Double.isNaN(score) && runs == 0 && seconds == 0)
+			return null;
+		
+		EarlyStopping earlyStopping = new EarlyStopping(new LastNumberExtractor(), 
+				maximize.isSelected());
+		earlyStopping.setTarget(score);
+		earlyStopping.setPatience(runs);
+		earlyStopping.setTimeBudget(seconds * 1000);
+		return earlyStopping;
+	}
+	
+	/**
+	 * @return the search strategy selected in the dialog
+	 * @throws IllegalArgumentException if its settings are not valid
+	 */
+	
+	private SearchStrategy createStrategy() {
+		if (strategy.getSelectedIndex() == 0)
+			return new GridSearch();
+		
+		long combinations = readLong(budget, "number of combinations");
+		long s = readLong(seed, "seed");
+		switch (strategy.getSelectedIndex()) {
+			case 1:
+				return new RandomSearch(combinations, s, true);
+			case 2:
+				return new SobolSearch(combinations);
+			case 3:
+				return new LatinHypercubeSearch(combinations, s);
+			default:
+				return new TpeSearch(combinations, s, new LastNumberExtractor(), 
+						maximize.isSelected());
+		}
+	}
+	
+	/**
+	 * @param field
+	 * @param name
+	 * @return the non negative number written in "field"
+	 * @throws IllegalArgumentException if it is not valid
+	 */
+	
+	private static long readLong(JTextField field, String name) {
+		try {
+			long value = Long.parseLong(field.getText().trim());
+			if (value >= 0)
+				return value;
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("Invalid " + name + ": "
+				+ field.getText());
+	}
+	
+	/**
+	 * @param field
+	 * @param name
+	 * @return the number written in "field"
+	 * @throws IllegalArgumentException if it is not valid
+	 */
+	
+	private static double readDouble(JTextField field, String name) {
+		try {
+			return Double.parseDouble(field.getText().trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + ": "
+					+ field.getText());
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+/**
+ * The possible outcomes of a single execution of an EC: it completed,
+ * it failed, it was killed because it exceeded the timeout, or it was
+ * cancelled together with the whole serialized execution.
+ */
+
+public enum RunStatus { 
+	COMPLETED, FAILED, TIMEOUT, CANCELLED;
+	
+	/**
+	 * @return the line recorded among the answers of an execution
+	 * that did not complete
+	 */
+	
+	public String toAnswer() {
+		return "STATUS: " + name();
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+/**
+ * The class SampledSearch is the base of the search strategies that 
+ * evaluate a fixed number ("budget") of combinations, each computed 
+ * directly from its index by a Sampler. The combinations can then be
+ * generated from any index, which makes them reproducible and allows
+ * an interrupted sweep to be resumed.
+ */
+
+public abstract class SampledSearch implements SearchStrategy {
+	private long budget;
+	
+	public SampledSearch(long budget) {
+		this.budget = Math.max(0, budget);
+	}
+	
+	public long getBudget() {
+		return budget;
+	}
+	
+	@Override
+	public long getCombinationCount(ParameterGrid grid) {
+		return budget;
+	}
+	
+	@Override
+	public CombinationSource combinations(ParameterGrid grid, final long first) {
+		final long fence = getCombinationCount(grid);
+		final Sampler sampler = newSampler(grid);
+		return new CombinationSource() {
+			private long index = first;
+			
+			@Override
+			public long getIndex() {
+				return index;
+			}
+			
+			@Override
+			public float[] nextCombination() {
+				if (index >= fence)
+					return null;
+				return sampler.combinationAt(index++);
+			}
+		};
+	}
+	
+	/**
+	 * Creates the sampler computing the combinations of "grid".
+	 * 
+	 * @param grid
+	 * @return Sampler
+	 */
+	
+	protected abstract Sampler newSampler(ParameterGrid grid);
+	
+	/**
+	 * Computes the combination with a given index, in [0, budget).
+	 */
+	
+	protected interface Sampler {
+		public float[] combinationAt(long index);
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+/**
+ * A SearchStrategy decides which combinations of parameters of a 
+ * ParameterGrid are evaluated by the Serializer, and in which order.
+ * 
+ * The combinations must be reproducible: asking twice for the 
+ * combinations of the same grid, starting from the same index, gives
+ * the same sequence. This allows an interrupted sweep to be resumed.
+ * The toString() of a strategy must describe all its settings, as it
+ * is part of the plan of a sweep (see SweepPlan).
+ */
+
+public interface SearchStrategy {
+	/**
+	 * @param grid
+	 * @return the number of combinations evaluated on "grid"
+	 */
+	
+	public long getCombinationCount(ParameterGrid grid);
+	
+	/**
+	 * @param grid
+	 * @param first
+	 * @return the combinations evaluated on "grid", starting from 
+	 * the one with index "first"
+	 */
+	
+	public CombinationSource combinations(ParameterGrid grid, long first);
+}
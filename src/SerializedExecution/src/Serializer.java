@@ -13,31 +13,107 @@
 
 
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The class Serializer retrieves an input configuration and produces 
- * all the combinations of parameters that will be used for the serialized
- * execution. For each combination of parameters a command line is built
- * and is launched.
+ * the combinations of parameters that will be used for the serialized
+ * execution: by default all of them, or the ones chosen by another
+ * SearchStrategy. For each combination of parameters a command line is
+ * built and is launched. The combinations are generated lazily, while
+ * the command lines are launched.
  */
 
 public class Serializer {
-	private int numberOfParameters;
-	private float[] start;
-	private float[] end;
-	private float[] step;
-	private ArrayList<String> combinations;
-	private ArrayList<String> commands;
+	private ParameterGrid grid;
+	private SearchStrategy strategy;
+	private long firstCombination;
 	private String command;
 	private ArrayList<String> testSet;
 	private ArrayList<String> trainSet;
+	private String ecPath;
+	
+	/*
+	 * When "paired" is set the i-th train set is only combined with
+	 * the i-th test set (e.g. the folds of a cross validation)
+	 */
+	private boolean paired;
+	
+	/*
+	 * "launcher" runs the EC for a single command line: by default 
+	 * a new JVM is started through "java -jar" for each command line.
+	 */
+	private Launcher launcher;
+	
+	/*
+	 * "workers" is the number of command lines that are executed
+	 * at the same time. With a single worker the command lines are
+	 * launched one after the other in the calling thread.
+	 */
+	private int workers;
+	
+	/*
+	 * When "virtualThreads" is set every command line gets its own
+	 * (virtual, if the running JVM offers them) thread, while at most
+	 * "maxLiveProcesses" EC processes are alive at the same time.
+	 */
+	private boolean virtualThreads;
+	private int maxLiveProcesses;
+	
+	/*
+	 * Set by cancel(): no more command lines are launched
+	 */
+	private volatile boolean cancelled;
+	
+	/*
+	 * Set by stopDispatching(): the running executions are left to
+	 * complete, but no more command lines are launched
+	 */
+	private volatile boolean stopped;
+	private long timeoutMillis;
+	private long maxBufferedBytes;
+	
+	/*
+	 * When "listener" is set the results are handed to it as soon
+	 * as they are available and are not kept in "map"
+	 */
+	private ResultListener listener;
+	
+	/*
+	 * The executions whose index (see getRunCount()) is set in 
+	 * "completedRuns" are skipped
+	 */
+	private BitSet completedRuns;
+	
+	/*
+	 * When "cache" is set, the executions found in it are not launched
+	 * again. The paths of the train and test set of every pair are
+	 * set by run().
+	 */
+	private ResultCache cache;
+	private String[] pairTrainPaths;
+	private String[] pairTestPaths;
+	
+	/*
+	 * The metrics read from the answers of every execution
+	 */
+	private ArrayList<Metric> metrics;
+	
+	/*
+	 * The combinations violating "constraints", or made redundant by 
+	 * its conditions, are not launched
+	 */
+	private ParameterConstraints constraints;
 	
 	/*
 	 * "map" contains as key the command line that will be launched 
@@ -48,37 +124,417 @@ public class Serializer {
 	
 	public Serializer(ArrayList<NumericElement> val, String ecPath,
 			ArrayList<String> testSet, ArrayList<String> trainSet) {
-		numberOfParameters = val.size();
-		start = new float[numberOfParameters];
-		end = new float[numberOfParameters];
-		step = new float[numberOfParameters];
-		combinations = new ArrayList<>();
-		commands = new ArrayList<>();
+		grid = new ParameterGrid(val);
+		strategy = new GridSearch();
+		firstCombination = 0;
 		command = new String("java -jar " + ecPath);
 		this.testSet = testSet;
 		this.trainSet = trainSet;
+		this.ecPath = ecPath;
+		this.paired = false;
+		this.launcher = new ProcessLauncher(ecPath);
+		this.workers = 1;
+		this.virtualThreads = false;
+		this.maxLiveProcesses = Runtime.getRuntime().availableProcessors();
+		this.cancelled = false;
+		this.stopped = false;
+		this.timeoutMillis = 0;
+		this.maxBufferedBytes = launcher.getMaxBufferedBytes();
+		this.listener = null;
+		this.completedRuns = null;
+		this.metrics = new ArrayList<Metric>();
+		this.constraints = null;
+		this.cache = null;
 		
 		map = new HashMap<String, ArrayList<String>>();
+	}
+	
+	/**
+	 * @return the number of combinations of parameters evaluated by
+	 * the search strategy (each one is run on every train/test pair)
+	 */
+	
+	public long getCombinationCount() {
+		return strategy.getCombinationCount(grid);
+	}
+	
+	public SearchStrategy getSearchStrategy() {
+		return strategy;
+	}
+	
+	/**
+	 * Sets the strategy choosing the combinations of parameters that
+	 * are evaluated (by default a GridSearch).
+	 * 
+	 * @param strategy
+	 */
+	
+	public void setSearchStrategy(SearchStrategy strategy) {
+		this.strategy = strategy;
+	}
+	
+	/**
+	 * Every combination of parameters is run on every train/test pair:
+	 * the execution of the combination with index "c" (see SearchStrategy)
+	 * on the pair with index "p" has index c * (number of pairs) + p, 
+	 * where the pairs are ordered by train set and then by test set
+	 * (see setPaired() for the pairs of paired data sets).
+	 * 
+	 * @return the number of executions of the EC
+	 */
+	
+	public long getRunCount() {
+		return Math.multiplyExact(getCombinationCount(), getPairCount());
+	}
+	
+	/**
+	 * @return the number of train/test pairs each combination is run on
+	 */
+	
+	public long getPairCount() {
+		if (paired)
+			return testSet.size();
+		return (long) testSet.size() * Math.max(1, trainSet.size());
+	}
+	
+	/**
+	 * Makes the executions whose index (see getRunCount()) is set in
+	 * "completedRuns" be skipped, e.g. because they were completed 
+	 * before the sweep was interrupted.
+	 * 
+	 * @param completedRuns
+	 */
+	
+	public void setCompletedRuns(BitSet completedRuns) {
+		this.completedRuns = completedRuns;
+	}
+	
+	/**
+	 * Makes the execution start from the combination with index 
+	 * "firstCombination" (see SearchStrategy), skipping the ones 
+	 * before it.
+	 * 
+	 * @param firstCombination
+	 */
+	
+	public void setFirstCombination(long firstCombination) {
+		this.firstCombination = firstCombination;
+	}
+	
+	public ArrayList<String> getTestSet() {
+		return testSet;
+	}
+	
+	public ArrayList<String> getTrainSet() {
+		return trainSet;
+	}
+	
+	/**
+	 * Replaces the test and train sets passed to the EC. Every 
+	 * combination of parameters is run on every train/test pair.
+	 * 
+	 * @param testSet
+	 * @param trainSet
+	 */
+	
+	public void setDataSets(ArrayList<String> testSet, ArrayList<String> trainSet) {
+		this.testSet = testSet;
+		this.trainSet = trainSet;
+	}
+	
+	public boolean isPaired() {
+		return paired;
+	}
+	
+	/**
+	 * Makes the i-th train set be combined only with the i-th test 
+	 * set, instead of with every test set. The train and test sets 
+	 * must have the same size.
+	 * 
+	 * @param paired
+	 */
+	
+	public void setPaired(boolean paired) {
+		this.paired = paired;
+	}
+	
+	public Launcher getLauncher() {
+		return launcher;
+	}
+	
+	/**
+	 * Sets the launcher used to run the EC for each command line.
+	 * The command lines used as keys of the result map are not
+	 * affected by the chosen launcher.
+	 * 
+	 * @param launcher
+	 */
+	
+	public void setLauncher(Launcher launcher) {
+		this.launcher = launcher;
+	}
+	
+	public int getWorkers() {
+		return workers;
+	}
+	
+	/**
+	 * Sets the number of command lines executed concurrently.
+	 * Values lower than one are treated as one (serial execution).
+	 * 
+	 * @param workers
+	 */
+	
+	public void setWorkers(int workers) {
+		this.workers = Math.max(1, workers);
+	}
+	
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+	
+	/**
+	 * Enables the execution mode in which every command line is 
+	 * handled by its own virtual thread. Waiting for the answers
+	 * of an EC then costs almost nothing, and the only limit is
+	 * the number of live processes (see setMaxLiveProcesses()).
+	 * 
+	 * @param virtualThreads
+	 */
+	
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+	
+	public int getMaxLiveProcesses() {
+		return maxLiveProcesses;
+	}
+	
+	/**
+	 * Sets the maximum number of EC processes that can be alive at
+	 * the same time when virtual threads are used. Values lower 
+	 * than one are treated as one.
+	 * 
+	 * @param maxLiveProcesses
+	 */
+	
+	public void setMaxLiveProcesses(int maxLiveProcesses) {
+		this.maxLiveProcesses = Math.max(1, maxLiveProcesses);
+	}
+	
+	/**
+	 * Sets how many bytes of the answers of a single execution are
+	 * kept in memory while they are read (see CapturedOutput).
+	 * 
+	 * @param maxBufferedBytes
+	 */
+	
+	public void setMaxBufferedBytes(long maxBufferedBytes) {
+		this.maxBufferedBytes = maxBufferedBytes;
+	}
+	
+	/**
+	 * Sets the listener that receives the result of each execution 
+	 * as soon as it completes. When a listener is set the results
+	 * are not collected in the map returned by run(), so the memory
+	 * used does not grow with the number of combinations.
+	 * 
+	 * @param listener
+	 */
+	
+	public void setResultListener(ResultListener listener) {
+		this.listener = listener;
+	}
+	
+	public ResultListener getResultListener() {
+		return listener;
+	}
+	
+	public ResultCache getResultCache() {
+		return cache;
+	}
+	
+	/**
+	 * Sets the cache of the results of previous executions: before 
+	 * launching a command line the Serializer looks it up in the cache,
+	 * and serves its answers if found. The results of the executions
+	 * that are launched are stored in it. Passing null disables the
+	 * cache.
+	 * 
+	 * @param cache
+	 */
+	
+	public void setResultCache(ResultCache cache) {
+		this.cache = cache;
+	}
+	
+	public ParameterConstraints getConstraints() {
+		return constraints;
+	}
+	
+	/**
+	 * Sets the rules that prune the combinations before they are
+	 * launched (see ParameterConstraints): a combination violating a
+	 * constraint is skipped, and the inactive elements of a combination
+	 * take their first value. With a GridSearch the combinations that
+	 * differ from their canonical form are skipped as well, since the 
+	 * canonical one is enumerated too. Passing null disables pruning.
+	 * 
+	 * @param constraints
+	 * @throws IllegalArgumentException if a rule cannot be parsed
+	 */
+	
+	public void setConstraints(ParameterConstraints constraints) {
+		if (constraints != null)
+			constraints.bind(grid);
+		this.constraints = constraints;
+	}
+	
+	/**
+	 * Counts the combinations of the search strategy that will be 
+	 * pruned by the constraints, enumerating them without launching
+	 * anything.
+	 * 
+	 * @return the number of pruned combinations, or -1 if the strategy
+	 * is adaptive and its combinations are not known in advance
+	 */
+	
+	public long countPrunedCombinations() {
+		if (constraints == null)
+			return 0;
+		if (strategy instanceof AdaptiveSearch)
+			return -1;
 		
-		for (int index = 0; index < val.size(); index++) {
-			if (val.get(index) instanceof Param) {
-				/*
-				 * For constant values (only "start" , without "step")  
-				 * you need to have "end" = "start", "step" = 0
-				 */
-				start[index] = ((Param) val.get(index)).getValue();
-				end[index] = start[index];
-				step[index] = 0;
-			} else {
-				start[index] = ((Variable) val.get(index)).getStart();
-				end[index] = ((Variable) val.get(index)).getEnd();
-				step[index] = ((Variable) val.get(index)).getStep();
-			}
+		long pruned = 0;
+		CombinationSource combinations = strategy.combinations(grid, firstCombination);
+		float[] vector;
+		while ((vector = combinations.nextCombination()) != null) {
+			if (isPruned(vector, constraints.canonical(vector)))
+				pruned++;
 		}
+		return pruned;
+	}
+	
+	private boolean isPruned(float[] vector, float[] canonical) {
+		return !constraints.isValid(canonical) 
+				|| (strategy instanceof GridSearch && !Arrays.equals(vector, canonical));
+	}
+	
+	/**
+	 * Applies the constraints to the combination "vector", whose first
+	 * run has index "runIndex". An adaptive search observes the runs
+	 * of a pruned combination as FAILED.
+	 * 
+	 * @param vector
+	 * @param runIndex
+	 * @param trainAndTest
+	 * @return the canonical form of "vector", or null if it is pruned
+	 * @throws IOException
+	 */
+	
+	private float[] prune(float[] vector, long runIndex, String[] trainAndTest)
+			throws IOException {
+		if (constraints == null)
+			return vector;
+		float[] canonical = constraints.canonical(vector);
+		if (!isPruned(vector, canonical))
+			return canonical;
+		
+		if (strategy instanceof AdaptiveSearch) {
+			String newCommand = buildCommand(vector);
+			for (String s : trainAndTest)
+				observe(null, newCommand + s, runIndex++, vector);
+		}
+		return null;
 	}
 	
 	/**
-	 * This method retrieves all the command lines for a specified
+	 * Passes "result" to the search strategy, if it is adaptive. A null
+	 * "result" stands for an execution of "commandLine" that has not 
+	 * produced one, and is observed as a failed execution.
+	 * 
+	 * @param result
+	 * @param commandLine
+	 * @param runIndex
+	 * @param combination
+	 * @throws IOException
+	 */
+	
+	private void observe(RunResult result, String commandLine, long runIndex,
+			float[] combination) throws IOException {
+		if (!(strategy instanceof AdaptiveSearch))
+			return;
+		if (result == null)
+			result = new RunResult(commandLine, runIndex, combination, null, 
+					RunStatus.FAILED);
+		((AdaptiveSearch) strategy).observe(result);
+	}
+	
+	public ArrayList<Metric> getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Sets the metrics whose values are read from the answers of each
+	 * execution and attached to its RunResult (see RunResult.getMetrics()).
+	 * 
+	 * @param metrics
+	 */
+	
+	public void setMetrics(ArrayList<Metric> metrics) {
+		this.metrics = new ArrayList<Metric>(metrics);
+	}
+	
+	/**
+	 * Sets the maximum wall-clock time of each execution of the EC.
+	 * An execution exceeding it is killed (together with its child
+	 * processes) and recorded with status TIMEOUT.
+	 * 
+	 * @param timeoutMillis
+	 */
+	
+	public void setTimeout(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+	
+	/**
+	 * Cancels the serialized execution: no more command lines are
+	 * launched and the running executions are killed. The command
+	 * lines already dispatched are recorded with status CANCELLED,
+	 * and run() returns the results collected so far.
+	 */
+	
+	public void cancel() {
+		cancelled = true;
+		launcher.cancel();
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * Stops dispatching the command lines: the ones not launched yet,
+	 * including those already queued to the pool, are recorded with
+	 * status CANCELLED, while the running executions are left to 
+	 * complete. run() returns once they have.
+	 */
+	
+	public void stopDispatching() {
+		stopped = true;
+	}
+	
+	/**
+	 * @return true if no more command lines are launched, because of 
+	 * cancel() or stopDispatching()
+	 */
+	
+	public boolean isStopped() {
+		return stopped || cancelled;
+	}
+	
+	/**
+	 * This method generates all the command lines for a specified
 	 * input configuration and requires the execution of each one
 	 * through the private method "execution()".
 	 * 
@@ -87,60 +543,250 @@ public class Serializer {
 	 */
 	
 	public HashMap<String, ArrayList<String>> run() throws IOException {
-		
-		float[] arr = new float[numberOfParameters];
-		float[] tmp = new float[numberOfParameters];
-
-		for (int i = 0; i < arr.length; i++) {
-			arr[i] = start[i];
-			tmp[i] = start[i];
-		}
-
-		String newCommand = command;
-
-		for (int j = 0; j < numberOfParameters; j++) {
-			newCommand += " " + arr[j];
-		}
-		combinations.add(Arrays.toString(arr));
 		String[] trainAndTest = generateTrainAndTestCommand();
-		String completeCommand = "";
-		for(String s : trainAndTest){
-			completeCommand = newCommand + s;
-			commands.add(completeCommand);
-			completeCommand = "";
-		}
+		launcher.setTimeout(timeoutMillis);
+		launcher.setMaxBufferedBytes(maxBufferedBytes);
+		if (strategy instanceof AdaptiveSearch)
+			((AdaptiveSearch) strategy).setRunsPerCombination(trainAndTest.length);
+		CombinationSource combinations = 
+				strategy.combinations(grid, firstCombination);
 		
-		for (int i = 0; i < arr.length; i++) {
-			countAllCombinations(i, arr, tmp);
-			arr = tmp.clone();
+		try {
+			if (virtualThreads)
+				this.concurrentExecution(combinations, trainAndTest, 
+						newThreadPerTaskExecutor(), new Semaphore(maxLiveProcesses),
+						maxLiveProcesses);
+			else if (workers > 1)
+				this.concurrentExecution(combinations, trainAndTest, 
+						Executors.newFixedThreadPool(workers), null, workers);
+			else {
+				long runIndex = combinations.getIndex() * trainAndTest.length;
+				float[] vector;
+				while (!isStopped() 
+						&& (vector = combinations.nextCombination()) != null) {
+					vector = prune(vector, runIndex, trainAndTest);
+					if (vector == null) {
+						runIndex += trainAndTest.length;
+						continue;
+					}
+					String newCommand = buildCommand(vector);
+					for (String s : trainAndTest) {
+						if (!isCompleted(runIndex))
+							this.execution(newCommand + s, runIndex, vector);
+						runIndex++;
+					}
+				}
+			}
+		} finally {
+			if (cache != null)
+				cache.flush();
 		}
 		
-		for (String s : commands)
-			this.execution(s);
-		
 		return this.map;
 	}
 	
+	/**
+	 * This method executes all the command lines through the executor
+	 * "pool". Every task launches its own EC process; if "gate" is not
+	 * null a task must acquire one of its permits before launching
+	 * the process, which bounds the number of live processes.
+	 * Command lines are generated only when the pool can accept them 
+	 * (at most four times "concurrency" are waiting, or "concurrency"
+	 * for an AdaptiveSearch), so the memory used does not depend on
+	 * the number of combinations.
+	 * The first IOException raised by an execution is rethrown 
+	 * once all the command lines have been handled.
+	 * 
+	 * @param combinations
+	 * @param trainAndTest
+	 * @param pool
+	 * @param gate
+	 * @param concurrency
+	 * @throws IOException
+	 */
+	
+	private void concurrentExecution(CombinationSource combinations,
+			String[] trainAndTest, ExecutorService pool, final Semaphore gate,
+			int concurrency) throws IOException {
+		boolean adaptive = strategy instanceof AdaptiveSearch;
+		final Semaphore inFlight = new Semaphore(
+				adaptive ? concurrency : 4 * concurrency);
+		final AtomicReference<IOException> failure = 
+				new AtomicReference<IOException>();
+		
+		try {
+			long nextRun = combinations.getIndex() * trainAndTest.length;
+			while (!isStopped()) {
+				/*
+				 * An adaptive search proposes a combination only when a slot
+				 * is free, so that the proposal uses the most recent results:
+				 * the slot is reserved before asking for the combination and
+				 * given back if no run is dispatched.
+				 */
+				boolean reserved = false;
+				if (adaptive) {
+					inFlight.acquire();
+					reserved = true;
+				}
+				float[] vector = combinations.nextCombination();
+				if (vector == null) {
+					if (reserved)
+						inFlight.release();
+					break;
+				}
+				vector = prune(vector, nextRun, trainAndTest);
+				if (vector == null) {
+					if (reserved)
+						inFlight.release();
+					nextRun += trainAndTest.length;
+					continue;
+				}
+				String newCommand = buildCommand(vector);
+				for (String s : trainAndTest) {
+					final String commandLine = newCommand + s;
+					final float[] combination = vector;
+					final long runIndex = nextRun++;
+					if (isCompleted(runIndex))
+						continue;
+					if (reserved)
+						reserved = false;
+					else
+						inFlight.acquire();
+					pool.execute(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								if (gate != null)
+									gate.acquire();
+								try {
+									execution(commandLine, runIndex, combination);
+								} finally {
+									if (gate != null)
+										gate.release();
+								}
+							} catch (IOException e) {
+								failure.compareAndSet(null, e);
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+								// the execution did not start, but it is observed
+								try {
+									observe(null, commandLine, runIndex, combination);
+								} catch (IOException f) {
+									failure.compareAndSet(null, f);
+								}
+							} finally {
+								inFlight.release();
+							}
+						}
+					});
+				}
+				if (reserved)
+					inFlight.release();
+			}
+			
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Serialized execution interrupted", e);
+		} finally {
+			pool.shutdownNow();
+		}
+		
+		if (failure.get() != null)
+			throw failure.get();
+	}
+	
+	/**
+	 * @param runIndex
+	 * @return true if the execution with index "runIndex" has to
+	 * be skipped
+	 */
+	
+	private boolean isCompleted(long runIndex) {
+		return completedRuns != null && runIndex <= Integer.MAX_VALUE
+				&& completedRuns.get((int) runIndex);
+	}
+	
+	/**
+	 * Builds the command line (without train and test set) 
+	 * for the combination of parameters "vector".
+	 * 
+	 * @param vector
+	 * @return String
+	 */
+	
+	private String buildCommand(float[] vector) {
+		StringBuilder newCommand = new StringBuilder(command);
+		for (float value : vector)
+			newCommand.append(' ').append(value);
+		return newCommand.toString();
+	}
+	
+	/**
+	 * Returns an executor that starts a new thread for each task.
+	 * On JVMs offering virtual threads (Java 21+) the executor is
+	 * looked up reflectively, so the project keeps compiling for
+	 * Java 11; otherwise it falls back to daemon platform threads 
+	 * with a small stack, as they only wait for EC processes.
+	 * 
+	 * @return ExecutorService
+	 */
+	
+	private static ExecutorService newThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(null, r, "ec-launcher", 256 * 1024);
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+	}
+	
 	/**
 	 * This method generates the command that takes 
-	 * in input the train set and test set files.
+	 * in input the train set and test set files: every pair of
+	 * train and test set or, when paired, the i-th ones.
 	 * 
 	 * @return String[] 
 	 */
 	
 	private String[] generateTrainAndTestCommand() {
 		int dim;
+		if (paired) {
+			if (trainSet.size() != testSet.size())
+				throw new IllegalStateException("Paired data sets of different sizes");
+			String[] pairs = new String[testSet.size()];
+			pairTrainPaths = new String[pairs.length];
+			pairTestPaths = new String[pairs.length];
+			for (int i = 0; i < pairs.length; i++) {
+				pairs[i] = " " + trainSet.get(i) + " " + testSet.get(i);
+				pairTrainPaths[i] = trainSet.get(i);
+				pairTestPaths[i] = testSet.get(i);
+			}
+			return pairs;
+		}
 		if (trainSet.size() == 0)
 			trainSet.add("");
 		dim = testSet.size() * trainSet.size();
 		
 		String[] combinationsOfTrainAndTest
 			= new String[dim];
+		pairTrainPaths = new String[dim];
+		pairTestPaths = new String[dim];
 		int j = 0;
 		int k = 0;
 		for (int i = 0; i < dim ; i++){
 			combinationsOfTrainAndTest[i] = " " + trainSet.get(j) 
 					+ " " + testSet.get(k);
+			pairTrainPaths[i] = trainSet.get(j);
+			pairTestPaths[i] = testSet.get(k);
 			if (++k == testSet.size()){
 				k = 0;
 				j++;
@@ -150,112 +796,95 @@ public class Serializer {
 	}
 
 	/**
-	 * This method invokes the O.S. in order to execute an external classifier.
-	 * Finally it reads the answers and stores them into the this.map . 
+	 * This method asks the launcher to execute the external classifier
+	 * with the arguments of "commandLine" (i.e. everything after the
+	 * "java -jar" prefix). The wall time of the execution and the 
+	 * values of the metrics are attached to the result, which is then
+	 * observed by the search strategy, if it is adaptive, and handed 
+	 * to the listener, if any, otherwise the answers are stored into 
+	 * this.map .
+	 * An execution stopped by a timeout or a cancellation is stored 
+	 * with its status (see RunStatus.toAnswer()) in place of the answers.
+	 * It can be invoked concurrently by the threads of the pool, so
+	 * the access to this.map is synchronized.
 	 * 
-	 * @param comandoEsecuzione
+	 * @param commandLine
+	 * @param runIndex
+	 * @param combination
 	 * @throws IOException
 	 */
 	
-	private void execution(String commandLine) throws IOException {
-		Process proc = Runtime.getRuntime().exec(commandLine);
-		InputStream in = proc.getInputStream();
-		String executionOutput = getStringFromInputStream(in);
-
-		ArrayList<String> lines = getAnswers(executionOutput);
-		this.map.put(commandLine, lines);
-	}
-
-	/**
-	 * Change an InputStream into a String value in order to get
-	 * the answers.
-	 * 
-	 * @param is
-	 * @return String
-	 * @throws IOException 
-	 */
-	
-	private String getStringFromInputStream(InputStream is) throws IOException {
-		BufferedReader br = null;
-		StringBuilder sb = new StringBuilder();
-
-		String line;
-
-		br = new BufferedReader(new InputStreamReader(is));
-		while ((line = br.readLine()) != null) {
-			sb.append(line + "\n");
+	private void execution(String commandLine, long runIndex, float[] combination) 
+			throws IOException {
+		String[] arguments = Launcher.splitArguments(
+				commandLine.substring(command.length()));
+		RunResult result = null;
+		CapturedOutput output = null;
+		long start = System.nanoTime();
+		try {
+			try {
+				if (stopped)
+					throw new RunAbortedException(RunStatus.CANCELLED);
+				ResultCache.Key key = null;
+				ResultCache.Entry cached = null;
+				if (cache != null) {
+					int pair = (int) (runIndex % pairTestPaths.length);
+					key = cache.key(ecPath, buildCommand(combination).substring(
+							command.length()), pairTrainPaths[pair], pairTestPaths[pair]);
+					cached = cache.lookup(key);
+				}
+				
+				if (cached != null) {
+					output = new CapturedOutput(maxBufferedBytes);
+					for (String line : cached.getAnswers())
+						output.addLine(line);
+					output.finish();
+					output.setPeakRssKb(cached.getPeakRssKb());
+					result = new RunResult(commandLine, runIndex, combination,
+							output, RunStatus.COMPLETED);
+					result.setWallTimeMillis(cached.getWallTimeMillis());
+					result.setCached(true);
+				} else {
+					output = launcher.launch(arguments);
+					result = new RunResult(commandLine, runIndex, combination,
+							output, (output.getExitCode() == 0) ? RunStatus.COMPLETED 
+									: RunStatus.FAILED);
+					result.setWallTimeMillis((System.nanoTime() - start) / 1000000);
+					if (key != null)
+						cache.store(key, result);
+				}
+				result.readMetrics(metrics);
+			} catch (RunAbortedException e) {
+				result = new RunResult(commandLine, runIndex, combination, null, 
+						e.getStatus());
+				result.setWallTimeMillis((System.nanoTime() - start) / 1000000);
+			} catch (IOException e) {
+				if (output != null)
+					output.discard();
+				result = null;
+				throw e;
+			}
+		} finally {
+			/*
+			 * An adaptive search must know about every execution, also 
+			 * when it fails, or it could wait for it forever
+			 */
+			observe(result, commandLine, runIndex, combination);
 		}
 		
-		if (br != null) 
-			br.close();
-		
-		return sb.toString();
-	}
-
-	/**
-	 * Recursive method that produces a list of all the possible combinations.
-	 * 
-	 * @param idx
-	 * @param array
-	 * @param tmp
-	 */
-	
-	private void countAllCombinations(int idx, float[] array, float[] tmp) {
-		if (array[idx] >= end[idx]) {
+		if (listener != null) {
+			listener.resultReady(result);
 			return;
 		}
-		array[idx] += step[idx];
-		tmp = array.clone();
-		if (!combinations.contains(Arrays.toString(array))) {
-			String newCommand = command;
-			for (int j = 0; j < numberOfParameters; j++) {
-				newCommand += " " + array[j];
-			}
-			combinations.add(Arrays.toString(array));
-			String[] trainAndTest = generateTrainAndTestCommand();
-			String completeCommand = "";
-			for(String s : trainAndTest){
-				completeCommand = newCommand + s;
-				commands.add(completeCommand);
-				completeCommand = "";
-			}
-		}
-		else
-			return;
 		
-		for (int i = 0; i < array.length; i++) {
-			countAllCombinations(i, array, tmp);
-			array = tmp.clone();
-
+		ArrayList<String> lines;
+		try {
+			lines = result.getAnswers();
+		} finally {
+			result.discard();
 		}
-	}
-
-	/**
-	 * This method reads the output of every execution of an EC and
-	 * extracts an ArrayList containing all the answers of the EC for 
-	 * that 
-	 * @param executionOutput
-	 * @return ArrayList<String>
-	 */
-	
-	private static ArrayList<String> getAnswers(String executionOutput) {
-		ArrayList<String> lines = new ArrayList<String>();
-		int lastCharIndex = executionOutput.length();
-		int currentCharIndex = 0;
-		while (currentCharIndex < lastCharIndex) {
-			int tmpIndex = currentCharIndex;
-			currentCharIndex = executionOutput.indexOf('\n',
-					(currentCharIndex + 1));
-			if (currentCharIndex == -1) {
-				break;
-			}
-			
-			int subStringStartIndex = (tmpIndex == 0) ? 0 : (tmpIndex + 1);
-			
-			String singleRawAnswer = executionOutput
-					.substring(subStringStartIndex, currentCharIndex);
-			lines.add(singleRawAnswer);
+		synchronized (this.map) {
+			this.map.put(commandLine, lines);
 		}
-		return lines;
 	}
-}
\ No newline at end of file
+}
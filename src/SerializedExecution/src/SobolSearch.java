@@ -0,0 +1,131 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+/**
+ * The class SobolSearch evaluates the first "budget" points of the
+ * Sobol low-discrepancy sequence over the ranges of the Variables (the
+ * Params take their value). The points fill the space far more evenly
+ * than random ones: in particular, for a budget that is a power of two,
+ * every Variable takes exactly one value in each of "budget" intervals
+ * of the same width of its range.
+ * 
+ * The direction numbers are the ones of S. Joe and F. Y. Kuo (2008),
+ * so at most MAX_DIMENSION Variables are supported. The values are not
+ * snapped to the steps of the Variables.
+ */
+
+public class SobolSearch extends SampledSearch {
+	private static final int BITS = 32;
+	
+	/*
+	 * For every dimension after the first one: the degree "s" of the
+	 * primitive polynomial, its coefficients "a" and the initial 
+	 * direction numbers m_1 ... m_s
+	 */
+	private static final int[][] DIRECTIONS = {
+		{ 1, 0, 1 },
+		{ 2, 1, 1, 3 },
+		{ 3, 1, 1, 3, 1 },
+		{ 3, 2, 1, 1, 1 },
+		{ 4, 1, 1, 1, 3, 3 },
+		{ 4, 4, 1, 3, 5, 13 },
+		{ 5, 2, 1, 1, 5, 5, 17 },
+		{ 5, 4, 1, 1, 5, 5, 5 },
+		{ 5, 7, 1, 1, 7, 11, 19 },
+		{ 5, 11, 1, 1, 5, 1, 1 },
+		{ 5, 13, 1, 1, 1, 3, 11 },
+		{ 5, 14, 1, 3, 5, 5, 31 },
+		{ 6, 1, 1, 3, 3, 9, 7, 49 },
+		{ 6, 13, 1, 1, 1, 15, 21, 21 },
+		{ 6, 16, 1, 3, 1, 13, 27, 49 },
+		{ 6, 19, 1, 1, 1, 15, 7, 5 },
+		{ 6, 22, 1, 3, 1, 15, 13, 25 },
+		{ 6, 25, 1, 1, 5, 5, 19, 61 },
+		{ 7, 1, 1, 3, 7, 11, 23, 15, 103 },
+		{ 7, 4, 1, 3, 7, 13, 13, 15, 69 }
+	};
+	
+	public static final int MAX_DIMENSION = DIRECTIONS.length + 1;
+	
+	public SobolSearch(long budget) {
+		super(budget);
+		if (budget > (1L << BITS))
+			throw new IllegalArgumentException("Budget too large: " + budget);
+	}
+	
+	@Override
+	protected Sampler newSampler(final ParameterGrid grid) {
+		final int[][] v = directionNumbers(grid.getVariableCount());
+		
+		return new Sampler() {
+			@Override
+			public float[] combinationAt(long index) {
+				double[] position = new double[v.length];
+				long gray = index ^ (index >>> 1);
+				for (int d = 0; d < v.length; d++) {
+					int x = 0;
+					for (int k = 0; k < BITS; k++)
+						if ((gray >>> k & 1) != 0)
+							x ^= v[d][k];
+					position[d] = (x & 0xffffffffL) / (double) (1L << BITS);
+				}
+				return grid.pointAt(position);
+			}
+		};
+	}
+	
+	/**
+	 * Computes the direction numbers v[d][k] (scaled by 2^BITS) of the
+	 * first "dimension" dimensions: the Sobol point with index i is the
+	 * xor of the v[d][k] for which bit k of the Gray code of i is set.
+	 * 
+	 * @param dimension
+	 * @return int[][]
+	 */
+	
+	private static int[][] directionNumbers(int dimension) {
+		if (dimension > MAX_DIMENSION)
+			throw new IllegalArgumentException("Sobol sequence supports at most " 
+					+ MAX_DIMENSION + " variables");
+		
+		int[][] v = new int[dimension][BITS];
+		for (int d = 0; d < dimension; d++) {
+			if (d == 0) {
+				for (int k = 0; k < BITS; k++)
+					v[d][k] = 1 << (BITS - 1 - k);
+				continue;
+			}
+			
+			int s = DIRECTIONS[d - 1][0];
+			int a = DIRECTIONS[d - 1][1];
+			for (int k = 0; k < BITS; k++) {
+				if (k < s) {
+					v[d][k] = DIRECTIONS[d - 1][2 + k] << (BITS - 1 - k);
+				} else {
+					v[d][k] = v[d][k - s] ^ (v[d][k - s] >>> s);
+					for (int l = 1; l < s; l++)
+						if ((a >>> (s - 1 - l) & 1) != 0)
+							v[d][k] ^= v[d][k - l];
+				}
+			}
+		}
+		return v;
+	}
+	
+	@Override
+	public String toString() {
+		return "SobolSearch [budget=" + getBudget() + "]";
+	}
+}
@@ -0,0 +1,271 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * The class SuccessiveHalving runs a multi-fidelity search: most of the
+ * combinations of parameters are only evaluated on a small part of the
+ * data, and only the most promising ones on the whole data.
+ * 
+ * The combinations of the search strategy of the Serializer are first
+ * run on reduced copies of the train sets (or of the test sets, if no
+ * train set is selected) holding a fraction "minFraction" of their 
+ * lines. The best 1/eta of them, according to the score extracted by
+ * "extractor", are run again on eta times more data, and so on until
+ * the survivors are run on the original sets. With eta = 3 and 
+ * minFraction = 1/81, for instance, the cost of the search is about 
+ * 5 full evaluations per 81 combinations instead of 81.
+ * 
+ * All the results, at every fidelity, are handed to the result 
+ * listener of the Serializer. The command lines of the reduced runs
+ * refer to the reduced copies, which are deleted at the end.
+ */
+
+public class SuccessiveHalving {
+	private int eta;
+	private double minFraction;
+	private MetricExtractor extractor;
+	private boolean maximize;
+	private long seed;
+	
+	public SuccessiveHalving(int eta, double minFraction, MetricExtractor extractor,
+			boolean maximize) {
+		if (eta < 2)
+			throw new IllegalArgumentException("eta must be at least 2");
+		if (!(minFraction > 0 && minFraction <= 1))
+			throw new IllegalArgumentException("minFraction must be in (0, 1]");
+		
+		this.eta = eta;
+		this.minFraction = minFraction;
+		this.extractor = extractor;
+		this.maximize = maximize;
+		this.seed = 0;
+	}
+	
+	/**
+	 * Sets the seed choosing the lines of the reduced data sets.
+	 * 
+	 * @param seed
+	 */
+	
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * @return the number of fidelities at which the combinations
+	 * are evaluated, the last one being the whole data
+	 */
+	
+	public int getRungCount() {
+		return 1 + (int) Math.floor(Math.log(1 / minFraction) / Math.log(eta) + 1e-9);
+	}
+	
+	/**
+	 * @param rung
+	 * @return the fraction of the data used by the rung "rung"
+	 */
+	
+	public double getFraction(int rung) {
+		return Math.pow(eta, rung - (getRungCount() - 1));
+	}
+	
+	/**
+	 * Runs the successive halving with the settings (launcher, search
+	 * strategy, data sets, result listener...) of "serializer", which
+	 * are restored at the end.
+	 * 
+	 * @param serializer
+	 * @return the combinations evaluated at the highest fidelity that
+	 * was reached, best first
+	 * @throws IOException
+	 */
+	
+	public ArrayList<Candidate> run(Serializer serializer) throws IOException {
+		SearchStrategy strategy = serializer.getSearchStrategy();
+		ResultListener listener = serializer.getResultListener();
+		ArrayList<String> testSet = new ArrayList<String>(serializer.getTestSet());
+		ArrayList<String> trainSet = new ArrayList<String>(serializer.getTrainSet());
+		trainSet.remove("");
+		
+		File directory = Files.createTempDirectory("ec-fidelity").toFile();
+		DataSubsampler subsampler = new DataSubsampler(directory, seed);
+		ArrayList<Candidate> ranking = new ArrayList<Candidate>();
+		
+		try {
+			int rungs = getRungCount();
+			for (int rung = 0; rung < rungs && !serializer.isStopped(); rung++) {
+				if (rung == rungs - 1) {
+					serializer.setDataSets(new ArrayList<String>(testSet), 
+							new ArrayList<String>(trainSet));
+				} else if (trainSet.isEmpty()) {
+					serializer.setDataSets(subsample(subsampler, testSet, 
+							getFraction(rung)), new ArrayList<String>());
+				} else {
+					serializer.setDataSets(new ArrayList<String>(testSet), 
+							subsample(subsampler, trainSet, getFraction(rung)));
+				}
+				
+				if (rung > 0) {
+					ArrayList<float[]> survivors = new ArrayList<float[]>();
+					int kept = Math.max(1, (int) Math.ceil(ranking.size() / (double) eta));
+					for (int i = 0; i < kept && i < ranking.size(); i++)
+						survivors.add(ranking.get(i).getCombination());
+					serializer.setSearchStrategy(new CandidateSearch(survivors));
+				}
+				
+				Rung collector = new Rung(listener, 
+						serializer.getRunCount() / Math.max(1, serializer.getCombinationCount()));
+				serializer.setResultListener(collector);
+				serializer.run();
+				ranking = collector.ranking();
+			}
+		} finally {
+			serializer.setSearchStrategy(strategy);
+			serializer.setResultListener(listener);
+			serializer.setDataSets(testSet, trainSet);
+			for (File f : directory.listFiles())
+				f.delete();
+			directory.delete();
+		}
+		
+		return ranking;
+	}
+	
+	private ArrayList<String> subsample(DataSubsampler subsampler, 
+			ArrayList<String> paths, double fraction) throws IOException {
+		ArrayList<String> reduced = new ArrayList<String>();
+		for (String path : paths)
+			reduced.add(subsampler.subsample(path, fraction));
+		return reduced;
+	}
+	
+	@Override
+	public String toString() {
+		return "SuccessiveHalving [eta=" + eta + ", minFraction=" + minFraction 
+				+ ", extractor=" + extractor + ", maximize=" + maximize 
+				+ ", seed=" + seed + "]";
+	}
+	
+	/**
+	 * Collects the scores of the runs of a rung, averaging the scores
+	 * of a combination over the train/test pairs, and forwards every
+	 * result to the listener "next".
+	 */
+	
+	private class Rung implements ResultListener {
+		private ResultListener next;
+		private long pairs;
+		private HashMap<Long, Candidate> candidates;
+		
+		public Rung(ResultListener next, long pairs) {
+			this.next = next;
+			this.pairs = Math.max(1, pairs);
+			this.candidates = new HashMap<Long, Candidate>();
+		}
+		
+		@Override
+		public void resultReady(RunResult result) throws IOException {
+			Double score = extractor.extract(result);
+			synchronized (candidates) {
+				Long index = result.getRunIndex() / pairs;
+				Candidate candidate = candidates.get(index);
+				if (candidate == null) {
+					candidate = new Candidate(result.getCombination());
+					candidates.put(index, candidate);
+				}
+				candidate.add(score);
+			}
+			
+			if (next != null)
+				next.resultReady(result);
+			else
+				result.discard();
+		}
+		
+		/**
+		 * @return the candidates sorted from the best to the worst;
+		 * the ones missing a score come last
+		 */
+		
+		public ArrayList<Candidate> ranking() {
+			ArrayList<Candidate> ranking = new ArrayList<Candidate>(candidates.values());
+			Collections.sort(ranking, new Comparator<Candidate>() {
+				@Override
+				public int compare(Candidate a, Candidate b) {
+					if (Double.isNaN(a.getScore()) || Double.isNaN(b.getScore()))
+						return Boolean.compare(Double.isNaN(a.getScore()), 
+								Double.isNaN(b.getScore()));
+					return maximize ? Double.compare(b.getScore(), a.getScore())
+							: Double.compare(a.getScore(), b.getScore());
+				}
+			});
+			return ranking;
+		}
+	}
+	
+	/**
+	 * A combination of parameters with its mean score over the
+	 * train/test pairs. The score is NaN if some run of the 
+	 * combination did not produce one.
+	 */
+	
+	public static class Candidate {
+		private float[] combination;
+		private double sum;
+		private int runs;
+		private boolean failed;
+		
+		public Candidate(float[] combination) {
+			this.combination = combination;
+			this.sum = 0;
+			this.runs = 0;
+			this.failed = false;
+		}
+		
+		public void add(Double score) {
+			runs++;
+			if (score == null || score.isNaN())
+				failed = true;
+			else
+				sum += score;
+		}
+		
+		public float[] getCombination() {
+			return combination;
+		}
+		
+		public double getScore() {
+			return (failed || runs == 0) ? Double.NaN : sum / runs;
+		}
+		
+		public int getRuns() {
+			return runs;
+		}
+		
+		@Override
+		public String toString() {
+			return Arrays.toString(combination) + " " + getScore();
+		}
+	}
+}
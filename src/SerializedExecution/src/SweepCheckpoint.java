@@ -0,0 +1,172 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+/**
+ * The class SweepCheckpoint persists in the database the progress of
+ * a sweep, so that a sweep interrupted (e.g. by a crash or a restart
+ * of the application) can be resumed by running the same plan again.
+ * 
+ * It receives the result of every execution that has been written to 
+ * the output file and records its index (see Serializer.getRunCount()). 
+ * The indexes are buffered and inserted in a single transaction every
+ * "BATCH_SIZE" runs or "commitIntervalMillis", whichever comes first.
+ * Cancelled executions are not recorded, so they run again on resume.
+ */
+
+public class SweepCheckpoint implements ResultListener {
+	private static final int BATCH_SIZE = 512;
+	
+	private Database database;
+	private int sweepId;
+	private long runCount;
+	private long prunedRuns;
+	private BitSet completedRuns;
+	private boolean resumed;
+	
+	private long[] batchRuns;
+	private RunStatus[] batchStatuses;
+	private int batchCount;
+	private long commitIntervalMillis;
+	private long lastCommit;
+	
+	public SweepCheckpoint(Database database, SweepPlan plan, long runCount)
+			throws SQLException {
+		if (runCount > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many runs to checkpoint: " 
+					+ runCount);
+		
+		this.database = database;
+		this.runCount = runCount;
+		this.prunedRuns = 0;
+		this.sweepId = database.retrieveSweep(plan, runCount);
+		this.completedRuns = database.retrieveCompletedRuns(sweepId);
+		this.resumed = !completedRuns.isEmpty();
+		
+		this.batchRuns = new long[BATCH_SIZE];
+		this.batchStatuses = new RunStatus[BATCH_SIZE];
+		this.batchCount = 0;
+		this.commitIntervalMillis = 1000;
+		this.lastCommit = System.currentTimeMillis();
+	}
+	
+	public int getSweepId() {
+		return sweepId;
+	}
+	
+	/**
+	 * @return true if some runs of the plan had already been completed
+	 * by a previous sweep
+	 */
+	
+	public boolean isResumed() {
+		return resumed;
+	}
+	
+	/**
+	 * @return a copy of the indexes of the completed runs
+	 */
+	
+	public synchronized BitSet getCompletedRuns() {
+		return (BitSet) completedRuns.clone();
+	}
+	
+	public synchronized int getCompletedCount() {
+		return completedRuns.cardinality();
+	}
+	
+	/**
+	 * Sets the number of runs that are never launched because their 
+	 * combination is pruned (see Serializer.countPrunedCombinations()):
+	 * the sweep is finished when all the other runs are completed.
+	 * 
+	 * @param prunedRuns
+	 */
+	
+	public void setPrunedRuns(long prunedRuns) {
+		this.prunedRuns = prunedRuns;
+	}
+	
+	public void setCommitInterval(long commitIntervalMillis) {
+		this.commitIntervalMillis = commitIntervalMillis;
+	}
+	
+	/**
+	 * Records the completion of the execution of "result".
+	 * 
+	 * @param result
+	 * @throws IOException if the completions cannot be stored
+	 */
+	
+	@Override
+	public synchronized void resultReady(RunResult result) throws IOException {
+		if (result.getStatus() == RunStatus.CANCELLED || result.getRunIndex() < 0)
+			return;
+		
+		completedRuns.set((int) result.getRunIndex());
+		batchRuns[batchCount] = result.getRunIndex();
+		batchStatuses[batchCount] = result.getStatus();
+		batchCount++;
+		
+		if (batchCount == BATCH_SIZE 
+				|| System.currentTimeMillis() - lastCommit >= commitIntervalMillis)
+			commit();
+	}
+	
+	/**
+	 * Stores the buffered completions in the database.
+	 * 
+	 * @throws IOException
+	 */
+	
+	public synchronized void commit() throws IOException {
+		try {
+			database.insertCompletedRuns(sweepId, batchRuns, batchStatuses, 
+					batchCount);
+		} catch (SQLException e) {
+			throw new IOException("Unable to store the progress of the sweep", e);
+		}
+		batchCount = 0;
+		lastCommit = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Stores the buffered completions and, if all the runs of the 
+	 * plan that are not pruned have been completed, marks the sweep 
+	 * as finished.
+	 * 
+	 * @throws IOException
+	 */
+	
+	public synchronized void close() throws IOException {
+		commit();
+		if (completedRuns.cardinality() + prunedRuns >= runCount) {
+			try {
+				database.updateSweepFinished(sweepId);
+			} catch (SQLException e) {
+				throw new IOException("Unable to store the progress of the sweep", e);
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "SweepCheckpoint [sweepId=" + sweepId + ", runCount=" + runCount
+				+ ", completed=" + completedRuns.cardinality() + "]";
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.util.ArrayList;
+
+/**
+ * The class SweepPlan identifies a serialized execution: the EC, the
+ * configuration, the train and test sets (in the order in which they
+ * are combined), the definition of the parameter grid, the search
+ * strategy and the constraints pruning the grid. Two sweeps
+ * with the same plan run the same command lines with the same run 
+ * indexes, so an interrupted sweep can be resumed by a later one.
+ */
+
+public class SweepPlan {
+	private int ecId;
+	private int configurationId;
+	private String trainIds;
+	private String testIds;
+	private String grid;
+	
+	public SweepPlan(int ecId, int configurationId, ArrayList<Integer> trainIds,
+			ArrayList<Integer> testIds, ArrayList<NumericElement> values,
+			SearchStrategy strategy) {
+		this(ecId, configurationId, trainIds, testIds, values, strategy, null);
+	}
+	
+	public SweepPlan(int ecId, int configurationId, ArrayList<Integer> trainIds,
+			ArrayList<Integer> testIds, ArrayList<NumericElement> values,
+			SearchStrategy strategy, ParameterConstraints constraints) {
+		this.ecId = ecId;
+		this.configurationId = configurationId;
+		this.trainIds = join(trainIds);
+		this.testIds = join(testIds);
+		
+		StringBuilder definition = new StringBuilder(strategy.toString());
+		for (NumericElement el : values)
+			definition.append(';').append(el.toString());
+		if (constraints != null && !constraints.isEmpty())
+			definition.append(";where ").append(constraints.toString());
+		this.grid = definition.toString();
+	}
+	
+	private static String join(ArrayList<Integer> ids) {
+		StringBuilder joined = new StringBuilder();
+		for (Integer id : ids) {
+			if (joined.length() > 0)
+				joined.append(',');
+			joined.append(id);
+		}
+		return joined.toString();
+	}
+	
+	public int getEcId() {
+		return ecId;
+	}
+	
+	public int getConfigurationId() {
+		return configurationId;
+	}
+	
+	/**
+	 * @return the ids of the train sets separated by commas
+	 */
+	
+	public String getTrainIds() {
+		return trainIds;
+	}
+	
+	/**
+	 * @return the ids of the test sets separated by commas
+	 */
+	
+	public String getTestIds() {
+		return testIds;
+	}
+	
+	/**
+	 * @return the search strategy followed by the parameters and 
+	 * variables of the configuration, separated by semicolons
+	 */
+	
+	public String getGrid() {
+		return grid;
+	}
+	
+	@Override
+	public String toString() {
+		return "SweepPlan [ecId=" + ecId + ", configurationId=" + configurationId
+				+ ", trainIds=" + trainIds + ", testIds=" + testIds 
+				+ ", grid=" + grid + "]";
+	}
+}
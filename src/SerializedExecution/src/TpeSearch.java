@@ -0,0 +1,318 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * The class TpeSearch is a sequential model-based optimiser following
+ * the Tree-structured Parzen Estimator (Bergstra et al., 2011). After
+ * "startup" random combinations, the n observed combinations are split
+ * into the best GAMMA * sqrt(n) and the others, and a Parzen density
+ * (a mixture of Gaussians around the observed points plus a uniform 
+ * prior) is estimated for each group over the ranges of the Variables.
+ * Every proposal is the most promising of CANDIDATES points drawn from 
+ * the density of the best group, i.e. the one maximising the ratio 
+ * between the density of the best group and the density of the others.
+ * 
+ * The bounds come from the start/end of the Variables, and the Params
+ * take their value. With "snapToGrid" the proposals are moved to the
+ * nearest values start + i * step.
+ * 
+ * The proposals are computed when the Serializer has a free execution 
+ * slot, from the results received so far, so several proposals can be
+ * in flight across the workers. Every run is an observation: when the
+ * combinations are run on several train/test pairs, each pair gives 
+ * one. Runs without a score count as the worst ones.
+ * A TpeSearch instance drives one sweep at a time.
+ */
+
+public class TpeSearch implements AdaptiveSearch {
+	private static final int CANDIDATES = 24;
+	private static final double GAMMA = 0.25;
+	private static final double MIN_BANDWIDTH = 0.03;
+	
+	private long budget;
+	private long seed;
+	private MetricExtractor extractor;
+	private boolean maximize;
+	private boolean snapToGrid;
+	private int startup;
+	private volatile Model model;
+	
+	public TpeSearch(long budget, long seed, MetricExtractor extractor, 
+			boolean maximize) {
+		this.budget = Math.max(0, budget);
+		this.seed = seed;
+		this.extractor = extractor;
+		this.maximize = maximize;
+		this.snapToGrid = false;
+		this.startup = 10;
+		this.model = null;
+	}
+	
+	public long getBudget() {
+		return budget;
+	}
+	
+	public void setSnapToGrid(boolean snapToGrid) {
+		this.snapToGrid = snapToGrid;
+	}
+	
+	/**
+	 * Sets the number of random combinations evaluated before the
+	 * proposals are based on the results.
+	 * 
+	 * @param startup
+	 */
+	
+	public void setStartup(int startup) {
+		this.startup = Math.max(1, startup);
+	}
+	
+	@Override
+	public long getCombinationCount(ParameterGrid grid) {
+		return budget;
+	}
+	
+	@Override
+	public CombinationSource combinations(ParameterGrid grid, final long first) {
+		final Model current = new Model(grid);
+		model = current;
+		return new CombinationSource() {
+			private long index = first;
+			
+			@Override
+			public long getIndex() {
+				return index;
+			}
+			
+			@Override
+			public float[] nextCombination() {
+				if (index >= budget)
+					return null;
+				index++;
+				return current.propose();
+			}
+		};
+	}
+	
+	@Override
+	public void setRunsPerCombination(int runs) {
+		// every run is an observation
+	}
+	
+	@Override
+	public void observe(RunResult result) throws IOException {
+		Model current = model;
+		if (current != null && result.getCombination() != null)
+			current.observe(result.getCombination(), extractor.extract(result));
+	}
+	
+	/**
+	 * @return the best combination observed so far, or null
+	 */
+	
+	public float[] getBest() {
+		Model current = model;
+		return (current == null) ? null : current.getBest();
+	}
+	
+	/**
+	 * @return the score of the best combination observed so far,
+	 * or NaN
+	 */
+	
+	public double getBestScore() {
+		Model current = model;
+		return (current == null) ? Double.NaN : current.getBestScore();
+	}
+	
+	@Override
+	public String toString() {
+		return "TpeSearch [budget=" + budget + ", seed=" + seed + ", extractor=" 
+				+ extractor + ", maximize=" + maximize + ", snapToGrid=" 
+				+ snapToGrid + ", startup=" + startup + "]";
+	}
+	
+	/**
+	 * The observations of a sweep and the proposals made from them.
+	 * The positions are in the unit cube of the Variables (see 
+	 * ParameterGrid.pointAt()); the scores are stored so that higher
+	 * is better.
+	 */
+	
+	private class Model {
+		private ParameterGrid grid;
+		private int dimension;
+		private SplittableRandom random;
+		private ArrayList<double[]> positions;
+		private ArrayList<Double> scores;
+		private float[] best;
+		private double bestScore;
+		
+		public Model(ParameterGrid grid) {
+			this.grid = grid;
+			this.dimension = grid.getVariableCount();
+			this.random = new SplittableRandom(seed);
+			this.positions = new ArrayList<double[]>();
+			this.scores = new ArrayList<Double>();
+			this.best = null;
+			this.bestScore = Double.NEGATIVE_INFINITY;
+		}
+		
+		public synchronized void observe(float[] combination, Double score) {
+			double value = (score == null || score.isNaN()) 
+					? Double.NEGATIVE_INFINITY : (maximize ? score : -score);
+			positions.add(grid.positionOf(combination));
+			scores.add(value);
+			if (best == null || value > bestScore) {
+				best = combination;
+				bestScore = value;
+			}
+		}
+		
+		public synchronized float[] getBest() {
+			return best;
+		}
+		
+		public synchronized double getBestScore() {
+			if (best == null || bestScore == Double.NEGATIVE_INFINITY)
+				return Double.NaN;
+			return maximize ? bestScore : -bestScore;
+		}
+		
+		public synchronized float[] propose() {
+			double[] position;
+			if (positions.size() < startup) {
+				position = new double[dimension];
+				for (int d = 0; d < dimension; d++)
+					position[d] = random.nextDouble();
+			} else {
+				position = proposeFromModel();
+			}
+			
+			float[] vector = grid.pointAt(position);
+			return snapToGrid ? grid.snap(vector) : vector;
+		}
+		
+		/**
+		 * Draws CANDIDATES points from the density of the best group
+		 * and returns the one maximising the density ratio.
+		 * 
+		 * @return double[]
+		 */
+		
+		private double[] proposeFromModel() {
+			Integer[] order = new Integer[positions.size()];
+			for (int i = 0; i < order.length; i++)
+				order[i] = i;
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return Double.compare(scores.get(b), scores.get(a));
+				}
+			});
+			
+			int goodCount = Math.max(1, (int) Math.ceil(GAMMA * Math.sqrt(order.length)));
+			ArrayList<double[]> good = new ArrayList<double[]>();
+			ArrayList<double[]> bad = new ArrayList<double[]>();
+			for (int i = 0; i < order.length; i++)
+				(i < goodCount ? good : bad).add(positions.get(order[i]));
+			
+			double[] goodBandwidth = bandwidths(good);
+			double[] badBandwidth = bandwidths(bad);
+			
+			double[] bestCandidate = null;
+			double bestRatio = Double.NEGATIVE_INFINITY;
+			for (int c = 0; c < CANDIDATES; c++) {
+				double[] candidate = sample(good, goodBandwidth);
+				double ratio = logDensity(candidate, good, goodBandwidth) 
+						- logDensity(candidate, bad, badBandwidth);
+				if (bestCandidate == null || ratio > bestRatio) {
+					bestCandidate = candidate;
+					bestRatio = ratio;
+				}
+			}
+			return bestCandidate;
+		}
+		
+		/**
+		 * Scott's rule of thumb for each Variable, bounded below so that
+		 * the density never collapses on the observed points.
+		 */
+		
+		private double[] bandwidths(ArrayList<double[]> points) {
+			double[] bandwidth = new double[dimension];
+			int n = points.size();
+			for (int d = 0; d < dimension; d++) {
+				double mean = 0, squares = 0;
+				for (double[] p : points)
+					mean += p[d];
+				mean = (n == 0) ? 0 : mean / n;
+				for (double[] p : points)
+					squares += (p[d] - mean) * (p[d] - mean);
+				double std = (n < 2) ? 0 : Math.sqrt(squares / (n - 1));
+				bandwidth[d] = Math.min(1, Math.max(MIN_BANDWIDTH, 
+						1.06 * std * Math.pow(Math.max(1, n), -0.2)));
+			}
+			return bandwidth;
+		}
+		
+		/**
+		 * Draws a point from the Parzen density of "points": from the
+		 * uniform prior with probability 1 / (n + 1), otherwise around
+		 * one of the points.
+		 */
+		
+		private double[] sample(ArrayList<double[]> points, double[] bandwidth) {
+			double[] x = new double[dimension];
+			int chosen = random.nextInt(points.size() + 1);
+			for (int d = 0; d < dimension; d++) {
+				if (chosen == points.size()) {
+					x[d] = random.nextDouble();
+				} else {
+					double value = points.get(chosen)[d] + bandwidth[d] * gaussian();
+					x[d] = Math.max(0, Math.min(1, value));
+				}
+			}
+			return x;
+		}
+		
+		private double logDensity(double[] x, ArrayList<double[]> points, 
+				double[] bandwidth) {
+			double log = 0;
+			for (int d = 0; d < dimension; d++) {
+				double density = 1;
+				for (double[] p : points) {
+					double z = (x[d] - p[d]) / bandwidth[d];
+					density += Math.exp(-0.5 * z * z) 
+							/ (bandwidth[d] * Math.sqrt(2 * Math.PI));
+				}
+				log += Math.log(density / (points.size() + 1));
+			}
+			return log;
+		}
+		
+		private double gaussian() {
+			double u = 1 - random.nextDouble();
+			return Math.sqrt(-2 * Math.log(u)) 
+					* Math.cos(2 * Math.PI * random.nextDouble());
+		}
+	}
+}
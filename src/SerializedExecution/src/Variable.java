@@ -13,30 +13,87 @@
 
 
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 /** 
  * Variable extends NumericElement to hold information about the 
  * name, the start, the end, and the step of a numeric value.
+ * 
+ * The values of a variable are defined by an integer step index:
+ * the i-th value is start + i * step, computed in exact decimal
+ * arithmetic on the values entered by the user, so that no error
+ * is accumulated while stepping through the range.
  */
 
 public class Variable extends NumericElement {
 	private float start, end, step;
 	private float currentValue;
+	private int currentIndex;
+	private BigDecimal exactStart, exactStep;
+	private int pointCount;
 	
 	public Variable(String name, float start, float end, float step) {
 		super(name);
 		this.start = start;
 		this.end = end;
 		this.step = step;
+		
+		exactStart = new BigDecimal(Float.toString(start));
+		exactStep = new BigDecimal(Float.toString(step));
+		pointCount = countPoints();
+	}
+	
+	/**
+	 * Counts the values of the variable: the values are generated 
+	 * while the previous one is lower than "end", i.e. there are
+	 * ceil((end - start) / step) + 1 of them.
+	 * 
+	 * @return int
+	 */
+	
+	private int countPoints() {
+		BigDecimal range = new BigDecimal(Float.toString(end)).subtract(exactStart);
+		if (step <= 0 || range.signum() <= 0)
+			return 1;
+		
+		BigDecimal steps = range.divide(exactStep, 0, RoundingMode.CEILING);
+		if (steps.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE - 1)) >= 0)
+			throw new IllegalArgumentException("Too many values for variable '" 
+					+ name + "'");
+		return steps.intValue() + 1;
+	}
+	
+	/**
+	 * @return the number of values taken by the variable
+	 */
+	
+	public int getPointCount() {
+		return pointCount;
+	}
+	
+	/**
+	 * Returns the value with step index "i", i.e. start + i * step.
+	 * The last value may exceed "end".
+	 * 
+	 * @param i
+	 * @return float
+	 */
+	
+	public float valueAt(int i) {
+		return exactStart.add(exactStep.multiply(BigDecimal.valueOf(i)))
+				.floatValue();
 	}
 	
 	public float startIteration() {
+		currentIndex = 0;
 		currentValue = start;
 		return currentValue;
 	}
 	
 	public float nextValue() {
-		if (currentValue <= end - step)
-			currentValue += step;
+		if (currentIndex < pointCount - 1)
+			currentValue = Math.min(valueAt(++currentIndex), end);
 		else
 			currentValue = end;
 		
@@ -57,6 +57,7 @@ public class Window {
 	
 	private JButton executionButton;
 	private Thread runManagerThread;
+	private RunSettings runSettings;
 	private ConfigurationBuilder configurationBuilder;
 	
 	/**
@@ -74,6 +75,7 @@ public class Window {
 		this.fileManager = fileManager;
 		this.runManager = runManager;
 		this.configuration = configuration;
+		this.runSettings = new RunSettings(runManager);
 
 		final int modelsNumber = FileType.values().length;
 
@@ -142,6 +144,14 @@ public class Window {
 			}
 		});
 
+		JButton settingsButton = new JButton("Settings");
+		executionPanel.add(settingsButton);
+		settingsButton.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				runSettings.show(frame);
+			}
+		});
+
 		JButton pathToSaveButton = new JButton("Path to save");
 		executionPanel.add(pathToSaveButton);
 		
@@ -0,0 +1,274 @@
+/*
+ * Author: Alessandro Mantovani, Roberto Ronco
+ * 
+ * Date: 20/06/2017 
+ * 
+ * The aim of the project is the optimization of an automatic classifier. In 
+ * particular, the software will execute the classifier selected by the user 
+ * with different combinations of input parameters. The result is a file
+ * containing all the outputs for each execution that can be used by the 
+ * analyst to choose the best input configuration.
+ * 
+ */
+
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The class WorkerPoolLauncher keeps a pool of long-lived JVMs (see 
+ * EcWorker), each one with the EC jar already loaded, and dispatches
+ * every execution to an idle worker. The JVM start up is paid once 
+ * per worker instead of once per command line, while the ECs of
+ * different workers stay isolated from each other.
+ * 
+ * A worker is recycled (i.e. terminated and replaced by a new one
+ * when needed) after "maxInvocations" executions or when it crashes.
+ * A worker whose execution times out, or is cancelled, is killed
+ * together with its descendants.
+ */
+
+public class WorkerPoolLauncher extends Launcher {
+	private String ecPath;
+	private int maxInvocations;
+	private Semaphore slots;
+	private LinkedBlockingQueue<Worker> idle;
+	private Set<Worker> busy;
+	private volatile boolean closed;
+	
+	public WorkerPoolLauncher(String ecPath, int poolSize, int maxInvocations) {
+		this.ecPath = ecPath;
+		this.maxInvocations = Math.max(1, maxInvocations);
+		this.slots = new Semaphore(Math.max(1, poolSize));
+		this.idle = new LinkedBlockingQueue<Worker>();
+		this.busy = ConcurrentHashMap.newKeySet();
+		this.closed = false;
+	}
+	
+	/**
+	 * Sends the execution request to an idle worker (starting a new 
+	 * one if none is available) and waits for its answers. When all
+	 * the workers are busy the calling thread waits.
+	 * 
+	 * @param arguments
+	 * @return CapturedOutput
+	 * @throws RunAbortedException if the execution times out or is
+	 * cancelled
+	 * @throws IOException if the EC fails or the worker crashes
+	 */
+	
+	@Override
+	public CapturedOutput launch(String[] arguments) throws IOException {
+		if (closed)
+			throw new IOException("Worker pool closed");
+		checkCancelled();
+		
+		try {
+			slots.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a worker", e);
+		}
+		
+		Worker worker = null;
+		try {
+			worker = idle.poll();
+			if (worker == null)
+				worker = new Worker();
+			busy.add(worker);
+			checkCancelled();
+			return worker.invoke(arguments);
+		} finally {
+			if (worker != null) {
+				busy.remove(worker);
+				if (worker.isReusable() && !closed && !isCancelled())
+					idle.add(worker);
+				else
+					worker.destroy();
+			}
+			slots.release();
+		}
+	}
+	
+	@Override
+	protected void abortRunning() {
+		for (Worker worker : busy)
+			worker.kill();
+	}
+	
+	/**
+	 * Terminates all the idle workers. Workers that are still serving
+	 * a request are terminated as soon as they complete it.
+	 */
+	
+	@Override
+	public void close() {
+		closed = true;
+		Worker worker;
+		while ((worker = idle.poll()) != null)
+			worker.destroy();
+	}
+	
+	@Override
+	public String toString() {
+		return "WorkerPoolLauncher [ecPath=" + ecPath + ", maxInvocations=" 
+				+ maxInvocations + "]";
+	}
+	
+	/**
+	 * A worker JVM running EcWorker, together with the streams used
+	 * to talk with it.
+	 */
+	
+	private class Worker {
+		private Process process;
+		private OutputStreamWriter requests;
+		private BufferedReader answers;
+		private int invocations;
+		private volatile boolean broken;
+		private volatile boolean timedOut;
+		
+		public Worker() throws IOException {
+			String javaPath = System.getProperty("java.home") + File.separator 
+					+ "bin" + File.separator + "java";
+			ProcessBuilder builder = new ProcessBuilder(javaPath, "-cp", 
+					System.getProperty("java.class.path"), 
+					EcWorker.class.getName(), ecPath);
+			builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+			
+			process = builder.start();
+			requests = new OutputStreamWriter(process.getOutputStream(), "UTF-8");
+			answers = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), "UTF-8"));
+			invocations = 0;
+			broken = false;
+		}
+		
+		/**
+		 * Sends one request to the worker, which is killed if the
+		 * answer does not arrive before the timeout.
+		 * 
+		 * @param arguments
+		 * @return CapturedOutput
+		 * @throws IOException
+		 */
+		
+		public CapturedOutput invoke(String[] arguments) throws IOException {
+			ScheduledFuture<?> timeout = scheduleTimeout(new Runnable() {
+				@Override
+				public void run() {
+					timedOut = true;
+					kill();
+				}
+			});
+			
+			try {
+				return exchange(arguments);
+			} catch (RunAbortedException e) {
+				throw e;
+			} catch (IOException e) {
+				// the streams are closed when the worker is killed
+				if (timedOut)
+					throw new RunAbortedException(RunStatus.TIMEOUT);
+				checkCancelled();
+				throw e;
+			} finally {
+				if (timeout != null)
+					timeout.cancel(false);
+			}
+		}
+		
+		/**
+		 * Writes one request and reads the framed answer.
+		 * 
+		 * @param arguments
+		 * @return CapturedOutput
+		 * @throws IOException
+		 */
+		
+		private CapturedOutput exchange(String[] arguments) throws IOException {
+			invocations++;
+			broken = true;
+			
+			StringBuilder request = new StringBuilder();
+			for (int i = 0; i < arguments.length; i++) {
+				if (i > 0)
+					request.append(EcWorker.SEPARATOR);
+				request.append(arguments[i]);
+			}
+			request.append('\n');
+			requests.write(request.toString());
+			requests.flush();
+			
+			String header = answers.readLine();
+			if (header == null)
+				throw new IOException("Worker for " + ecPath + " crashed");
+			
+			if (header.startsWith(EcWorker.ERROR)) {
+				broken = false;
+				throw new IOException("EC " + ecPath + " failed: " 
+						+ header.substring(EcWorker.ERROR.length()));
+			}
+			if (!header.startsWith(EcWorker.OK))
+				throw new IOException("Unexpected answer from worker: " + header);
+			
+			long count;
+			int exitCode;
+			try {
+				String[] fields = header.substring(EcWorker.OK.length()).split(" ");
+				count = Long.parseLong(fields[0]);
+				exitCode = Integer.parseInt(fields[1]);
+			} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				throw new IOException("Unexpected answer from worker: " + header, e);
+			}
+			CapturedOutput output = new CapturedOutput(getMaxBufferedBytes());
+			output.setExitCode(exitCode);
+			try {
+				for (long i = 0; i < count; i++) {
+					String line = answers.readLine();
+					if (line == null)
+						throw new IOException("Worker for " + ecPath + " crashed");
+					output.addLine(line);
+				}
+				output.finish();
+			} catch (IOException e) {
+				output.discard();
+				throw e;
+			}
+			
+			broken = false;
+			return output;
+		}
+		
+		public boolean isReusable() {
+			return !broken && invocations < maxInvocations;
+		}
+		
+		/**
+		 * Forcibly terminates the worker and its descendants.
+		 */
+		
+		public void kill() {
+			broken = true;
+			destroyTree(process);
+		}
+		
+		public void destroy() {
+			try {
+				requests.close();
+			} catch (IOException e) {
+				// the worker is already gone
+			}
+			process.destroy();
+		}
+	}
+}
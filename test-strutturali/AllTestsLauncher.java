@@ -3,10 +3,16 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ ConfigurationManagerTest.class, DatabaseTest.class,
+@SuiteClasses({ CapturedOutputTest.class, ConfigurationManagerTest.class, DatabaseTest.class,
+		DatabaseAccessTest.class,
 		FileManagerTest.class,
 		ModelTest.class, OutputTest.class, ParameterRowTest.class,
-		ParameterTest.class, ResultContainerTest.class, RunManagerTest.class, 
+		ParameterTest.class, ParameterGridTest.class, 
+		SearchStrategyTest.class, SuccessiveHalvingTest.class,
+		EarlyStoppingTest.class, MetricTest.class, ParetoFrontTest.class,
+		ParameterConstraintsTest.class, CrossValidationTest.class,
+		ResultCacheTest.class,
+		ResultContainerTest.class, RunManagerTest.class, 
 		SerializerTest.class, VariableRowTest.class, VariableTest.class })
 public class AllTestsLauncher {
 
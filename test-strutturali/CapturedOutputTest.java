@@ -0,0 +1,56 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/**
+ * Tests that CapturedOutput keeps the answers of an execution in 
+ * memory up to its budget and writes the following ones to a 
+ * temporary file, without losing or reordering any of them.
+ */
+
+public class CapturedOutputTest {
+
+	@Test
+	public final void testInMemory() throws IOException {
+		CapturedOutput output = new CapturedOutput(1024);
+		output.addLines(new BufferedReader(new StringReader("0 yes\n1 no\n")));
+		output.finish();
+		
+		assertFalse(output.isSpilled());
+		assertEquals(2, output.getLineCount());
+		assertEquals("1 no", output.readAllLines().get(1));
+		output.discard();
+	}
+	
+	@Test
+	public final void testSpill() throws IOException {
+		CapturedOutput output = new CapturedOutput(100);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			output.addLine(i + " yes");
+			expected.append(i + " yes\n");
+		}
+		output.finish();
+		
+		assertTrue(output.isSpilled());
+		assertEquals(1000, output.getLineCount());
+		
+		ArrayList<String> lines = output.readAllLines();
+		assertEquals(1000, lines.size());
+		for (int i = 0; i < 1000; i++)
+			assertEquals(i + " yes", lines.get(i));
+		
+		StringWriter writer = new StringWriter();
+		output.writeTo(writer);
+		assertEquals(expected.toString(), writer.toString());
+		output.discard();
+	}
+}
@@ -0,0 +1,138 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the folds written by FoldSplitter and the runs of the
+ * matching train/test folds performed by CrossValidation.
+ */
+
+public class CrossValidationTest {
+	private static File directory;
+	private static File dataSet;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		directory = Files.createTempDirectory("folds-test").toFile();
+		dataSet = new File(directory, "data.txt");
+		PrintWriter writer = new PrintWriter(dataSet, "UTF-8");
+		for (int i = 0; i < 1003; i++)
+			writer.println("line " + i);
+		writer.close();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() {
+		for (File f : directory.listFiles())
+			f.delete();
+		directory.delete();
+	}
+	
+	/**
+	 * The test folds are a partition of the data set with sizes that
+	 * differ by at most one line, and each train file holds all the
+	 * lines out of its fold.
+	 */
+	
+	@Test
+	public final void testSplit() throws IOException {
+		FoldSplitter splitter = new FoldSplitter(directory, 4, 3);
+		splitter.split(dataSet.getPath());
+		assertEquals(4, splitter.getTestFiles().size());
+		
+		HashSet<String> all = new HashSet<String>();
+		for (int i = 0; i < 4; i++) {
+			List<String> test = Files.readAllLines(new File(
+					splitter.getTestFiles().get(i)).toPath());
+			List<String> train = Files.readAllLines(new File(
+					splitter.getTrainFiles().get(i)).toPath());
+			assertTrue(test.size() == 250 || test.size() == 251);
+			assertEquals(1003, test.size() + train.size());
+			for (String line : test)
+				assertFalse(train.contains(line));
+			all.addAll(test);
+		}
+		assertEquals(1003, all.size());
+		
+		for (String path : splitter.getTestFiles())
+			new File(path).delete();
+		for (String path : splitter.getTrainFiles())
+			new File(path).delete();
+	}
+	
+	/**
+	 * Every combination runs once on each pair of matching folds, and
+	 * its score and metrics are aggregated over the folds.
+	 */
+	
+	@Test
+	public final void testRun() throws IOException {
+		ArrayList<NumericElement> values = new ArrayList<NumericElement>();
+		values.add(new Variable("v1", 1, 3, 1));
+		ArrayList<String> tests = new ArrayList<String>();
+		tests.add("test.txt");
+		
+		Serializer serializer = new Serializer(values, "ec.jar", tests, 
+				new ArrayList<String>());
+		serializer.setLauncher(new Launcher() {
+			@Override
+			public CapturedOutput launch(String[] arguments) throws IOException {
+				// the fold is the digit after "train-" and "test-"
+				String train = new File(arguments[1]).getName();
+				String test = new File(arguments[2]).getName();
+				assertEquals(train.charAt(6), test.charAt(5));
+				
+				CapturedOutput output = new CapturedOutput(64);
+				output.addLine("fold=" + test.charAt(5));
+				output.addLine("Accuracy " + arguments[0]);
+				output.finish();
+				return output;
+			}
+			
+			@Override
+			protected void abortRunning() {
+			}
+		});
+		ArrayList<Metric> metrics = new ArrayList<Metric>();
+		metrics.add(new Metric("fold", MetricKind.KEY_VALUE, "fold"));
+		serializer.setMetrics(metrics);
+		final ArrayList<String> commandLines = new ArrayList<String>();
+		serializer.setResultListener(new ResultListener() {
+			@Override
+			public void resultReady(RunResult result) {
+				commandLines.add(result.getCommandLine());
+				result.discard();
+			}
+		});
+		
+		CrossValidation validation = new CrossValidation(5, new LastNumberExtractor());
+		ArrayList<CrossValidation.Summary> summaries = 
+				validation.run(serializer, dataSet.getPath());
+		
+		assertEquals(3 * 5, commandLines.size());
+		assertEquals(3, summaries.size());
+		for (CrossValidation.Summary summary : summaries) {
+			assertEquals(summary.getCombination()[0], summary.getMean("score"), 1e-9);
+			assertEquals(0, summary.getStd("score"), 0);
+			assertEquals(2, summary.getMean("fold"), 1e-9);
+			assertEquals(Math.sqrt(2.5), summary.getStd("fold"), 1e-9);
+		}
+		assertTrue(summaries.get(0).toString().startsWith("1.0 score=1.0+-0.0 fold=2.0"));
+		
+		assertFalse(serializer.isPaired());
+		assertEquals(tests, serializer.getTestSet());
+		assertEquals(1, serializer.getPairCount());
+	}
+}
@@ -0,0 +1,236 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the WAL connections shared by DatabaseAccess: the writes
+ * funnelled through the writer thread and the reads served while a
+ * write is running.
+ */
+
+public class DatabaseAccessTest {
+	private DatabaseAccess access;
+	private DatabaseCreator dbCreator;
+
+	@Before
+	public void setUp() throws Exception {
+		String dbName = "DatabaseAccessTest.sqlite";
+		dbCreator = new DatabaseCreator(dbName);
+		dbCreator.create();
+		access = new DatabaseAccess("jdbc:sqlite:db" + File.separator + dbName);
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				session.executeUpdate("CREATE TABLE ACCESS_TABLE ("
+						+ "ID INTEGER PRIMARY KEY, THREAD INTEGER NOT NULL)");
+				return null;
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		access.close();
+		dbCreator.delete();
+		new File("db" + File.separator + "DatabaseAccessTest.sqlite-wal").delete();
+		new File("db" + File.separator + "DatabaseAccessTest.sqlite-shm").delete();
+	}
+
+	private int count(final String where) throws SQLException {
+		return access.read(new DatabaseAccess.Task<Integer>() {
+			@Override
+			public Integer run(DatabaseAccess.Session session) throws SQLException {
+				ResultContainer rw = session.executeQuery(
+						"SELECT COUNT(*) FROM ACCESS_TABLE" + where);
+				rw.getRs().next();
+				int count = rw.getRs().getInt(1);
+				rw.close();
+				return count;
+			}
+		});
+	}
+
+	private void insert(int id, int thread) throws SQLException {
+		final String query = "INSERT INTO ACCESS_TABLE VALUES(" + id + ", "
+				+ thread + ")";
+		access.write(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				session.executeUpdate(query);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * The database is switched to WAL mode.
+	 */
+
+	@Test
+	public final void testJournalMode() throws SQLException {
+		String mode = access.read(new DatabaseAccess.Task<String>() {
+			@Override
+			public String run(DatabaseAccess.Session session) throws SQLException {
+				ResultContainer rw = session.executeQuery("PRAGMA journal_mode");
+				rw.getRs().next();
+				String mode = rw.getRs().getString(1);
+				rw.close();
+				return mode;
+			}
+		});
+		assertEquals("wal", mode.toLowerCase());
+	}
+
+	/**
+	 * The writes issued at the same time by several threads are all
+	 * committed, and a failing write is rolled back without affecting
+	 * the others of its group.
+	 */
+
+	@Test
+	public final void testConcurrentWrites() throws Exception {
+		final int threads = 8;
+		final int writes = 50;
+		final ArrayList<Exception> errors = new ArrayList<Exception>();
+		ArrayList<Thread> workers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			workers.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < writes; i++) {
+							insert(thread * writes + i, thread);
+							// the same id again violates the primary key
+							if (i == 0) {
+								try {
+									insert(thread * writes, thread);
+									fail("Duplicated id inserted");
+								} catch (SQLException e) {
+								}
+							}
+						}
+					} catch (Exception e) {
+						synchronized (errors) {
+							errors.add(e);
+						}
+					}
+				}
+			}));
+		}
+		for (Thread worker : workers)
+			worker.start();
+		for (Thread worker : workers)
+			worker.join();
+
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(threads * writes, count(""));
+		for (int t = 0; t < threads; t++)
+			assertEquals(writes, count(" WHERE THREAD = " + t));
+	}
+
+	/**
+	 * The writes queued without waiting are committed in order, and
+	 * the future of a failing write reports its SQLException.
+	 */
+
+	@Test
+	public final void testEnqueue() throws Exception {
+		ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int i = 0; i < 100; i++) {
+			final String query = "INSERT INTO ACCESS_TABLE VALUES(" + i + ", 0)";
+			futures.add(access.enqueue(new DatabaseAccess.Task<Void>() {
+				@Override
+				public Void run(DatabaseAccess.Session session) throws SQLException {
+					session.executeUpdate(query);
+					return null;
+				}
+			}));
+		}
+		Future<Void> duplicated = access.enqueue(new DatabaseAccess.Task<Void>() {
+			@Override
+			public Void run(DatabaseAccess.Session session) throws SQLException {
+				session.executeUpdate("INSERT INTO ACCESS_TABLE VALUES(0, 1)");
+				return null;
+			}
+		});
+
+		for (Future<Void> future : futures)
+			future.get(10, TimeUnit.SECONDS);
+		try {
+			duplicated.get(10, TimeUnit.SECONDS);
+			fail("Duplicated id inserted");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof SQLException);
+		}
+		assertEquals(100, count(""));
+		assertEquals(0, count(" WHERE THREAD = 1"));
+	}
+
+	/**
+	 * A read is not blocked by a running write and does not see its
+	 * changes until they are committed.
+	 */
+
+	@Test
+	public final void testReadDuringWrite() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					access.write(new DatabaseAccess.Task<Void>() {
+						@Override
+						public Void run(DatabaseAccess.Session session)
+								throws SQLException {
+							session.executeUpdate("INSERT INTO ACCESS_TABLE VALUES(1, 0)");
+							started.countDown();
+							try {
+								release.await();
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+							return null;
+						}
+					});
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		writer.start();
+
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		assertEquals(0, count(""));
+		release.countDown();
+		writer.join();
+		assertEquals(1, count(""));
+	}
+
+	/**
+	 * A closed access is opened again by the next read or write.
+	 */
+
+	@Test
+	public final void testReopen() throws SQLException {
+		insert(1, 0);
+		access.close();
+		assertTrue(access.isClosed());
+		assertEquals(1, count(""));
+		insert(2, 0);
+		assertEquals(2, count(""));
+	}
+}
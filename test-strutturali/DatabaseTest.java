@@ -398,4 +398,182 @@ public class DatabaseTest {
 		}
 					
 	}
+	
+	/**
+	 * Replaces the values of a configuration twice and checks that
+	 * the cached statements keep working, with new parameters, also
+	 * after the connection has been restored.
+	 * 
+	 * @throws Exception
+	 */
+	
+	@Test
+	public final void testCachedStatements() throws Exception {
+		String name = "testCachedStatements";
+		db.insertIntoTable(name, "", fileType);
+		String configurationId = "";
+		for (Model m : db.retrieveFromTable(fileType))
+			if (m.getName().equals(name))
+				configurationId = String.valueOf(m.getId());
+		assertFalse(configurationId.equals(""));
+		
+		ArrayList<NumericElement> values = new ArrayList<NumericElement>();
+		values.add(new Variable("var1", 1, 11, 2));
+		values.add(new Param("par1", 21));
+		db.insertConfigurationValues(configurationId, values);
+		assertEquals(2, db.retrieveConfigurationValues(configurationId).size());
+		
+		values.remove(0);
+		db.insertConfigurationValues(configurationId, values);
+		ArrayList<NumericElement> retrieved = 
+				db.retrieveConfigurationValues(configurationId);
+		assertEquals(1, retrieved.size());
+		assertEquals(values.get(0).toString(), retrieved.get(0).toString());
+		
+		db.closeConnection();
+		db.connectionValidator();
+		assertEquals(1, db.retrieveConfigurationValues(configurationId).size());
+		
+		db.updateClicked(name, 1, fileType);
+		boolean clicked = false;
+		for (Model m : db.getClickedModels(fileType))
+			clicked |= m.getName().equals(name);
+		assertTrue(clicked);
+		
+		assertTrue(db.removeFromTable(name, fileType));
+		assertEquals(0, db.retrieveConfigurationValues(configurationId).size());
+	}
+	
+	/**
+	 * Records some completed runs of a sweep and checks that a new
+	 * checkpoint with the same plan resumes them, while a finished
+	 * sweep is restarted from scratch.
+	 * 
+	 * @throws Exception
+	 */
+	
+	@Test
+	public final void testSweepCheckpoint() throws Exception {
+		ArrayList<NumericElement> values = new ArrayList<NumericElement>();
+		values.add(new Variable("var1", 1, 4, 1));
+		values.add(new Param("par1", 21));
+		
+		ArrayList<Integer> trainIds = new ArrayList<Integer>();
+		ArrayList<Integer> testIds = new ArrayList<Integer>();
+		testIds.add(1);
+		testIds.add(2);
+		SweepPlan plan = new SweepPlan(1, 1, trainIds, testIds, values, 
+				new GridSearch());
+		
+		SweepCheckpoint checkpoint = new SweepCheckpoint(db, plan, 8);
+		assertFalse(checkpoint.isResumed());
+		for (int i = 0; i < 1000; i++) {
+			RunStatus status = (i % 2 == 0) ? RunStatus.COMPLETED : RunStatus.CANCELLED;
+			checkpoint.resultReady(new RunResult("run", i % 8, null, status));
+		}
+		checkpoint.resultReady(new RunResult("run", 3, null, RunStatus.TIMEOUT));
+		checkpoint.close();
+		
+		/*
+		 * The cancelled runs are not completed, so the sweep is resumed
+		 */
+		
+		SweepCheckpoint resumed = new SweepCheckpoint(db, plan, 8);
+		assertTrue(resumed.isResumed());
+		assertEquals(checkpoint.getSweepId(), resumed.getSweepId());
+		assertEquals(checkpoint.getCompletedRuns(), resumed.getCompletedRuns());
+		assertEquals(5, resumed.getCompletedCount());
+		for (int i = 0; i < 8; i++)
+			resumed.resultReady(new RunResult("run", i, null, RunStatus.COMPLETED));
+		resumed.close();
+		
+		/*
+		 * All the runs are completed, so the sweep is finished
+		 */
+		
+		SweepCheckpoint restarted = new SweepCheckpoint(db, plan, 8);
+		assertFalse(restarted.isResumed());
+		assertEquals(0, restarted.getCompletedCount());
+	}
+	
+	/**
+	 * Testing that the metrics of an EC are stored, replaced by name
+	 * and removed.
+	 * 
+	 * @throws Exception
+	 */
+	
+	@Test
+	public final void testMetrics() throws Exception {
+		db.insertMetric(7, new Metric("accuracy", MetricKind.KEY_VALUE, "Accuracy"));
+		db.insertMetric(7, new Metric("precision", MetricKind.REGEX, 
+				"Precision (\\S+)"));
+		db.insertMetric(8, new Metric("last", MetricKind.LAST_LINE, null));
+		
+		ArrayList<Metric> metrics = db.retrieveMetrics(7);
+		assertEquals(2, metrics.size());
+		assertEquals("accuracy", metrics.get(0).getName());
+		assertEquals(MetricKind.KEY_VALUE, metrics.get(0).getKind());
+		assertEquals("Precision (\\S+)", metrics.get(1).getPattern());
+		
+		db.insertMetric(7, new Metric("accuracy", MetricKind.LAST_LINE, ""));
+		metrics = db.retrieveMetrics(7);
+		assertEquals(2, metrics.size());
+		assertEquals(MetricKind.LAST_LINE, metrics.get(1).getKind());
+		
+		assertTrue(db.removeMetric(7, "accuracy"));
+		assertFalse(db.removeMetric(7, "accuracy"));
+		assertEquals(1, db.retrieveMetrics(7).size());
+		assertEquals(1, db.retrieveMetrics(8).size());
+		assertTrue(db.removeMetric(7, "precision"));
+		assertTrue(db.removeMetric(8, "last"));
+	}
+	
+	/**
+	 * Testing that the constraints and the conditions of a 
+	 * configuration are stored and replaced in their order.
+	 * 
+	 * @throws Exception
+	 */
+	
+	@Test
+	public final void testConstraints() throws Exception {
+		ParameterConstraints constraints = new ParameterConstraints();
+		constraints.addCondition("momentum", "solver == 2");
+		constraints.addConstraint("min <= max");
+		constraints.addConstraint("min + max < 10");
+		db.insertConstraints(9, constraints);
+		
+		ParameterConstraints retrieved = db.retrieveConstraints(9);
+		assertEquals(constraints.getConstraints(), retrieved.getConstraints());
+		assertEquals(constraints.getConditions(), retrieved.getConditions());
+		assertTrue(db.retrieveConstraints(10).isEmpty());
+		
+		db.insertConstraints(9, new ParameterConstraints());
+		assertTrue(db.retrieveConstraints(9).isEmpty());
+	}
+	
+	/**
+	 * Testing that names and paths containing quotes are inserted
+	 * and removed as they are.
+	 * 
+	 * @throws Exception
+	 */
+	
+	@Test
+	public final void testQuotedNames() throws Exception {
+		String name = "it's a test";
+		String path = "data" + File.separator + "o'brien.txt";
+		Model model = db.insertIntoTable(name, path, FileType.TEST);
+		assertEquals(name, model.getName());
+		assertEquals(path, model.getPath());
+		
+		boolean found = false;
+		for (Model m : db.retrieveFromTable(FileType.TEST))
+			found |= m.getName().equals(name) && m.getPath().equals(path);
+		assertTrue(found);
+		
+		assertTrue(db.removeFromTable(name, FileType.TEST));
+		assertFalse(db.removeFromTable(name, FileType.TEST));
+	}
 }
@@ -0,0 +1,165 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the rules of EarlyStopping on sweeps whose score is the 
+ * value of their only Variable.
+ */
+
+public class EarlyStoppingTest {
+	private Serializer serializer;
+	private AtomicInteger completed;
+	private AtomicInteger cancelled;
+
+	@Before
+	public void setUp() throws Exception {
+		ArrayList<NumericElement> values = new ArrayList<NumericElement>();
+		values.add(new Variable("v1", 0, 99, 1));
+		ArrayList<String> tests = new ArrayList<String>();
+		tests.add("test.txt");
+		
+		serializer = new Serializer(values, "ec.jar", tests, new ArrayList<String>());
+		serializer.setLauncher(new ScoreLauncher(0));
+		serializer.setWorkers(1);
+		completed = new AtomicInteger();
+		cancelled = new AtomicInteger();
+	}
+	
+	/**
+	 * @return a listener counting the completed and the cancelled runs
+	 */
+	
+	private ResultListener counter() {
+		return new ResultListener() {
+			@Override
+			public void resultReady(RunResult result) {
+				if (result.getStatus() == RunStatus.CANCELLED)
+					cancelled.incrementAndGet();
+				else
+					completed.incrementAndGet();
+				result.discard();
+			}
+		};
+	}
+	
+	/**
+	 * The sweep stops at the first run reaching the target.
+	 */
+	
+	@Test
+	public final void testTarget() throws IOException {
+		EarlyStopping stopping = new EarlyStopping(new LastNumberExtractor(), true);
+		stopping.setTarget(20);
+		EarlyStopping.Watch watch = stopping.watch(serializer, counter());
+		serializer.setResultListener(watch);
+		serializer.run();
+		watch.close();
+		
+		assertTrue(serializer.isStopped());
+		assertFalse(serializer.isCancelled());
+		assertEquals(21, completed.get());
+		assertEquals(21, watch.getRuns());
+		assertEquals(20, watch.getBestScore(), 0);
+		assertTrue(watch.getReason().startsWith("target"));
+		assertEquals("Stopped: " + watch.getReason(), watch.summary().get(0));
+	}
+	
+	/**
+	 * When minimizing, the first run is the best one and the sweep
+	 * stops after "patience" more runs.
+	 */
+	
+	@Test
+	public final void testPatience() throws IOException {
+		EarlyStopping stopping = new EarlyStopping(new LastNumberExtractor(), false);
+		stopping.setPatience(5);
+		EarlyStopping.Watch watch = stopping.watch(serializer, counter());
+		serializer.setResultListener(watch);
+		serializer.run();
+		watch.close();
+		
+		assertEquals(6, completed.get());
+		assertEquals(0, watch.getBestScore(), 0);
+		assertTrue(watch.getReason().startsWith("no improvement"));
+	}
+	
+	/**
+	 * The time budget stops a sweep of slow runs: the runs in progress
+	 * complete, the queued ones are cancelled.
+	 */
+	
+	@Test
+	public final void testTimeBudget() throws IOException {
+		serializer.setLauncher(new ScoreLauncher(20));
+		serializer.setWorkers(2);
+		EarlyStopping stopping = new EarlyStopping(new LastNumberExtractor(), true);
+		stopping.setTimeBudget(300);
+		EarlyStopping.Watch watch = stopping.watch(serializer, counter());
+		serializer.setResultListener(watch);
+		serializer.run();
+		watch.close();
+		
+		assertTrue(completed.get() > 0 && completed.get() < 100);
+		assertTrue(cancelled.get() > 0);
+		assertFalse(serializer.getLauncher().isCancelled());
+		assertTrue(watch.getReason().startsWith("time budget"));
+	}
+	
+	/**
+	 * Without rules every run is executed.
+	 */
+	
+	@Test
+	public final void testNoRules() throws IOException {
+		EarlyStopping stopping = new EarlyStopping(new LastNumberExtractor(), true);
+		EarlyStopping.Watch watch = stopping.watch(serializer, counter());
+		serializer.setResultListener(watch);
+		serializer.run();
+		watch.close();
+		
+		assertEquals(100, completed.get());
+		assertNull(watch.getReason());
+		assertEquals(99, watch.getBestScore(), 0);
+	}
+	
+	/**
+	 * Launcher answering with the value of the first argument, after
+	 * "delayMillis" milliseconds.
+	 */
+	
+	private static class ScoreLauncher extends Launcher {
+		private long delayMillis;
+		
+		public ScoreLauncher(long delayMillis) {
+			this.delayMillis = delayMillis;
+		}
+		
+		@Override
+		public CapturedOutput launch(String[] arguments) throws IOException {
+			checkCancelled();
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			checkCancelled();
+			CapturedOutput output = new CapturedOutput(64);
+			output.addLine("score " + arguments[0]);
+			output.finish();
+			return output;
+		}
+		
+		@Override
+		protected void abortRunning() {
+		}
+	}
+}
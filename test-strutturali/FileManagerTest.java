@@ -163,6 +163,48 @@ public class FileManagerTest {
 	}
 	
 
+	@Test
+	public final void testInsertRemoveAll() throws Exception {
+		/*
+		 * Inserts three configurations in a single transaction and
+		 * checks that the registry has been updated without reading
+		 * again the table: the new models are appended in order and
+		 * they can be found by id and by name.
+		 */
+		ArrayList<String> names = new ArrayList<String>();
+		ArrayList<String> paths = new ArrayList<String>();
+		for (int i = 0; i < 3; i++) {
+			names.add("BulkConfigTest" + i);
+			paths.add("");
+		}
+		
+		int configurations = fm.getArraySize(fileType);
+		fm.insertAll(names, paths, fileType);
+		assertEquals(configurations + 3, fm.getArraySize(fileType));
+		
+		for (int i = 0; i < 3; i++) {
+			Model mod = fm.getElement(fileType, configurations + i);
+			assertEquals(names.get(i), mod.getName());
+			assertEquals(mod.getId(), fm.getIdByName(names.get(i), fileType));
+			assertEquals(mod, fm.getById(mod.getId(), fileType));
+		}
+		assertEquals(db.retrieveFromTable(fileType).size(), fm.getArraySize(fileType));
+		
+		/*
+		 * A removed model is no longer found through any index, while
+		 * the names that do not exist are ignored.
+		 */
+		int removedId = fm.getIdByName(names.get(0), fileType);
+		names.add("NonExistingBulkConfigTest");
+		fm.removeAll(names, fileType);
+		assertEquals(configurations, fm.getArraySize(fileType));
+		assertEquals(-1, fm.getIdByName(names.get(0), fileType));
+		assertNull(fm.getById(removedId, fileType));
+		assertTrue(fm.getByPath("", fileType).size() == configurations);
+		assertEquals(db.retrieveFromTable(fileType).size(), fm.getArraySize(fileType));
+	}
+	
+
 	@Test
 	public final void testGetModelArray() {
 		/*
@@ -0,0 +1,108 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the values read from the answers of the EC by the different
+ * kinds of Metric, and their place among the lines of a RunResult.
+ */
+
+public class MetricTest {
+	private CapturedOutput output;
+	private RunResult result;
+
+	@Before
+	public void setUp() throws Exception {
+		output = new CapturedOutput(32);
+		output.addLine("0 yes");
+		output.addLine("loss=0.75");
+		output.addLine("Precision 0.27 (macro)");
+		output.addLine("loss = 0.5");
+		output.addLine("Accuracy 9.0E-2 in 3 s");
+		output.addLine("");
+		output.finish();
+		result = new RunResult("run", output, RunStatus.COMPLETED);
+	}
+	
+	@After
+	public void tearDown() {
+		output.discard();
+	}
+	
+	@Test
+	public final void testRegex() throws IOException {
+		assertEquals(0.27, new Metric("precision", MetricKind.REGEX, 
+				"Precision (\\S+)").extract(result), 1e-12);
+		assertEquals(3, new Metric("time", MetricKind.REGEX, 
+				"in (\\d+) s").extract(result), 0);
+		assertNull(new Metric("recall", MetricKind.REGEX, 
+				"Recall (\\S+)").extract(result));
+		assertNull(new Metric("answer", MetricKind.REGEX, 
+				"^\\d+ (\\w+)").extract(result));
+	}
+	
+	@Test
+	public final void testLastLine() throws IOException {
+		assertEquals(3, new Metric("last", MetricKind.LAST_LINE, null)
+				.extract(result), 0);
+	}
+	
+	@Test
+	public final void testKeyValue() throws IOException {
+		assertEquals(0.5, new Metric("loss", MetricKind.KEY_VALUE, "loss")
+				.extract(result), 0);
+		assertNull(new Metric("accuracy", MetricKind.KEY_VALUE, "Accuracy")
+				.extract(result));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testRegexWithoutGroup() {
+		new Metric("precision", MetricKind.REGEX, "Precision \\S+");
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testInvalidName() {
+		new Metric("a b", MetricKind.LAST_LINE, null);
+	}
+	
+	/**
+	 * The values of the metrics follow the answers, and are reused 
+	 * by the Metric instead of reading the answers again; an 
+	 * execution that did not complete has no metrics.
+	 */
+	
+	@Test
+	public final void testReadMetrics() throws IOException {
+		ArrayList<Metric> metrics = new ArrayList<Metric>();
+		metrics.add(new Metric("loss", MetricKind.KEY_VALUE, "loss"));
+		metrics.add(new Metric("recall", MetricKind.REGEX, "Recall (\\S+)"));
+		metrics.add(new Metric("precision", MetricKind.REGEX, "Precision (\\S+)"));
+		result.readMetrics(metrics);
+		
+		assertEquals(2, result.getMetrics().size());
+		assertEquals(0.5, result.getMetric("loss"), 0);
+		assertNull(result.getMetric("recall"));
+		
+		ArrayList<String> answers = result.getAnswers();
+		assertEquals(8, answers.size());
+		assertEquals("metric loss=0.5", answers.get(6));
+		assertEquals("metric precision=0.27", answers.get(7));
+		StringWriter out = new StringWriter();
+		result.writeTo(out);
+		assertEquals(String.join("\n", answers) + "\n", out.toString());
+		
+		output.discard();
+		assertEquals(0.27, metrics.get(2).extract(result), 1e-12);
+		
+		RunResult timedOut = new RunResult("run", null, RunStatus.TIMEOUT);
+		timedOut.readMetrics(metrics);
+		assertEquals(0, timedOut.getMetrics().size());
+	}
+}
@@ -141,4 +141,48 @@ public class OutputTest {
 			ansIndex = 0;
 		}
 	}
+	
+	/**
+	 * Appends results through the incremental interface and checks 
+	 * that the output file contains all of them, each one followed 
+	 * by its answers (or its status) and a blank line.
+	 * 
+	 * @throws IOException
+	 */
+	
+	@Test
+	public void testIncrementalWrite() throws IOException {
+		output.setOutputFileFolder(outputFolder);
+		output.setFlushInterval(10);
+		output.open();
+		
+		HashMap<String, ArrayList<String>> expected = 
+				new HashMap<String, ArrayList<String>>();
+		for (int i = 0; i < 3000; i++) {
+			CapturedOutput answers = new CapturedOutput(64);
+			answers.addLine(i + " yes");
+			answers.addLine(i + " no");
+			answers.finish();
+			
+			String command = "java -jar EC1.jar " + i;
+			RunResult result = (i % 100 == 0) 
+					? new RunResult(command, null, RunStatus.TIMEOUT)
+					: new RunResult(command, answers, RunStatus.COMPLETED);
+			expected.put(command, result.getAnswers());
+			output.resultReady(result);
+		}
+		output.close();
+		
+		Scanner in = new Scanner(new File(outputFolder + File.separator + "output.txt"));
+		int results = 0;
+		while (in.hasNextLine()) {
+			ArrayList<String> answer = expected.get(in.nextLine());
+			for (String line : answer)
+				assertEquals(line, in.nextLine());
+			assertEquals("", in.nextLine());
+			results++;
+		}
+		in.close();
+		assertEquals(expected.size(), results);
+	}
 }
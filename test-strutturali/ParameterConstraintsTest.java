@@ -0,0 +1,106 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the expressions over the elements of a configuration and the
+ * combinations pruned by ParameterConstraints.
+ */
+
+public class ParameterConstraintsTest {
+	private List<String> names;
+	private ParameterGrid grid;
+
+	@Before
+	public void setUp() throws Exception {
+		names = Arrays.asList("min", "max", "solver", "momentum");
+		ArrayList<NumericElement> values = new ArrayList<NumericElement>();
+		values.add(new Variable("min", 0, 3, 1));
+		values.add(new Variable("max", 0, 3, 1));
+		values.add(new Variable("solver", 1, 2, 1));
+		values.add(new Variable("momentum", 0.1f, 0.9f, 0.4f));
+		grid = new ParameterGrid(values);
+	}
+	
+	@Test
+	public final void testExpression() {
+		float[] v = { 1, 2, 2, 0.5f };
+		assertEquals(7, new Expression("min + max * (solver + 1)", names).evaluate(v), 0);
+		assertEquals(-1, new Expression("-min % 2", names).evaluate(v), 0);
+		assertTrue(new Expression("min < max && !(solver != 2)", names).isSatisfied(v));
+		assertTrue(new Expression("momentum == 0.5 || max / 0 > 1", names).isSatisfied(v));
+		assertFalse(new Expression("min >= max", names).isSatisfied(v));
+		assertTrue(new Expression("1e1 == 10 && .5 <= momentum", names).isSatisfied(v));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testUnknownElement() {
+		new Expression("min < maximum", names);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testMalformedExpression() {
+		new Expression("min = max", names);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testMissingParenthesis() {
+		new Expression("(min + max", names);
+	}
+	
+	/**
+	 * The inactive elements take their first value, and only valid
+	 * canonical combinations are accepted.
+	 */
+	
+	@Test
+	public final void testConstraints() {
+		ParameterConstraints constraints = new ParameterConstraints();
+		constraints.addConstraint("min <= max");
+		constraints.addCondition("momentum", "solver == 2");
+		constraints.bind(grid);
+		
+		assertArrayEquals(new float[] { 0, 1, 1, 0.1f }, 
+				constraints.canonical(new float[] { 0, 1, 1, 0.9f }), 0);
+		assertArrayEquals(new float[] { 0, 1, 2, 0.9f }, 
+				constraints.canonical(new float[] { 0, 1, 2, 0.9f }), 0);
+		assertFalse(constraints.accepts(new float[] { 0, 1, 1, 0.9f }));
+		assertTrue(constraints.accepts(new float[] { 0, 1, 1, 0.1f }));
+		assertFalse(constraints.accepts(new float[] { 2, 1, 2, 0.5f }));
+		
+		/*
+		 * 10 pairs with min <= max; 3 momentums with solver 2, 
+		 * only the first one with solver 1
+		 */
+		
+		int accepted = 0;
+		for (long i = 0; i < grid.size(); i++) {
+			if (constraints.accepts(grid.vectorAt(i)))
+				accepted++;
+		}
+		assertEquals(10 * (3 + 1), accepted);
+		assertEquals("min <= max;momentum if solver == 2", constraints.toString());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public final void testNotBound() {
+		ParameterConstraints constraints = new ParameterConstraints();
+		constraints.addConstraint("min <= max");
+		constraints.isValid(new float[] { 0, 1, 1, 0.1f });
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testConditionOnUnknownElement() {
+		ParameterConstraints constraints = new ParameterConstraints();
+		constraints.addCondition("nesterov", "solver == 2");
+		constraints.bind(grid);
+	}
+}
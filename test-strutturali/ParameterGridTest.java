@@ -0,0 +1,141 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Spliterator;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the lazy generation of the combinations of a configuration
+ * performed by ParameterGrid and CombinationSpliterator.
+ */
+
+public class ParameterGridTest {
+	private ArrayList<NumericElement> numericElement;
+
+	@Before
+	public void setUp() throws Exception {
+		numericElement = new ArrayList<NumericElement>();
+		numericElement.add(new Variable("v1", 0, 2, 1));
+		numericElement.add(new Param("p1", 5));
+		numericElement.add(new Variable("v2", -5, 6.5f, 4));
+	}
+
+	/**
+	 * The size of the grid is the product of the number of values
+	 * of each variable (the last value may exceed "end").
+	 */
+	
+	@Test
+	public final void testSize() {
+		ParameterGrid grid = new ParameterGrid(numericElement);
+		assertEquals(3, grid.getCount(0));
+		assertEquals(1, grid.getCount(1));
+		assertEquals(4, grid.getCount(2));
+		assertEquals(12, grid.size());
+	}
+	
+	/**
+	 * Every index is mapped to a distinct combination and
+	 * back to the same index.
+	 */
+	
+	@Test
+	public final void testVectorAt() {
+		ParameterGrid grid = new ParameterGrid(numericElement);
+		assertArrayEquals(new float[] {0, 5, -5}, grid.vectorAt(0), 0);
+		assertArrayEquals(new float[] {2, 5, 7}, grid.vectorAt(11), 0);
+		
+		HashSet<String> vectors = new HashSet<String>();
+		int[] digits = new int[grid.getDimension()];
+		for (long i = 0; i < grid.size(); i++) {
+			vectors.add(Arrays.toString(grid.vectorAt(i)));
+			grid.digitsAt(i, digits);
+			assertEquals(i, grid.indexOf(digits));
+		}
+		assertEquals(grid.size(), vectors.size());
+	}
+	
+	/**
+	 * The spliterator generates the combinations in index order,
+	 * possibly starting from a given index.
+	 */
+	
+	@Test
+	public final void testSpliterator() {
+		ParameterGrid grid = new ParameterGrid(numericElement);
+		CombinationSpliterator spliterator = grid.spliterator(5);
+		assertEquals(7, spliterator.estimateSize());
+		
+		for (long i = 5; i < grid.size(); i++)
+			assertArrayEquals(grid.vectorAt(i), spliterator.nextCombination(), 0);
+		assertNull(spliterator.nextCombination());
+	}
+	
+	/**
+	 * Splitting the spliterator produces disjoint ranges covering
+	 * all the combinations.
+	 */
+	
+	@Test
+	public final void testTrySplit() {
+		ParameterGrid grid = new ParameterGrid(numericElement);
+		CombinationSpliterator suffix = grid.spliterator();
+		Spliterator<float[]> prefix = suffix.trySplit();
+		assertNotNull(prefix);
+		assertEquals(grid.size(), prefix.estimateSize() + suffix.estimateSize());
+		
+		final HashSet<String> vectors = new HashSet<String>();
+		Consumer<float[]> collector = new Consumer<float[]>() {
+			@Override
+			public void accept(float[] vector) {
+				vectors.add(Arrays.toString(vector));
+			}
+		};
+		prefix.forEachRemaining(collector);
+		suffix.forEachRemaining(collector);
+		assertEquals(grid.size(), vectors.size());
+	}
+	
+	/**
+	 * Large grids are not enumerated to compute their size.
+	 */
+	
+	@Test
+	public final void testLargeGrid() {
+		numericElement = new ArrayList<NumericElement>();
+		for (int i = 0; i < 6; i++)
+			numericElement.add(new Variable("v" + i, 1, 20, 1));
+		
+		ParameterGrid grid = new ParameterGrid(numericElement);
+		assertEquals(64000000L, grid.size());
+		assertArrayEquals(new float[] {20, 20, 20, 20, 20, 20}, 
+				grid.vectorAt(grid.size() - 1), 0);
+	}
+	
+	/**
+	 * Decimal steps do not accumulate errors: the values are 
+	 * exactly the decimal ones and no endpoint is added or lost.
+	 */
+	
+	@Test
+	public final void testExactDecimalSteps() {
+		numericElement = new ArrayList<NumericElement>();
+		numericElement.add(new Variable("v1", 0, 0.3f, 0.1f));
+		numericElement.add(new Variable("v2", 0.7f, 1, 0.1f));
+		
+		ParameterGrid grid = new ParameterGrid(numericElement);
+		assertEquals(4, grid.getCount(0));
+		assertEquals(4, grid.getCount(1));
+		assertEquals(0.3f, grid.valueAt(0, 3), 0);
+		assertEquals(1f, grid.valueAt(1, 3), 0);
+		assertEquals("0.3", Float.toString(grid.valueAt(0, 3)));
+	}
+}
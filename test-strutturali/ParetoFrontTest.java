@@ -0,0 +1,155 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests the front of the executions not dominated on score, wall time
+ * and peak memory, and the resources recorded for each execution.
+ */
+
+public class ParetoFrontTest {
+	
+	private static RunResult result(String name, double score, long wallTime,
+			long peakRss) throws IOException {
+		CapturedOutput output = new CapturedOutput(64);
+		output.addLine("Accuracy " + score);
+		output.finish();
+		output.setPeakRssKb(peakRss);
+		RunResult result = new RunResult(name, output, RunStatus.COMPLETED);
+		result.setWallTimeMillis(wallTime);
+		return result;
+	}
+	
+	private static ArrayList<String> names(ParetoFront front) {
+		ArrayList<String> names = new ArrayList<String>();
+		for (ParetoFront.Entry e : front.getFront())
+			names.add(e.getCommandLine());
+		return names;
+	}
+	
+	/**
+	 * Dominated executions are rejected or removed, the others are
+	 * kept from the best score to the worst.
+	 */
+	
+	@Test
+	public final void testFront() throws IOException {
+		ParetoFront front = new ParetoFront(new LastNumberExtractor(), true);
+		assertTrue(front.add(result("a", 0.90, 100, 1000)));
+		assertTrue(front.add(result("b", 0.80, 50, 1000)));
+		assertFalse(front.add(result("c", 0.80, 60, 900 + 200)));
+		assertFalse(front.add(result("d", 0.90, 100, 1000)));
+		assertTrue(front.add(result("e", 0.85, 70, 500)));
+		assertTrue(front.add(result("f", 0.95, 100, 1000)));
+		
+		assertEquals(3, front.getFront().size());
+		assertEquals("f", names(front).get(0));
+		assertEquals("e", names(front).get(1));
+		assertEquals("b", names(front).get(2));
+		assertEquals("score=0.95 wall_time_ms=100 peak_rss_kb=1000 f", 
+				front.summary().get(0));
+		
+		assertFalse(front.add(new RunResult("g", null, RunStatus.TIMEOUT)));
+		assertFalse(front.add(result("h", Double.NaN, 1, 1)));
+		assertEquals(3, front.getFront().size());
+	}
+	
+	/**
+	 * An unknown memory is the worst possible one.
+	 */
+	
+	@Test
+	public final void testUnknownResources() throws IOException {
+		ParetoFront front = new ParetoFront(new LastNumberExtractor(), false);
+		front.add(result("a", 0.1, 10, -1));
+		front.add(result("b", 0.1, 10, 2000));
+		assertEquals(1, front.getFront().size());
+		assertEquals("b", names(front).get(0));
+	}
+	
+	/**
+	 * The fastest execution within 0.5% of the best score.
+	 */
+	
+	@Test
+	public final void testFastestWithin() throws IOException {
+		ParetoFront front = new ParetoFront(new LastNumberExtractor(), true);
+		assertNull(front.fastestWithin(0.005));
+		front.add(result("best", 0.900, 400, 100));
+		front.add(result("close", 0.897, 150, 100));
+		front.add(result("closer", 0.899, 300, 100));
+		front.add(result("far", 0.850, 10, 100));
+		
+		assertEquals("close", front.fastestWithin(0.005).getCommandLine());
+		assertEquals("best", front.fastestWithin(0).getCommandLine());
+	}
+	
+	/**
+	 * A listener created by track() fills the front from an empty one.
+	 */
+	
+	@Test
+	public final void testTrack() throws IOException {
+		ParetoFront front = new ParetoFront(new LastNumberExtractor(), true);
+		front.add(result("old", 1, 1, 1));
+		final ArrayList<RunResult> forwarded = new ArrayList<RunResult>();
+		ResultListener listener = front.track(new ResultListener() {
+			@Override
+			public void resultReady(RunResult result) {
+				forwarded.add(result);
+			}
+		});
+		listener.resultReady(result("new", 0.5, 10, 10));
+		
+		assertEquals(1, forwarded.size());
+		assertEquals(1, front.getFront().size());
+		assertEquals("new", names(front).get(0));
+	}
+	
+	/**
+	 * The Serializer records the wall time of every execution and, on
+	 * Linux, the ProcessLauncher records the peak memory of the EC.
+	 */
+	
+	@Test
+	public final void testRecordedResources() throws IOException {
+		Assume.assumeTrue(new File("/proc/self/status").exists());
+		ArrayList<NumericElement> values = new ArrayList<NumericElement>();
+		values.add(new Variable("v1", 1, 2, 1));
+		ArrayList<String> tests = new ArrayList<String>();
+		tests.add("test.txt");
+		
+		Serializer serializer = new Serializer(values, "data" + File.separator 
+				+ "ec" + File.separator + "EC1.jar", tests, new ArrayList<String>());
+		ArrayList<Metric> metrics = new ArrayList<Metric>();
+		metrics.add(new Metric("accuracy", MetricKind.REGEX, "Accuracy (\\S+)"));
+		serializer.setMetrics(metrics);
+		final ArrayList<RunResult> results = new ArrayList<RunResult>();
+		serializer.setResultListener(new ResultListener() {
+			@Override
+			public void resultReady(RunResult result) {
+				results.add(result);
+				result.discard();
+			}
+		});
+		serializer.run();
+		
+		assertEquals(2, results.size());
+		for (RunResult result : results) {
+			assertTrue(result.getWallTimeMillis() > 0);
+			assertTrue(result.getPeakRssKb() > 0);
+			assertEquals(result.getPeakRssKb(), 
+					result.getMetric(RunResult.PEAK_RSS), 0);
+			assertEquals(result.getWallTimeMillis(), 
+					result.getMetric(RunResult.WALL_TIME), 0);
+		}
+	}
+}
@@ -0,0 +1,245 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the fingerprints of the files and the executions served
+ * from the ResultCache instead of being launched.
+ */
+
+public class ResultCacheTest {
+	private static File directory;
+	private static File ec;
+	private static File testSet;
+	private static Database db;
+	private static DatabaseCreator dbCreator;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		directory = Files.createTempDirectory("cache-test").toFile();
+		ec = new File(directory, "ec.jar");
+		write(ec, "ec");
+		testSet = new File(directory, "test.txt");
+		write(testSet, "first");
+
+		String dbName = "ResultCacheTest.sqlite";
+		dbCreator = new DatabaseCreator(dbName);
+		dbCreator.create();
+		db = new Database("jdbc:sqlite:db" + File.separator + dbName);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		db.closeConnection();
+		dbCreator.delete();
+		for (File f : directory.listFiles())
+			f.delete();
+		directory.delete();
+	}
+
+	private static void write(File file, String content) throws IOException {
+		PrintWriter writer = new PrintWriter(file, "UTF-8");
+		writer.println(content);
+		writer.close();
+	}
+
+	/**
+	 * Files with the same content have the same fingerprint, made of
+	 * 64 hexadecimal digits.
+	 */
+
+	@Test
+	public final void testFingerprint() throws IOException {
+		File copy = new File(directory, "copy.jar");
+		write(copy, "ec");
+
+		Fingerprinter fingerprinter = new Fingerprinter();
+		String hash = fingerprinter.fingerprint(ec.getPath());
+		assertEquals(64, hash.length());
+		assertEquals(hash, fingerprinter.fingerprint(copy.getPath()));
+		assertNotEquals(hash, fingerprinter.fingerprint(testSet.getPath()));
+		assertEquals("", fingerprinter.fingerprint(""));
+		copy.delete();
+	}
+
+	/**
+	 * The fingerprint of a file split in chunks is the SHA-256 of its
+	 * size followed by the SHA-256 of each chunk, and it is stored in
+	 * the database: the file is hashed again only when it changes.
+	 */
+
+	@Test
+	public final void testFingerprintChunks() throws Exception {
+		File file = new File(directory, "chunks.txt");
+		write(file, "0123456789abcdefghi");
+		byte[] content = Files.readAllBytes(file.toPath());
+		assertEquals(20, content.length);
+
+		MessageDigest expected = MessageDigest.getInstance("SHA-256");
+		expected.update(ByteBuffer.allocate(8).putLong(0, 20));
+		for (int start = 0; start < 20; start += 7)
+			expected.update(MessageDigest.getInstance("SHA-256").digest(
+					Arrays.copyOfRange(content, start, Math.min(20, start + 7))));
+		String hash = Fingerprinter.toHex(expected.digest());
+
+		final AtomicInteger digests = new AtomicInteger();
+		Fingerprinter fingerprinter = new Fingerprinter(db, 7) {
+			@Override
+			protected String digest(File file) throws IOException {
+				digests.incrementAndGet();
+				return super.digest(file);
+			}
+		};
+		assertEquals(hash, fingerprinter.fingerprint(file.getPath()));
+		assertEquals(hash, fingerprinter.fingerprint(file.getPath()));
+		assertEquals(1, digests.get());
+		db.awaitWrites();
+		assertEquals(hash, db.retrieveFingerprint(file.getAbsolutePath()).getHash());
+
+		Fingerprinter other = new Fingerprinter(db, 7) {
+			@Override
+			protected String digest(File file) throws IOException {
+				digests.incrementAndGet();
+				return super.digest(file);
+			}
+		};
+		assertEquals(hash, other.fingerprint(file.getPath()));
+		assertEquals(1, digests.get());
+
+		write(file, "0123456789abcdefghij");
+		assertNotEquals(hash, other.fingerprint(file.getPath()));
+		assertEquals(2, digests.get());
+		file.delete();
+	}
+
+	/**
+	 * A second sweep with the same EC, parameters and data sets is
+	 * served entirely from the cache, with the same answers, while a
+	 * change of the test set launches the executions again.
+	 */
+
+	@Test
+	public final void testCachedSweep() throws IOException {
+		final AtomicInteger launches = new AtomicInteger();
+		Launcher launcher = new Launcher() {
+			@Override
+			public CapturedOutput launch(String[] arguments) throws IOException {
+				launches.incrementAndGet();
+				CapturedOutput output = new CapturedOutput(64);
+				output.addLine("Accuracy " + arguments[0]);
+				output.finish();
+				return output;
+			}
+
+			@Override
+			protected void abortRunning() {
+			}
+		};
+
+		ResultCache cache = new ResultCache(db);
+		HashMap<String, ArrayList<String>> first = sweep(launcher, cache);
+		assertEquals(4, launches.get());
+		assertEquals(0, cache.getHits());
+		assertEquals(4, cache.getMisses());
+
+		cache = new ResultCache(db);
+		HashMap<String, ArrayList<String>> second = sweep(launcher, cache);
+		assertEquals(4, launches.get());
+		assertEquals(4, cache.getHits());
+		assertEquals(first, second);
+
+		write(testSet, "second");
+		cache = new ResultCache(db);
+		sweep(launcher, cache);
+		assertEquals(8, launches.get());
+		assertEquals(0, cache.getHits());
+	}
+
+	/**
+	 * An execution whose EC exits with a status other than 0 is
+	 * recorded as failed and is not cached, and clearing the cache
+	 * launches all the executions again.
+	 */
+
+	@Test
+	public final void testFailedNotCached() throws IOException {
+		final File failing = new File(directory, "failing.jar");
+		write(failing, "failing");
+		final AtomicInteger launches = new AtomicInteger();
+		Launcher launcher = new Launcher() {
+			@Override
+			public CapturedOutput launch(String[] arguments) throws IOException {
+				launches.incrementAndGet();
+				CapturedOutput output = new CapturedOutput(64);
+				output.addLine("Accuracy " + arguments[0]);
+				output.finish();
+				if (arguments[0].equals("2.0"))
+					output.setExitCode(1);
+				return output;
+			}
+
+			@Override
+			protected void abortRunning() {
+			}
+		};
+
+		ResultCache cache = new ResultCache(db);
+		HashMap<String, ArrayList<String>> first = sweep(launcher, cache, 
+				failing.getPath());
+		assertEquals(4, launches.get());
+		int failed = 0;
+		for (ArrayList<String> answers : first.values())
+			if (answers.contains(RunStatus.FAILED.toAnswer()))
+				failed++;
+		assertEquals(1, failed);
+
+		cache = new ResultCache(db);
+		assertEquals(first, sweep(launcher, cache, failing.getPath()));
+		assertEquals(5, launches.get());
+		assertEquals(3, cache.getHits());
+
+		cache.clear();
+		cache = new ResultCache(db);
+		sweep(launcher, cache, failing.getPath());
+		assertEquals(9, launches.get());
+		assertEquals(0, cache.getHits());
+	}
+
+	private HashMap<String, ArrayList<String>> sweep(Launcher launcher,
+			ResultCache cache) throws IOException {
+		return sweep(launcher, cache, ec.getPath());
+	}
+
+	private HashMap<String, ArrayList<String>> sweep(Launcher launcher,
+			ResultCache cache, String ecPath) throws IOException {
+		ArrayList<NumericElement> values = new ArrayList<NumericElement>();
+		values.add(new Variable("v1", 1, 4, 1));
+		ArrayList<String> tests = new ArrayList<String>();
+		tests.add(testSet.getPath());
+
+		Serializer serializer = new Serializer(values, ecPath, tests,
+				new ArrayList<String>());
+		serializer.setLauncher(launcher);
+		serializer.setResultCache(cache);
+
+		HashMap<String, ArrayList<String>> map = serializer.run();
+		assertEquals(4, map.size());
+		assertFalse(map.containsValue(null));
+		return map;
+	}
+}
@@ -0,0 +1,406 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the combinations of parameters chosen by the search
+ * strategies.
+ */
+
+public class SearchStrategyTest {
+	private ArrayList<NumericElement> numericElement;
+	private ParameterGrid grid;
+
+	@Before
+	public void setUp() throws Exception {
+		numericElement = new ArrayList<NumericElement>();
+		numericElement.add(new Variable("v1", 0, 9, 1));
+		numericElement.add(new Param("p1", 5));
+		numericElement.add(new Variable("v2", -5, 6.5f, 0.5f));
+		numericElement.add(new Variable("v3", 1, 2, 0.25f));
+		grid = new ParameterGrid(numericElement);
+	}
+	
+	/**
+	 * A GridSearch returns every combination of the grid, in order.
+	 */
+	
+	@Test
+	public final void testGridSearch() {
+		GridSearch search = new GridSearch();
+		assertEquals(grid.size(), search.getCombinationCount(grid));
+		
+		CombinationSource source = search.combinations(grid, 3);
+		for (long i = 3; i < grid.size(); i++) {
+			assertEquals(i, source.getIndex());
+			assertArrayEquals(grid.vectorAt(i), source.nextCombination(), 0);
+		}
+		assertNull(source.nextCombination());
+	}
+	
+	/**
+	 * The same seed gives the same combinations, also when the
+	 * generation starts from a later index, while a different seed
+	 * gives different ones.
+	 */
+	
+	@Test
+	public final void testRandomSearchReproducible() {
+		RandomSearch search = new RandomSearch(200, 42, false);
+		assertEquals(200, search.getCombinationCount(grid));
+		
+		ArrayList<float[]> all = new ArrayList<float[]>();
+		CombinationSource source = search.combinations(grid, 0);
+		float[] vector;
+		while ((vector = source.nextCombination()) != null)
+			all.add(vector);
+		assertEquals(200, all.size());
+		
+		source = new RandomSearch(200, 42, false).combinations(grid, 150);
+		for (int i = 150; i < 200; i++)
+			assertArrayEquals(all.get(i), source.nextCombination(), 0);
+		assertNull(source.nextCombination());
+		
+		float[] other = new RandomSearch(200, 43, false).combinations(grid, 0)
+				.nextCombination();
+		assertFalse(Arrays.equals(all.get(0), other));
+	}
+	
+	/**
+	 * Continuous sampling keeps every variable in [start, end] and
+	 * every parameter at its value, and covers the whole range.
+	 */
+	
+	@Test
+	public final void testRandomSearchContinuous() {
+		RandomSearch search = new RandomSearch(2000, 7, false);
+		CombinationSource source = search.combinations(grid, 0);
+		float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+		float[] vector;
+		while ((vector = source.nextCombination()) != null) {
+			assertTrue(vector[0] >= 0 && vector[0] <= 9);
+			assertEquals(5, vector[1], 0);
+			assertTrue(vector[2] >= -5 && vector[2] <= 6.5f);
+			assertTrue(vector[3] >= 1 && vector[3] <= 2);
+			min = Math.min(min, vector[2]);
+			max = Math.max(max, vector[2]);
+		}
+		assertTrue(min < -4.5f);
+		assertTrue(max > 6);
+	}
+	
+	/**
+	 * Sampling snapped to the grid gives distinct combinations of 
+	 * the grid, and never more than the size of the grid.
+	 */
+	
+	@Test
+	public final void testRandomSearchSnapToGrid() {
+		HashSet<String> gridVectors = new HashSet<String>();
+		for (long i = 0; i < grid.size(); i++)
+			gridVectors.add(Arrays.toString(grid.vectorAt(i)));
+		
+		RandomSearch search = new RandomSearch(100, 1, true);
+		HashSet<String> sampled = new HashSet<String>();
+		CombinationSource source = search.combinations(grid, 0);
+		float[] vector;
+		while ((vector = source.nextCombination()) != null) {
+			assertTrue(gridVectors.contains(Arrays.toString(vector)));
+			assertTrue(sampled.add(Arrays.toString(vector)));
+		}
+		assertEquals(100, sampled.size());
+		
+		search = new RandomSearch(grid.size() * 2, 1, true);
+		assertEquals(grid.size(), search.getCombinationCount(grid));
+		sampled.clear();
+		source = search.combinations(grid, 0);
+		while ((vector = source.nextCombination()) != null)
+			sampled.add(Arrays.toString(vector));
+		assertEquals(gridVectors, sampled);
+	}
+	
+	/**
+	 * The first 2^m points of the Sobol sequence put exactly one value
+	 * of every variable in each of 2^m intervals of its range, and 
+	 * the first two variables together fill a 4x4 grid of cells
+	 * with exactly one point each for the first 16 points.
+	 */
+	
+	@Test
+	public final void testSobolSearch() {
+		ArrayList<NumericElement> unitCube = new ArrayList<NumericElement>();
+		for (int i = 0; i < SobolSearch.MAX_DIMENSION; i++)
+			unitCube.add(new Variable("v" + i, 0, 1, 0.1f));
+		unitCube.add(new Param("p", 3));
+		ParameterGrid cube = new ParameterGrid(unitCube);
+		
+		int budget = 256;
+		SobolSearch search = new SobolSearch(budget);
+		assertEquals(budget, search.getCombinationCount(cube));
+		boolean[][] strata = new boolean[SobolSearch.MAX_DIMENSION][budget];
+		boolean[][] cells = new boolean[4][4];
+		
+		CombinationSource source = search.combinations(cube, 0);
+		for (int i = 0; i < budget; i++) {
+			float[] vector = source.nextCombination();
+			assertEquals(3, vector[SobolSearch.MAX_DIMENSION], 0);
+			for (int d = 0; d < SobolSearch.MAX_DIMENSION; d++) {
+				int stratum = (int) (vector[d] * budget);
+				assertFalse(strata[d][stratum]);
+				strata[d][stratum] = true;
+			}
+			if (i < 16) {
+				int x = (int) (vector[0] * 4), y = (int) (vector[1] * 4);
+				assertFalse(cells[x][y]);
+				cells[x][y] = true;
+			}
+		}
+		assertNull(source.nextCombination());
+		
+		source = search.combinations(cube, 100);
+		CombinationSource reference = search.combinations(cube, 0);
+		for (int i = 0; i < 100; i++)
+			reference.nextCombination();
+		assertArrayEquals(reference.nextCombination(), source.nextCombination(), 0);
+	}
+	
+	/**
+	 * A Latin hypercube sample puts exactly one value of every 
+	 * variable in each of "budget" intervals of its range.
+	 */
+	
+	@Test
+	public final void testLatinHypercubeSearch() {
+		int budget = 50;
+		LatinHypercubeSearch search = new LatinHypercubeSearch(budget, 3);
+		assertEquals(budget, search.getCombinationCount(grid));
+		
+		float[][] ranges = { { 0, 9 }, { 5, 5 }, { -5, 6.5f }, { 1, 2 } };
+		boolean[][] strata = new boolean[ranges.length][budget];
+		CombinationSource source = search.combinations(grid, 0);
+		float[] vector;
+		while ((vector = source.nextCombination()) != null) {
+			assertEquals(5, vector[1], 0);
+			for (int d : new int[] { 0, 2, 3 }) {
+				double u = (vector[d] - ranges[d][0]) / (ranges[d][1] - ranges[d][0]);
+				int stratum = (int) Math.min(budget - 1, u * budget);
+				assertFalse(strata[d][stratum]);
+				strata[d][stratum] = true;
+			}
+		}
+		
+		float[] first = new LatinHypercubeSearch(budget, 3).combinations(grid, 0)
+				.nextCombination();
+		assertArrayEquals(search.combinations(grid, 0).nextCombination(), first, 0);
+	}
+	
+	/**
+	 * Feeds a TpeSearch with the score -(x - 0.7)^2 - (y - 0.2)^2 of
+	 * its own proposals: the best combination found with 100 proposals
+	 * must be close to the maximum, and far better than the best of
+	 * its random start up.
+	 */
+	
+	@Test
+	public final void testTpeSearch() throws IOException {
+		ArrayList<NumericElement> square = new ArrayList<NumericElement>();
+		square.add(new Variable("x", 0, 1, 0.1f));
+		square.add(new Param("p", 2));
+		square.add(new Variable("y", 0, 1, 0.1f));
+		ParameterGrid unit = new ParameterGrid(square);
+		
+		TpeSearch search = new TpeSearch(100, 11, new LastNumberExtractor(), true);
+		search.setStartup(10);
+		assertEquals(100, search.getCombinationCount(unit));
+		
+		CombinationSource source = search.combinations(unit, 0);
+		float[] vector;
+		double startupBest = Double.NEGATIVE_INFINITY;
+		int proposals = 0;
+		while ((vector = source.nextCombination()) != null) {
+			assertEquals(2, vector[1], 0);
+			double score = -(vector[0] - 0.7) * (vector[0] - 0.7) 
+					- (vector[2] - 0.2) * (vector[2] - 0.2);
+			if (++proposals <= 10)
+				startupBest = Math.max(startupBest, score);
+			
+			CapturedOutput output = new CapturedOutput(64);
+			output.addLine("score " + score);
+			output.finish();
+			search.observe(new RunResult("run", proposals, vector, output, 
+					RunStatus.COMPLETED));
+		}
+		
+		assertEquals(100, proposals);
+		assertTrue(search.getBestScore() > -0.005);
+		assertTrue(search.getBestScore() >= startupBest);
+		assertEquals(-(search.getBest()[0] - 0.7) * (search.getBest()[0] - 0.7)
+				- (search.getBest()[2] - 0.2) * (search.getBest()[2] - 0.2), 
+				search.getBestScore(), 1e-6);
+	}
+	
+	/**
+	 * The proposals of a TpeSearch snapped to the grid are 
+	 * combinations of the grid.
+	 */
+	
+	@Test
+	public final void testTpeSearchSnapToGrid() throws IOException {
+		HashSet<String> gridVectors = new HashSet<String>();
+		for (long i = 0; i < grid.size(); i++)
+			gridVectors.add(Arrays.toString(grid.vectorAt(i)));
+		
+		TpeSearch search = new TpeSearch(30, 2, new LastNumberExtractor(), false);
+		search.setStartup(5);
+		search.setSnapToGrid(true);
+		CombinationSource source = search.combinations(grid, 0);
+		float[] vector;
+		while ((vector = source.nextCombination()) != null) {
+			assertTrue(gridVectors.contains(Arrays.toString(vector)));
+			search.observe(new RunResult("run", 0, vector, null, RunStatus.TIMEOUT));
+		}
+		assertTrue(Double.isNaN(search.getBestScore()));
+	}
+	
+	/**
+	 * A CoarseToFineSearch evaluates only combinations of the grid, 
+	 * each one once, fewer than the grid and its upper bound, and 
+	 * finds the maximum of a smooth score.
+	 */
+	
+	@Test
+	public final void testCoarseToFineSearch() throws IOException {
+		ArrayList<NumericElement> square = new ArrayList<NumericElement>();
+		square.add(new Variable("x", 0, 1, 0.01f));
+		square.add(new Param("p", 2));
+		square.add(new Variable("y", 0, 1, 0.01f));
+		ParameterGrid unit = new ParameterGrid(square);
+		HashSet<String> gridVectors = new HashSet<String>();
+		for (long i = 0; i < unit.size(); i++)
+			gridVectors.add(Arrays.toString(unit.vectorAt(i)));
+		
+		CoarseToFineSearch search = new CoarseToFineSearch(3, 2, 3, 
+				new LastNumberExtractor(), true);
+		search.setRunsPerCombination(1);
+		long bound = search.getCombinationCount(unit);
+		assertTrue(bound < unit.size());
+		
+		CombinationSource source = search.combinations(unit, 0);
+		HashSet<String> evaluated = new HashSet<String>();
+		float[] vector;
+		while ((vector = source.nextCombination()) != null) {
+			assertTrue(gridVectors.contains(Arrays.toString(vector)));
+			assertTrue(evaluated.add(Arrays.toString(vector)));
+			double score = -(vector[0] - 0.73) * (vector[0] - 0.73) 
+					- (vector[2] - 0.22) * (vector[2] - 0.22);
+			
+			CapturedOutput output = new CapturedOutput(64);
+			output.addLine("score " + score);
+			output.finish();
+			search.observe(new RunResult("run", 0, vector, output, 
+					RunStatus.COMPLETED));
+		}
+		
+		assertTrue(evaluated.size() <= bound);
+		assertEquals(evaluated.size(), source.getIndex());
+		assertEquals(0.73, search.getBest()[0], 1e-5);
+		assertEquals(0.22, search.getBest()[2], 1e-5);
+	}
+	
+	/**
+	 * The last level of a CoarseToFineSearch does not start before
+	 * all the runs of the previous one have been observed.
+	 */
+	
+	@Test
+	public final void testCoarseToFineSearchWaitsForLevel() throws Exception {
+		ArrayList<NumericElement> line = new ArrayList<NumericElement>();
+		line.add(new Variable("x", 0, 8, 1));
+		ParameterGrid unit = new ParameterGrid(line);
+		
+		final CoarseToFineSearch search = new CoarseToFineSearch(4, 1, 1, 
+				new LastNumberExtractor(), false);
+		search.setRunsPerCombination(2);
+		final CombinationSource source = search.combinations(unit, 0);
+		final ArrayList<float[]> coarse = new ArrayList<float[]>();
+		float[] vector;
+		for (int i = 0; i < 3; i++)
+			coarse.add(source.nextCombination());
+		assertEquals(8, coarse.get(2)[0], 0);
+		
+		final float[][] refined = new float[1][];
+		Thread next = new Thread() {
+			@Override
+			public void run() {
+				refined[0] = source.nextCombination();
+			}
+		};
+		next.start();
+		for (float[] c : coarse) {
+			for (int run = 0; run < 2; run++) {
+				next.join(50);
+				assertTrue(next.isAlive());
+				CapturedOutput output = new CapturedOutput(64);
+				output.addLine("score " + Math.abs(c[0] - 5));
+				output.finish();
+				search.observe(new RunResult("run", 0, c, output, 
+						RunStatus.COMPLETED));
+			}
+		}
+		next.join(5000);
+		assertFalse(next.isAlive());
+		
+		// around 4, with a stride of 1 and a reach of 2
+		assertEquals(2, refined[0][0], 0);
+		HashSet<Float> values = new HashSet<Float>();
+		while ((vector = source.nextCombination()) != null)
+			values.add(vector[0]);
+		assertEquals(new HashSet<Float>(Arrays.asList(3f, 5f, 6f)), values);
+		assertEquals(4, search.getBest()[0], 0);
+	}
+	
+	/**
+	 * A CoarseToFineSearch scores the combination that has been executed,
+	 * also when it is not the proposed one (i.e. the Serializer replaced
+	 * it with its canonical form), and does not propose it again.
+	 */
+	
+	@Test
+	public final void testCoarseToFineSearchObservesExecuted() throws IOException {
+		ArrayList<NumericElement> line = new ArrayList<NumericElement>();
+		line.add(new Variable("x", 0, 8, 1));
+		ParameterGrid unit = new ParameterGrid(line);
+		
+		CoarseToFineSearch search = new CoarseToFineSearch(4, 1, 1, 
+				new LastNumberExtractor(), true);
+		search.setRunsPerCombination(1);
+		CombinationSource source = search.combinations(unit, 0);
+		for (int i = 0; i < 3; i++) {
+			float[] vector = source.nextCombination();
+			float[] executed = (vector[0] == 8) ? new float[] { 2 } : vector;
+			CapturedOutput output = new CapturedOutput(64);
+			output.addLine("score " + (executed[0] == 2 ? 5 : executed[0] / 4));
+			output.finish();
+			search.observe(new RunResult("run", 0, executed, output, 
+					RunStatus.COMPLETED));
+		}
+		assertEquals(2, search.getBest()[0], 0);
+		
+		// around 2, with a stride of 1 and a reach of 2
+		HashSet<Float> values = new HashSet<Float>();
+		float[] vector;
+		while ((vector = source.nextCombination()) != null)
+			values.add(vector[0]);
+		assertEquals(new HashSet<Float>(Arrays.asList(1f, 3f)), values);
+	}
+}
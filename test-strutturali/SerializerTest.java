@@ -4,8 +4,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -198,4 +201,434 @@ public class SerializerTest {
 		
 		assertEquals(totalCombinations * testSet.size() * trainSet.size(), map.size());
 	}
+	
+	/**
+	 * Testing that the execution with a pool of workers
+	 * launches exactly the same command lines of the serial 
+	 * execution and collects the answers of each one.
+	 */
+	
+	@Test
+	public final void testParallelRun() throws IOException {
+		numericElement.add(new Variable("testVariable1", start1, end1, step1));
+		numericElement.add(new Variable("testVariable2", start2, end2, step2));
+		numericElement.add(new Param("testParameter1", 5));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		testSet.add("data" + File.separator + "test2.txt");
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		HashMap<String, ArrayList<String>> serialMap = serializer.run();
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setWorkers(4);
+		assertEquals(4, serializer.getWorkers());
+		HashMap<String, ArrayList<String>> parallelMap = serializer.run();
+		
+		assertEquals(serialMap.keySet(), parallelMap.keySet());
+		for (String command : serialMap.keySet())
+			assertNotNull(parallelMap.get(command));
+	}
+	
+	/**
+	 * Testing that the execution based on one thread per
+	 * command line, with a bounded number of live processes,
+	 * collects the answers of every command line.
+	 */
+	
+	@Test
+	public final void testVirtualThreadsRun() throws IOException {
+		numericElement.add(new Variable("testVariable1", start1, end1, step1));
+		numericElement.add(new Param("testParameter1", 5));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		testSet.add("data" + File.separator + "test2.txt");
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		HashMap<String, ArrayList<String>> serialMap = serializer.run();
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setVirtualThreads(true);
+		serializer.setMaxLiveProcesses(0);
+		assertEquals(1, serializer.getMaxLiveProcesses());
+		serializer.setMaxLiveProcesses(3);
+		HashMap<String, ArrayList<String>> virtualMap = serializer.run();
+		
+		assertEquals(serialMap.keySet(), virtualMap.keySet());
+	}
+	
+	/**
+	 * Testing that the in-process execution of the EC produces
+	 * the same command lines and the same number of answers of
+	 * the execution in a new JVM.
+	 */
+	
+	@Test
+	public final void testInProcessRun() throws IOException {
+		numericElement.add(new Variable("testVariable1", start1, end1, step1));
+		numericElement.add(new Param("testParameter1", 5));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		HashMap<String, ArrayList<String>> processMap = serializer.run();
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setLauncher(new InProcessLauncher(externalClassifierPath));
+		serializer.setWorkers(2);
+		HashMap<String, ArrayList<String>> inProcessMap = serializer.run();
+		serializer.getLauncher().close();
+		
+		assertEquals(processMap.keySet(), inProcessMap.keySet());
+		for (String command : processMap.keySet())
+			assertEquals(processMap.get(command).size(), 
+					inProcessMap.get(command).size());
+	}
+	
+	/**
+	 * Testing that dispatching the command lines to a pool of
+	 * warm worker JVMs, recycled after two executions, produces
+	 * the same command lines and number of answers of the 
+	 * execution in a new JVM.
+	 */
+	
+	@Test
+	public final void testWorkerPoolRun() throws IOException {
+		numericElement.add(new Variable("testVariable1", start1, end1, step1));
+		numericElement.add(new Param("testParameter1", 5));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		testSet.add("data" + File.separator + "test2.txt");
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		HashMap<String, ArrayList<String>> processMap = serializer.run();
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setLauncher(new WorkerPoolLauncher(externalClassifierPath, 2, 2));
+		serializer.setWorkers(2);
+		HashMap<String, ArrayList<String>> workerMap = serializer.run();
+		serializer.getLauncher().close();
+		
+		assertEquals(processMap.keySet(), workerMap.keySet());
+		for (String command : processMap.keySet())
+			assertEquals(processMap.get(command).size(), 
+					workerMap.get(command).size());
+	}
+	
+	/**
+	 * Testing that executions exceeding the timeout are killed
+	 * and recorded with status TIMEOUT, and that a cancelled
+	 * Serializer does not launch any command line.
+	 */
+	
+	@Test
+	public final void testTimeoutAndCancel() throws IOException {
+		numericElement.add(new Variable("testVariable1", start1, end1, step1));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setTimeout(1);
+		serializer.setWorkers(2);
+		HashMap<String, ArrayList<String>> map = serializer.run();
+		
+		assertEquals(serializer.getCombinationCount(), map.size());
+		for (ArrayList<String> answers : map.values()) {
+			assertEquals(1, answers.size());
+			assertEquals(RunStatus.TIMEOUT.toAnswer(), answers.get(0));
+		}
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.cancel();
+		assertTrue(serializer.isCancelled());
+		assertTrue(serializer.run().isEmpty());
+	}
+	
+	/**
+	 * Testing that the executions marked as completed (e.g. by an
+	 * interrupted sweep) are skipped, and that the results carry
+	 * the index of their execution.
+	 */
+	
+	@Test
+	public final void testCompletedRunsSkipped() throws IOException {
+		numericElement.add(new Variable("testVariable1", start1, end1, step1));
+		numericElement.add(new Param("testParameter1", 5));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		testSet.add("data" + File.separator + "test2.txt");
+		
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		assertEquals(serializer.getCombinationCount() * 2, serializer.getRunCount());
+		
+		BitSet completed = new BitSet();
+		for (int i = 0; i < serializer.getRunCount(); i += 2)
+			completed.set(i);
+		serializer.setCompletedRuns(completed);
+		
+		final BitSet executed = new BitSet();
+		serializer.setResultListener(new ResultListener() {
+			@Override
+			public void resultReady(RunResult result) {
+				synchronized (executed) {
+					executed.set((int) result.getRunIndex());
+				}
+				result.discard();
+			}
+		});
+		serializer.setWorkers(2);
+		assertTrue(serializer.run().isEmpty());
+		
+		BitSet expected = new BitSet();
+		expected.set(0, (int) serializer.getRunCount());
+		expected.andNot(completed);
+		assertEquals(expected, executed);
+	}
+	
+	/**
+	 * Testing that an adaptive search observes the result of every
+	 * execution, also when the executions run concurrently.
+	 */
+	
+	@Test
+	public final void testAdaptiveSearchRun() throws IOException {
+		numericElement.add(new Variable("testVariable1", 0, 10, 1));
+		numericElement.add(new Param("testParameter1", 5));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		
+		TpeSearch search = new TpeSearch(12, index, new LastNumberExtractor(), true);
+		search.setStartup(4);
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setSearchStrategy(search);
+		serializer.setLauncher(new InProcessLauncher(externalClassifierPath));
+		serializer.setWorkers(3);
+		HashMap<String, ArrayList<String>> map = serializer.run();
+		serializer.getLauncher().close();
+		
+		assertTrue(map.size() > 0 && map.size() <= 12);
+		assertNotNull(search.getBest());
+		assertEquals(search.getBest()[0] * 0.1, search.getBestScore(), 1e-5);
+	}
+	
+	/**
+	 * Testing that a CoarseToFineSearch, which waits for the results
+	 * of a level before starting the next one, completes when the
+	 * executions run concurrently on more train/test pairs.
+	 */
+	
+	@Test
+	public final void testCoarseToFineRun() throws IOException {
+		numericElement.add(new Variable("testVariable1", 0, 10, 1));
+		numericElement.add(new Param("testParameter1", 5));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		testSet.add("data" + File.separator + "test2.txt");
+		
+		CoarseToFineSearch search = new CoarseToFineSearch(2, 2, 2, 
+				new LastNumberExtractor(), true);
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setSearchStrategy(search);
+		serializer.setLauncher(new InProcessLauncher(externalClassifierPath));
+		serializer.setWorkers(3);
+		HashMap<String, ArrayList<String>> map = serializer.run();
+		serializer.getLauncher().close();
+		
+		assertTrue(map.size() > 0);
+		assertEquals(10, search.getBest()[0], 0);
+	}
+	
+	/**
+	 * Testing that a CoarseToFineSearch does not wait forever for the
+	 * results of executions that ended with an unexpected exception.
+	 */
+	
+	@Test(timeout = 60000)
+	public final void testCoarseToFineRunFailure() throws IOException {
+		numericElement.add(new Variable("testVariable1", 0, 10, 1));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		
+		Launcher launcher = new Launcher() {
+			@Override
+			public CapturedOutput launch(String[] arguments) throws IOException {
+				if (Float.parseFloat(arguments[0]) == 4)
+					throw new IllegalStateException("EC crashed");
+				CapturedOutput output = new CapturedOutput(64);
+				output.addLine("Accuracy " + arguments[0]);
+				output.finish();
+				return output;
+			}
+			
+			@Override
+			protected void abortRunning() {
+			}
+		};
+		
+		CoarseToFineSearch search = new CoarseToFineSearch(2, 2, 1, 
+				new LastNumberExtractor(), true);
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setSearchStrategy(search);
+		serializer.setLauncher(launcher);
+		serializer.setWorkers(2);
+		serializer.run();
+		
+		assertEquals(10, search.getBest()[0], 0);
+	}
+	
+	/**
+	 * Testing that the combinations pruned by the constraints are
+	 * counted in advance and never launched, while keeping the run
+	 * indexes of the other ones.
+	 */
+	
+	@Test
+	public final void testConstraintsPruning() throws IOException {
+		numericElement.add(new Variable("testVariable1", 0, 3, 1));
+		numericElement.add(new Variable("testVariable2", 0, 3, 1));
+		numericElement.add(new Param("testParameter1", 5));
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		testSet.add("data" + File.separator + "test2.txt");
+		
+		ParameterConstraints constraints = new ParameterConstraints();
+		constraints.addConstraint("testVariable1 < testVariable2");
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setConstraints(constraints);
+		serializer.setLauncher(new InProcessLauncher(externalClassifierPath));
+		serializer.setWorkers(index + 1);
+		assertEquals(16 - 6, serializer.countPrunedCombinations());
+		
+		final ParameterGrid grid = new ParameterGrid(numericElement);
+		final ArrayList<Long> runIndexes = new ArrayList<Long>();
+		serializer.setResultListener(new ResultListener() {
+			@Override
+			public void resultReady(RunResult result) {
+				synchronized (runIndexes) {
+					runIndexes.add(result.getRunIndex());
+				}
+				assertTrue(result.getCombination()[0] < result.getCombination()[1]);
+				assertArrayEquals(grid.vectorAt(result.getRunIndex() / 2), 
+						result.getCombination(), 0);
+				result.discard();
+			}
+		});
+		serializer.run();
+		serializer.getLauncher().close();
+		
+		assertEquals(6 * 2, runIndexes.size());
+		assertEquals(6 * 2, new HashSet<Long>(runIndexes).size());
+	}
+	
+	/**
+	 * Testing that an adaptive search is asked for a combination only
+	 * when an execution slot is free, so that every proposal takes
+	 * into account the results of the executions that freed the slots.
+	 */
+	
+	@Test
+	public final void testAdaptiveProposalWaitsForSlot() throws IOException {
+		numericElement.add(new Variable("testVariable1", 0, 9, 1));
+		final int workers = 2;
+		final AtomicInteger observed = new AtomicInteger();
+		final AtomicInteger inFlight = new AtomicInteger();
+		final int[] maxInFlight = new int[1];
+		
+		AdaptiveSearch search = new AdaptiveSearch() {
+			@Override
+			public long getCombinationCount(ParameterGrid grid) {
+				return grid.size();
+			}
+			
+			@Override
+			public CombinationSource combinations(final ParameterGrid grid, 
+					final long first) {
+				return new CombinationSource() {
+					private long index = first;
+					
+					@Override
+					public long getIndex() {
+						return index;
+					}
+					
+					@Override
+					public float[] nextCombination() {
+						if (index >= grid.size())
+							return null;
+						synchronized (maxInFlight) {
+							maxInFlight[0] = Math.max(maxInFlight[0], inFlight.get());
+						}
+						inFlight.incrementAndGet();
+						return grid.vectorAt(index++);
+					}
+				};
+			}
+			
+			@Override
+			public void setRunsPerCombination(int runs) {
+			}
+			
+			@Override
+			public void observe(RunResult result) {
+				observed.incrementAndGet();
+				inFlight.decrementAndGet();
+			}
+		};
+		
+		Launcher launcher = new Launcher() {
+			@Override
+			public CapturedOutput launch(String[] arguments) throws IOException {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				CapturedOutput output = new CapturedOutput(64);
+				output.addLine("Accuracy " + arguments[0]);
+				output.finish();
+				return output;
+			}
+			
+			@Override
+			protected void abortRunning() {
+			}
+		};
+		
+		ArrayList<String> testSet = new ArrayList<String>();
+		testSet.add("data" + File.separator + "test1.txt");
+		serializer = new Serializer(numericElement, externalClassifierPath, 
+				testSet, new ArrayList<String>());
+		serializer.setSearchStrategy(search);
+		serializer.setLauncher(launcher);
+		serializer.setWorkers(workers);
+		serializer.run();
+		
+		assertEquals(10, observed.get());
+		assertTrue(maxInFlight[0] < workers);
+	}
 }
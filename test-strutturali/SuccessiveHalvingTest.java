@@ -0,0 +1,134 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the multi-fidelity search performed by SuccessiveHalving, 
+ * together with the reduced data sets written by DataSubsampler 
+ * and the scores read by LastNumberExtractor.
+ */
+
+public class SuccessiveHalvingTest {
+	private static File directory;
+	private static File testSet;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		directory = Files.createTempDirectory("halving-test").toFile();
+		testSet = new File(directory, "test.txt");
+		PrintWriter writer = new PrintWriter(testSet, "UTF-8");
+		for (int i = 0; i < 10000; i++)
+			writer.println("line " + i);
+		writer.close();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() {
+		for (File f : directory.listFiles())
+			f.delete();
+		directory.delete();
+	}
+	
+	/**
+	 * The reduced copies keep about the requested fraction of the
+	 * lines, and the lines of a smaller fraction are kept by a 
+	 * larger one.
+	 */
+	
+	@Test
+	public final void testSubsample() throws IOException {
+		DataSubsampler subsampler = new DataSubsampler(directory, 5);
+		List<String> small = Files.readAllLines(new File(
+				subsampler.subsample(testSet.getPath(), 0.1)).toPath());
+		List<String> large = Files.readAllLines(new File(
+				subsampler.subsample(testSet.getPath(), 0.3)).toPath());
+		
+		assertTrue(Math.abs(small.size() - 1000) < 150);
+		assertTrue(Math.abs(large.size() - 3000) < 250);
+		assertTrue(new HashSet<String>(large).containsAll(small));
+		
+		List<String> all = Files.readAllLines(new File(
+				subsampler.subsample(testSet.getPath(), 1)).toPath());
+		assertEquals(10000, all.size());
+	}
+	
+	/**
+	 * The last number printed by the EC is its score.
+	 */
+	
+	@Test
+	public final void testLastNumberExtractor() throws IOException {
+		CapturedOutput output = new CapturedOutput(16);
+		output.addLine("0 yes");
+		output.addLine("Precision 0.27");
+		output.addLine("Accuracy 9.0E-2 done");
+		output.finish();
+		
+		LastNumberExtractor extractor = new LastNumberExtractor();
+		assertEquals(0.09, extractor.extract(
+				new RunResult("run", output, RunStatus.COMPLETED)), 1e-12);
+		assertNull(extractor.extract(
+				new RunResult("run", null, RunStatus.TIMEOUT)));
+		output.discard();
+	}
+	
+	/**
+	 * Nine combinations are run on a ninth of the data, the best three
+	 * on a third and the best one on the whole data. The accuracy of
+	 * the EC grows with its first argument, so the best combination
+	 * is the one with the largest value.
+	 */
+	
+	@Test
+	public final void testRun() throws IOException {
+		ArrayList<NumericElement> values = new ArrayList<NumericElement>();
+		values.add(new Variable("v1", 0, 8, 1));
+		values.add(new Param("p1", 1));
+		ArrayList<String> tests = new ArrayList<String>();
+		tests.add(testSet.getPath());
+		
+		Serializer serializer = new Serializer(values, "data" + File.separator 
+				+ "ec" + File.separator + "EC1.jar", tests, new ArrayList<String>());
+		serializer.setWorkers(4);
+		final AtomicInteger results = new AtomicInteger();
+		final AtomicInteger fullRuns = new AtomicInteger();
+		serializer.setResultListener(new ResultListener() {
+			@Override
+			public void resultReady(RunResult result) {
+				results.incrementAndGet();
+				if (result.getCommandLine().endsWith(testSet.getPath()))
+					fullRuns.incrementAndGet();
+				result.discard();
+			}
+		});
+		
+		SuccessiveHalving halving = new SuccessiveHalving(3, 1 / 9.0, 
+				new LastNumberExtractor(), true);
+		assertEquals(3, halving.getRungCount());
+		assertEquals(1 / 9.0, halving.getFraction(0), 1e-12);
+		
+		ArrayList<SuccessiveHalving.Candidate> ranking = halving.run(serializer);
+		assertEquals(9 + 3 + 1, results.get());
+		assertEquals(1, fullRuns.get());
+		assertEquals(1, ranking.size());
+		assertArrayEquals(new float[] { 8, 1 }, ranking.get(0).getCombination(), 0);
+		assertEquals(0.8, ranking.get(0).getScore(), 1e-9);
+		
+		assertTrue(serializer.getSearchStrategy() instanceof GridSearch);
+		assertEquals(tests, serializer.getTestSet());
+	}
+}
@@ -130,4 +130,18 @@ public class VariableTest {
 	public final void testGetName() {
 		assertTrue(variable.getName().equals(name));
 	}
+	
+	/**
+	 * Tests that the number of values of the variable is
+	 * ceil((end - start) / step) + 1 and that the values are 
+	 * obtained from the step index.
+	 */
+	
+	@Test
+	public final void testValueAt() {
+		int count = (int) Math.ceil((end - start) / step) + 1;
+		assertEquals(count, variable.getPointCount());
+		for (int i = 0; i < count; i++)
+			assertEquals(start + i * step, variable.valueAt(i), 0.0);
+	}
 }